@@ -13,6 +13,7 @@
 #include <cstdint>
 #include <string>
 #include <functional>
+#include <map>
 #include <vector>
 #include <memory>
 
@@ -154,6 +155,8 @@ public:
 
     AnnotationID addAnnotation(const Annotation&);
     void updateAnnotation(AnnotationID, const Annotation&);
+    // Appends points to the end of a line annotation without replacing its geometry or style
+    void appendAnnotationPoints(AnnotationID, const LineString<double>&);
     void removeAnnotation(AnnotationID);
 
     // Sources
@@ -170,6 +173,8 @@ public:
 
     // Add image, bound to the style
     void addImage(const std::string&, std::unique_ptr<const SpriteImage>);
+    // Add images in a single sprite atlas update
+    void addImages(std::map<std::string, std::unique_ptr<const SpriteImage>>);
     void removeImage(const std::string&);
     const SpriteImage* getImage(const std::string&);
 
@@ -34,6 +34,11 @@ public:
         Required = true,
     };
 
+    enum class Priority : bool {
+        Regular,
+        Low,
+    };
+
     Resource(Kind kind_, std::string url_, optional<TileData> tileData_ = {}, Necessity necessity_ = Required)
         : kind(kind_),
           necessity(necessity_),
@@ -58,6 +63,7 @@ public:
 
     Kind kind;
     Necessity necessity;
+    Priority priority = Priority::Regular;
     std::string url;
 
     // Includes auxiliary data if this is a tile request.
@@ -1,8 +1,6 @@
 package com.mapbox.mapboxsdk;
 
 import android.content.Context;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
 import android.support.annotation.NonNull;
 import android.text.TextUtils;
 
@@ -13,10 +11,11 @@ import com.mapbox.mapboxsdk.telemetry.MapboxEventManager;
 
 public final class Mapbox {
 
-  private static Mapbox INSTANCE;
+  private static volatile Mapbox INSTANCE;
   private Context context;
   private String accessToken;
-  private Boolean connected;
+  private volatile ConnectivityReceiver connectivityReceiver;
+  private volatile Boolean connected;
 
   /**
    * Get an instance of Mapbox.
@@ -31,9 +30,10 @@ public final class Mapbox {
   public static synchronized Mapbox getInstance(@NonNull Context context, @NonNull String accessToken) {
     if (INSTANCE == null) {
       Context appContext = context.getApplicationContext();
+      // the receiver reads the instance as soon as it's registered, it's assigned first
       INSTANCE = new Mapbox(appContext, accessToken);
+      INSTANCE.connectivityReceiver = ConnectivityReceiver.instance(appContext);
       MapboxEventManager.getMapboxEventManager().initialize(appContext, accessToken);
-      ConnectivityReceiver.instance(appContext);
     }
     return INSTANCE;
   }
@@ -80,7 +80,7 @@ public final class Mapbox {
    * @param connected flag to determine the connectivity state, true for connected, false for
    *                  disconnected, null for ConnectivityManager to determine.
    */
-  public static synchronized void setConnected(Boolean connected) {
+  public static void setConnected(Boolean connected) {
     // Connectivity state overridden by app
     INSTANCE.connected = connected;
   }
@@ -89,16 +89,24 @@ public final class Mapbox {
    * Determines whether we have an Internet connection available. Please do not rely on this
    * method in your apps, this method is used internally by the SDK.
    *
+   * <p>
+   * Called for every map request, this reads the state kept by {@link ConnectivityReceiver} without locking.
+   * </p>
+   *
    * @return true if there is an Internet connection, false otherwise
    */
-  public static synchronized Boolean isConnected() {
-    if (INSTANCE.connected != null) {
+  public static Boolean isConnected() {
+    Mapbox instance = INSTANCE;
+    Boolean connected = instance.connected;
+    if (connected != null) {
       // Connectivity state overridden by app
-      return INSTANCE.connected;
+      return connected;
     }
-
-    ConnectivityManager cm = (ConnectivityManager) INSTANCE.context.getSystemService(Context.CONNECTIVITY_SERVICE);
-    NetworkInfo activeNetwork = cm.getActiveNetworkInfo();
-    return (activeNetwork != null && activeNetwork.isConnected());
+    ConnectivityReceiver connectivityReceiver = instance.connectivityReceiver;
+    if (connectivityReceiver == null) {
+      // a broadcast delivered while getInstance registers the receiver, wait for the registration to complete
+      connectivityReceiver = ConnectivityReceiver.instance(instance.context);
+    }
+    return connectivityReceiver.isNetworkConnected();
   }
 }
\ No newline at end of file
@@ -0,0 +1,295 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.support.annotation.NonNull;
+import android.support.v4.util.SparseArrayCompat;
+
+import com.mapbox.mapboxsdk.constants.GeoConstants;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grid based spatial index of {@link MarkerView} positions in spherical mercator projected meters.
+ * <p>
+ * The projected world is divided into {@link #GRID_SIZE} by {@link #GRID_SIZE} cells and each marker view is kept
+ * in the cell containing its position. Adding, moving and removing a marker view only touches its own cell,
+ * querying a viewport only visits the occupied cells overlapping it. Positions are projected in Java, no call into
+ * the renderer is needed to maintain or query the index.
+ * </p>
+ */
+class MarkerViewIndex {
+
+  static final int GRID_SIZE = 1024;
+
+  private static final double WORLD_SIZE = 2 * Math.PI * GeoConstants.RADIUS_EARTH_METERS;
+  private static final double HALF_WORLD_SIZE = WORLD_SIZE / 2;
+  private static final double CELL_SIZE = WORLD_SIZE / GRID_SIZE;
+
+  // occupied cells keyed by row * GRID_SIZE + column
+  private final SparseArrayCompat<List<MarkerView>> cells = new SparseArrayCompat<>();
+  private final Map<MarkerView, Entry> entries = new IdentityHashMap<>();
+
+  // projected viewport corners, reused between queries
+  private final double[] cornersX = new double[4];
+  private final double[] cornersY = new double[4];
+
+  /**
+   * Adds a marker view to the index, or moves it when it's already indexed.
+   *
+   * @param marker the marker view to index
+   */
+  void put(@NonNull MarkerView marker) {
+    LatLng position = marker.getPosition();
+    if (position == null) {
+      remove(marker);
+      return;
+    }
+
+    double x = projectX(position.getLongitude());
+    double y = projectY(position.getLatitude());
+    int cell = cellOf(x, y);
+
+    Entry entry = entries.get(marker);
+    if (entry == null) {
+      entry = new Entry();
+      entries.put(marker, entry);
+    } else if (entry.cell != cell) {
+      removeFromCell(marker, entry.cell);
+    } else {
+      entry.x = x;
+      entry.y = y;
+      return;
+    }
+
+    entry.x = x;
+    entry.y = y;
+    entry.cell = cell;
+    List<MarkerView> markers = cells.get(cell);
+    if (markers == null) {
+      markers = new ArrayList<>();
+      cells.put(cell, markers);
+    }
+    markers.add(marker);
+  }
+
+  /**
+   * Moves an indexed marker view to its current position, marker views that aren't indexed are ignored.
+   *
+   * @param marker the marker view that moved
+   */
+  void update(@NonNull MarkerView marker) {
+    if (entries.containsKey(marker)) {
+      put(marker);
+    }
+  }
+
+  /**
+   * Removes a marker view from the index.
+   *
+   * @param marker the marker view to remove
+   */
+  void remove(MarkerView marker) {
+    Entry entry = entries.remove(marker);
+    if (entry != null) {
+      removeFromCell(marker, entry.cell);
+    }
+  }
+
+  void clear() {
+    cells.clear();
+    entries.clear();
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  boolean contains(MarkerView marker) {
+    return entries.containsKey(marker);
+  }
+
+  /**
+   * Finds the marker views positioned inside a convex quadrilateral, such as the corners of the visible region of
+   * a rotated and tilted map.
+   * <p>
+   * Corners are given in clockwise screen order: top left, top right, bottom right and bottom left. Longitudes are
+   * unwrapped relative to the center of the viewport so quadrilaterals crossing the antimeridian are supported.
+   * When the viewport is wider than the world, all marker views between its northern and southern edge match.
+   * </p>
+   *
+   * @param center      the center of the viewport
+   * @param topLeft     the top left corner
+   * @param topRight    the top right corner
+   * @param bottomRight the bottom right corner
+   * @param bottomLeft  the bottom left corner
+   * @param result      the collection the matching marker views are added to
+   */
+  void query(@NonNull LatLng center, @NonNull LatLng topLeft, @NonNull LatLng topRight, @NonNull LatLng bottomRight,
+             @NonNull LatLng bottomLeft, @NonNull Collection<MarkerView> result) {
+    double centerX = projectX(center.getLongitude());
+    setCorner(0, topLeft, centerX);
+    setCorner(1, topRight, centerX);
+    setCorner(2, bottomRight, centerX);
+    setCorner(3, bottomLeft, centerX);
+
+    double minX = cornersX[0];
+    double maxX = cornersX[0];
+    double minY = cornersY[0];
+    double maxY = cornersY[0];
+    double area = 0;
+    for (int i = 0; i < 4; i++) {
+      int next = (i + 1) % 4;
+      area += cornersX[i] * cornersY[next] - cornersX[next] * cornersY[i];
+      minX = Math.min(minX, cornersX[i]);
+      maxX = Math.max(maxX, cornersX[i]);
+      minY = Math.min(minY, cornersY[i]);
+      maxY = Math.max(maxY, cornersY[i]);
+    }
+
+    int minRow = clampCell((int) Math.floor((minY + HALF_WORLD_SIZE) / CELL_SIZE));
+    int maxRow = clampCell((int) Math.floor((maxY + HALF_WORLD_SIZE) / CELL_SIZE));
+
+    // the corners are matched by their min/max bounds, x unwrapped around the center so a viewport crossing the
+    // antimeridian extends past the edge of the world. Northing grows upwards, so screen clockwise corners have a
+    // negative signed area; a positive one means the unwrapped corners folded over a viewport wider than the world
+    if (area > 0) {
+      for (int i = 0; i < cells.size(); i++) {
+        int row = cells.keyAt(i) / GRID_SIZE;
+        if (row >= minRow && row <= maxRow) {
+          collectBetween(cells.valueAt(i), minY, maxY, result);
+        }
+      }
+      return;
+    }
+
+    int minColumn = (int) Math.floor((minX + HALF_WORLD_SIZE) / CELL_SIZE);
+    int maxColumn = (int) Math.floor((maxX + HALF_WORLD_SIZE) / CELL_SIZE);
+    long cellsInRange = (long) (maxColumn - minColumn + 1) * (maxRow - minRow + 1);
+
+    if (maxColumn - minColumn + 1 >= GRID_SIZE || cellsInRange > cells.size()) {
+      // visiting the occupied cells is cheaper than visiting every cell in range
+      for (int i = 0; i < cells.size(); i++) {
+        int row = cells.keyAt(i) / GRID_SIZE;
+        if (row >= minRow && row <= maxRow) {
+          collect(cells.valueAt(i), minX, maxX, result);
+        }
+      }
+    } else {
+      for (int row = minRow; row <= maxRow; row++) {
+        for (int column = minColumn; column <= maxColumn; column++) {
+          List<MarkerView> markers = cells.get(row * GRID_SIZE + wrapCell(column));
+          if (markers != null) {
+            collect(markers, minX, maxX, result);
+          }
+        }
+      }
+    }
+  }
+
+  private void collectBetween(List<MarkerView> markers, double minY, double maxY, Collection<MarkerView> result) {
+    for (int i = 0; i < markers.size(); i++) {
+      MarkerView marker = markers.get(i);
+      double y = entries.get(marker).y;
+      if (y >= minY && y <= maxY) {
+        result.add(marker);
+      }
+    }
+  }
+
+  private void collect(List<MarkerView> markers, double minX, double maxX, Collection<MarkerView> result) {
+    for (int i = 0; i < markers.size(); i++) {
+      MarkerView marker = markers.get(i);
+      Entry entry = entries.get(marker);
+      double x = entry.x;
+      if (x < minX) {
+        x += WORLD_SIZE;
+      } else if (x > maxX) {
+        x -= WORLD_SIZE;
+      }
+      if (contains(x, entry.y)) {
+        result.add(marker);
+      }
+    }
+  }
+
+  private boolean contains(double x, double y) {
+    boolean positive = false;
+    boolean negative = false;
+    for (int i = 0; i < 4; i++) {
+      int next = (i + 1) % 4;
+      double cross = (cornersX[next] - cornersX[i]) * (y - cornersY[i])
+        - (cornersY[next] - cornersY[i]) * (x - cornersX[i]);
+      if (cross > 0) {
+        positive = true;
+      } else if (cross < 0) {
+        negative = true;
+      }
+      if (positive && negative) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void setCorner(int index, LatLng corner, double centerX) {
+    double x = projectX(corner.getLongitude());
+    if (x - centerX > HALF_WORLD_SIZE) {
+      x -= WORLD_SIZE;
+    } else if (x - centerX < -HALF_WORLD_SIZE) {
+      x += WORLD_SIZE;
+    }
+    cornersX[index] = x;
+    cornersY[index] = projectY(corner.getLatitude());
+  }
+
+  private void removeFromCell(MarkerView marker, int cell) {
+    List<MarkerView> markers = cells.get(cell);
+    if (markers != null) {
+      for (int i = 0; i < markers.size(); i++) {
+        if (markers.get(i) == marker) {
+          // order within a cell doesn't matter, swap with the last element
+          int last = markers.size() - 1;
+          markers.set(i, markers.get(last));
+          markers.remove(last);
+          break;
+        }
+      }
+      if (markers.isEmpty()) {
+        cells.remove(cell);
+      }
+    }
+  }
+
+  static double projectX(double longitude) {
+    return GeoConstants.RADIUS_EARTH_METERS * Math.toRadians(longitude);
+  }
+
+  static double projectY(double latitude) {
+    double clamped = Math.max(GeoConstants.MIN_LATITUDE, Math.min(GeoConstants.MAX_LATITUDE, latitude));
+    return GeoConstants.RADIUS_EARTH_METERS * Math.log(Math.tan(Math.PI / 4 + Math.toRadians(clamped) / 2));
+  }
+
+  private static int cellOf(double x, double y) {
+    int column = wrapCell((int) Math.floor((x + HALF_WORLD_SIZE) / CELL_SIZE));
+    int row = clampCell((int) Math.floor((y + HALF_WORLD_SIZE) / CELL_SIZE));
+    return row * GRID_SIZE + column;
+  }
+
+  private static int wrapCell(int column) {
+    return ((column % GRID_SIZE) + GRID_SIZE) % GRID_SIZE;
+  }
+
+  private static int clampCell(int row) {
+    return Math.max(0, Math.min(GRID_SIZE - 1, row));
+  }
+
+  private static class Entry {
+    double x;
+    double y;
+    int cell;
+  }
+}
@@ -2,7 +2,6 @@ package com.mapbox.mapboxsdk.annotations;
 
 import android.content.Context;
 import android.graphics.PointF;
-import android.graphics.RectF;
 import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -14,15 +13,20 @@ import android.widget.ImageView;
 
 import com.mapbox.mapboxsdk.R;
 import com.mapbox.mapboxsdk.constants.MapboxConstants;
+import com.mapbox.mapboxsdk.geometry.LatLng;
 import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
+import com.mapbox.mapboxsdk.maps.Projection;
 import com.mapbox.mapboxsdk.utils.AnimatorUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Interface for interacting with ViewMarkers objects inside of a MapView.
@@ -34,6 +38,9 @@ public class MarkerViewManager implements MapView.OnMapChangedListener {
 
   private final ViewGroup markerViewContainer;
   private final Map<MarkerView, View> markerViewMap = new HashMap<>();
+  private final MarkerViewIndex markerViewIndex = new MarkerViewIndex();
+  private final List<MarkerView> visibleMarkers = new ArrayList<>();
+  private final Set<MarkerView> visibleMarkerSet = new HashSet<>();
   private final LongSparseArray<OnMarkerViewAddedListener> markerViewAddedListenerMap = new LongSparseArray<>();
   private final List<MapboxMap.MarkerViewAdapter> markerViewAdapters = new ArrayList<>();
 
@@ -45,6 +52,15 @@ public class MarkerViewManager implements MapView.OnMapChangedListener {
   private long updateTime;
   private MapboxMap.OnMarkerViewClickListener onMarkerViewClickListener;
   private boolean isWaitingForRenderInvoke;
+  private int maxMarkerViewSize;
+
+  // markers with a view, rebuilt from markerViewMap when it changes, and their projected positions
+  private MarkerView[] shownMarkers = new MarkerView[0];
+  private View[] shownViews = new View[0];
+  private double[] shownCoordinates = new double[0];
+  private float[] shownScreenLocations = new float[0];
+  private int shownCount;
+  private boolean shownMarkersInvalid;
 
   /**
    * Creates an instance of MarkerViewManager.
@@ -164,37 +180,79 @@ public class MarkerViewManager implements MapView.OnMapChangedListener {
    * If an item is View state is not visible and its related flag is set to visible, the
    * {@link MarkerView} will be animated to visible using alpha animation.
    * </p>
+   * <p>
+   * This is called for every frame while the camera moves. All positions are projected to the
+   * screen with a single call into reused arrays, no objects are allocated.
+   * </p>
    */
   public void updateMarkerViewsPosition() {
-    for (final MarkerView marker : markerViewMap.keySet()) {
-      final View convertView = markerViewMap.get(marker);
-      if (convertView != null) {
-        PointF point = mapboxMap.getProjection().toScreenLocation(marker.getPosition());
-        if (marker.getOffsetX() == MapboxConstants.UNMEASURED) {
-          // ensure view is measured first
-          if (marker.getWidth() == 0) {
-            convertView.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
-            if (convertView.getMeasuredWidth() != 0) {
-              marker.setWidth(convertView.getMeasuredWidth());
-              marker.setHeight(convertView.getMeasuredHeight());
-            }
+    if (shownMarkersInvalid) {
+      updateShownMarkers();
+    }
+
+    if (shownCount == 0) {
+      return;
+    }
+
+    for (int i = 0; i < shownCount; i++) {
+      LatLng position = shownMarkers[i].getPosition();
+      shownCoordinates[2 * i] = position.getLatitude();
+      shownCoordinates[2 * i + 1] = position.getLongitude();
+    }
+    mapboxMap.getProjection().toScreenLocations(shownCoordinates, shownScreenLocations, shownCount);
+
+    for (int i = 0; i < shownCount; i++) {
+      final MarkerView marker = shownMarkers[i];
+      final View convertView = shownViews[i];
+      if (marker.getOffsetX() == MapboxConstants.UNMEASURED) {
+        // ensure view is measured first
+        if (marker.getWidth() == 0) {
+          convertView.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
+          if (convertView.getMeasuredWidth() != 0) {
+            marker.setWidth(convertView.getMeasuredWidth());
+            marker.setHeight(convertView.getMeasuredHeight());
+            maxMarkerViewSize = Math.max(maxMarkerViewSize,
+              Math.max(convertView.getMeasuredWidth(), convertView.getMeasuredHeight()));
           }
         }
-        if (marker.getWidth() != 0) {
-          int x = (int) (marker.getAnchorU() * marker.getWidth());
-          int y = (int) (marker.getAnchorV() * marker.getHeight());
-          marker.setOffset(x, y);
-        }
+      }
+      if (marker.getWidth() != 0) {
+        int x = (int) (marker.getAnchorU() * marker.getWidth());
+        int y = (int) (marker.getAnchorV() * marker.getHeight());
+        marker.setOffset(x, y);
+      }
 
-        convertView.setX(point.x - marker.getOffsetX());
-        convertView.setY(point.y - marker.getOffsetY());
+      convertView.setX(shownScreenLocations[2 * i] - marker.getOffsetX());
+      convertView.setY(shownScreenLocations[2 * i + 1] - marker.getOffsetY());
 
-        // animate visibility
-        if (marker.isVisible() && convertView.getVisibility() == View.GONE) {
-          animateVisible(marker, true);
-        }
+      // animate visibility
+      if (marker.isVisible() && convertView.getVisibility() == View.GONE) {
+        convertView.setVisibility(View.VISIBLE);
+      }
+    }
+  }
+
+  private void updateShownMarkers() {
+    int count = markerViewMap.size();
+    if (shownMarkers.length < count) {
+      int capacity = Math.max(count, shownMarkers.length + (shownMarkers.length >> 1));
+      shownMarkers = new MarkerView[capacity];
+      shownViews = new View[capacity];
+      shownCoordinates = new double[2 * capacity];
+      shownScreenLocations = new float[2 * capacity];
+    }
+
+    shownCount = 0;
+    for (Map.Entry<MarkerView, View> entry : markerViewMap.entrySet()) {
+      if (entry.getValue() != null) {
+        shownMarkers[shownCount] = entry.getKey();
+        shownViews[shownCount] = entry.getValue();
+        shownCount++;
       }
     }
+    Arrays.fill(shownMarkers, shownCount, shownMarkers.length, null);
+    Arrays.fill(shownViews, shownCount, shownViews.length, null);
+    shownMarkersInvalid = false;
   }
 
   /**
@@ -203,14 +261,14 @@ public class MarkerViewManager implements MapView.OnMapChangedListener {
    * @param tilt the tilt value.
    */
   public void setTilt(float tilt) {
-    View convertView;
-    for (MarkerView markerView : markerViewMap.keySet()) {
-      if (markerView.isFlat()) {
-        convertView = markerViewMap.get(markerView);
-        if (convertView != null) {
-          markerView.setTilt(tilt);
-          convertView.setRotationX(tilt);
-        }
+    if (shownMarkersInvalid) {
+      updateShownMarkers();
+    }
+
+    for (int i = 0; i < shownCount; i++) {
+      if (shownMarkers[i].isFlat()) {
+        shownMarkers[i].setTilt(tilt);
+        shownViews[i].setRotationX(tilt);
       }
     }
   }
@@ -385,6 +443,29 @@ public class MarkerViewManager implements MapView.OnMapChangedListener {
     }
     marker.setMapboxMap(null);
     markerViewMap.remove(marker);
+    markerViewIndex.remove(marker);
+    shownMarkersInvalid = true;
+  }
+
+  /**
+   * Add a MarkerView to the spatial index used to find the MarkerViews in the viewport.
+   * <p>
+   * The View of the {@link MarkerView} is created once its position is found in the viewport.
+   * </p>
+   *
+   * @param marker the MarkerView added to the map.
+   */
+  public void addMarkerView(@NonNull MarkerView marker) {
+    markerViewIndex.put(marker);
+  }
+
+  /**
+   * Update the spatial index after the position of a MarkerView changed.
+   *
+   * @param marker the MarkerView that changed position.
+   */
+  public void invalidateMarkerViewPosition(@NonNull MarkerView marker) {
+    markerViewIndex.update(marker);
   }
 
   /**
@@ -447,19 +528,34 @@ public class MarkerViewManager implements MapView.OnMapChangedListener {
    * Invalidate the ViewMarkers found in the viewport.
    * <p>
    * This method will remove any markers that aren't in the viewport anymore and will add new
-   * ones for each found Marker in the changed viewport.
+   * ones for each found Marker in the changed viewport. The viewport, extended by the size of the
+   * largest MarkerView, is looked up in a spatial index of MarkerView positions.
    * </p>
    */
   public void invalidateViewMarkersInVisibleRegion() {
-    RectF mapViewRect = new RectF(0, 0, markerViewContainer.getWidth(), markerViewContainer.getHeight());
-    List<MarkerView> markers = mapboxMap.getMarkerViewsInRect(mapViewRect);
+    Projection projection = mapboxMap.getProjection();
+    float left = -maxMarkerViewSize;
+    float top = -maxMarkerViewSize;
+    float right = markerViewContainer.getWidth() + maxMarkerViewSize;
+    float bottom = markerViewContainer.getHeight() + maxMarkerViewSize;
+
+    visibleMarkers.clear();
+    markerViewIndex.query(
+      projection.fromScreenLocation(new PointF((left + right) / 2, (top + bottom) / 2)),
+      projection.fromScreenLocation(new PointF(left, top)),
+      projection.fromScreenLocation(new PointF(right, top)),
+      projection.fromScreenLocation(new PointF(right, bottom)),
+      projection.fromScreenLocation(new PointF(left, bottom)),
+      visibleMarkers);
+    visibleMarkerSet.clear();
+    visibleMarkerSet.addAll(visibleMarkers);
     View convertView;
 
     // remove old markers
     Iterator<MarkerView> iterator = markerViewMap.keySet().iterator();
     while (iterator.hasNext()) {
       MarkerView marker = iterator.next();
-      if (!markers.contains(marker)) {
+      if (!visibleMarkerSet.contains(marker)) {
         // remove marker
         convertView = markerViewMap.get(marker);
         for (MapboxMap.MarkerViewAdapter adapter : markerViewAdapters) {
@@ -468,13 +564,14 @@ public class MarkerViewManager implements MapView.OnMapChangedListener {
             adapter.releaseView(convertView);
             marker.setMapboxMap(null);
             iterator.remove();
+            shownMarkersInvalid = true;
           }
         }
       }
     }
 
     // introduce new markers
-    for (final MarkerView marker : markers) {
+    for (final MarkerView marker : visibleMarkers) {
       if (!markerViewMap.containsKey(marker)) {
         for (final MapboxMap.MarkerViewAdapter adapter : markerViewAdapters) {
           if (adapter.getMarkerClass().equals(marker.getClass())) {
@@ -498,6 +595,7 @@ public class MarkerViewManager implements MapView.OnMapChangedListener {
 
               marker.setMapboxMap(mapboxMap);
               markerViewMap.put(marker, adaptedView);
+              shownMarkersInvalid = true;
               if (convertView == null) {
                 adaptedView.setVisibility(View.GONE);
                 markerViewContainer.addView(adaptedView);
@@ -3,19 +3,28 @@ package com.mapbox.mapboxsdk.annotations;
 import com.mapbox.mapboxsdk.geometry.LatLng;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Multipoint is an abstract annotation for combining geographical locations.
+ * <p>
+ * The geometry is stored as packed, interleaved latitude and longitude values. This avoids
+ * allocating an object per vertex and allows the geometry to be transferred to the renderer
+ * with a single copy.
+ * </p>
  */
 public abstract class MultiPoint extends Annotation {
 
-  private List<LatLng> points;
+  private static final double[] EMPTY_COORDINATES = new double[0];
+
+  // interleaved latitude, longitude pairs, only the first pointCount pairs are in use
+  private double[] coordinates = EMPTY_COORDINATES;
+  private int pointCount;
   private float alpha = 1.0f;
 
   protected MultiPoint() {
     super();
-    points = new ArrayList<>();
   }
 
   /**
@@ -24,7 +33,29 @@ public abstract class MultiPoint extends Annotation {
    * @return A {@link List} of points.
    */
   public List<LatLng> getPoints() {
-    return new ArrayList<>(points);
+    List<LatLng> points = new ArrayList<>(pointCount);
+    for (int i = 0; i < pointCount; i++) {
+      points.add(new LatLng(coordinates[2 * i], coordinates[2 * i + 1]));
+    }
+    return points;
+  }
+
+  /**
+   * Returns a copy of the points as interleaved latitude and longitude values.
+   *
+   * @return An array of length 2 * {@link #getPointCount()} holding latitude, longitude pairs.
+   */
+  public double[] getCoordinates() {
+    return Arrays.copyOf(coordinates, 2 * pointCount);
+  }
+
+  /**
+   * Returns the amount of points of this multipoint.
+   *
+   * @return the amount of points.
+   */
+  public int getPointCount() {
+    return pointCount;
   }
 
   /**
@@ -34,7 +65,23 @@ public abstract class MultiPoint extends Annotation {
    * @param points A {@link List} of {@link LatLng} points making up the polyline.
    */
   public void setPoints(List<LatLng> points) {
-    this.points = new ArrayList<>(points);
+    pointCount = 0;
+    ensureCapacity(points.size());
+    for (LatLng point : points) {
+      appendPoint(point);
+    }
+    update();
+  }
+
+  /**
+   * Sets the points of this polyline from interleaved latitude and longitude values. This method will
+   * take a copy of the coordinates, so further mutations to the array will have no effect on this polyline.
+   *
+   * @param coordinates An array of latitude, longitude pairs making up the polyline.
+   */
+  public void setPoints(double[] coordinates) {
+    pointCount = 0;
+    appendCoordinates(coordinates);
     update();
   }
 
@@ -44,8 +91,9 @@ public abstract class MultiPoint extends Annotation {
    * @param point A {@link LatLng} point to be added.
    */
   public void addPoint(LatLng point) {
-    points.add(point);
-    update();
+    int start = pointCount;
+    appendPoint(point);
+    onPointsAdded(start);
   }
 
   /**
@@ -67,5 +115,33 @@ public abstract class MultiPoint extends Annotation {
     update();
   }
 
+  void onPointsAdded(int start) {
+    update();
+  }
+
+  void appendPoint(LatLng point) {
+    ensureCapacity(pointCount + 1);
+    coordinates[2 * pointCount] = point.getLatitude();
+    coordinates[2 * pointCount + 1] = point.getLongitude();
+    pointCount++;
+  }
+
+  void appendCoordinates(double[] coordinates) {
+    if (coordinates.length % 2 != 0) {
+      throw new IllegalArgumentException("Coordinates should contain latitude, longitude pairs");
+    }
+    int count = coordinates.length / 2;
+    ensureCapacity(pointCount + count);
+    System.arraycopy(coordinates, 0, this.coordinates, 2 * pointCount, coordinates.length);
+    pointCount += count;
+  }
+
+  private void ensureCapacity(int minPointCount) {
+    if (2 * minPointCount > coordinates.length) {
+      int capacity = Math.max(minPointCount, pointCount + (pointCount >> 1));
+      coordinates = Arrays.copyOf(coordinates, 2 * Math.max(capacity, 4));
+    }
+  }
+
   abstract void update();
 }
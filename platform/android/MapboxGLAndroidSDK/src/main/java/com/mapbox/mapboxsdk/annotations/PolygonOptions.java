@@ -6,7 +6,6 @@ import android.os.Parcelable;
 
 import com.mapbox.mapboxsdk.geometry.LatLng;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -27,9 +26,7 @@ public final class PolygonOptions implements Parcelable {
 
   private PolygonOptions(Parcel in) {
     polygon = new Polygon();
-    ArrayList<LatLng> pointsList = new ArrayList<>();
-    in.readList(pointsList, LatLng.class.getClassLoader());
-    addAll(pointsList);
+    addAll(in.createDoubleArray());
     alpha(in.readFloat());
     fillColor(in.readInt());
     strokeColor(in.readInt());
@@ -55,7 +52,7 @@ public final class PolygonOptions implements Parcelable {
    */
   @Override
   public void writeToParcel(Parcel out, int flags) {
-    out.writeList(getPoints());
+    out.writeDoubleArray(polygon.getCoordinates());
     out.writeFloat(getAlpha());
     out.writeInt(getFillColor());
     out.writeInt(getStrokeColor());
@@ -108,6 +105,17 @@ public final class PolygonOptions implements Parcelable {
     return this;
   }
 
+  /**
+   * Adds vertices to the outline of the polygon being built.
+   *
+   * @param coordinates interleaved latitude and longitude values defining the polygon geometry.
+   * @return This {@link PolygonOptions} object with the given points added to the outline.
+   */
+  public PolygonOptions addAll(double[] coordinates) {
+    polygon.appendCoordinates(coordinates);
+    return this;
+  }
+
   /**
    * Set the alpha value of the polyline.
    *
@@ -11,6 +11,8 @@ public final class Polyline extends MultiPoint {
 
   private int color = Color.BLACK; // default color is black
   private float width = 10; // As specified by Google API Docs (in pixels)
+  // index of the first point added since the points were last sent to the map, -1 if all were sent
+  private int firstUnsentPoint = -1;
 
   Polyline() {
     super();
@@ -54,8 +56,54 @@ public final class Polyline extends MultiPoint {
     update();
   }
 
+  /**
+   * Add points to the end of the polyline.
+   * <p>
+   * Only the added points are transferred to the map and additions made within the same frame
+   * are combined into a single update. This makes it the preferred way to grow a polyline
+   * incrementally, eg. while recording a track.
+   * </p>
+   *
+   * @param coordinates interleaved latitude and longitude values of the points to be added.
+   */
+  public void addPoints(double[] coordinates) {
+    int start = getPointCount();
+    appendCoordinates(coordinates);
+    onPointsAdded(start);
+  }
+
+  /**
+   * Do not use this method, used internally by the SDK.
+   *
+   * @return the index of the first point added since the points were last sent to the map, -1 if all were sent.
+   */
+  public int getFirstUnsentPoint() {
+    return firstUnsentPoint;
+  }
+
+  /**
+   * Do not use this method, used internally by the SDK.
+   */
+  public void onPointsSent() {
+    firstUnsentPoint = -1;
+  }
+
+  @Override
+  void onPointsAdded(int start) {
+    MapboxMap mapboxMap = getMapboxMap();
+    if (mapboxMap != null) {
+      if (firstUnsentPoint == -1) {
+        // later additions before the next transfer are sent along from the first added point
+        firstUnsentPoint = start;
+      }
+      mapboxMap.appendPolylinePoints(this);
+    }
+  }
+
   @Override
   void update() {
+    // a full update sends all points
+    firstUnsentPoint = -1;
     MapboxMap mapboxMap = getMapboxMap();
     if (mapboxMap != null) {
       mapboxMap.updatePolyline(this);
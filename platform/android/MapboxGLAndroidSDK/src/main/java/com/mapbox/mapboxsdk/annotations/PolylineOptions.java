@@ -5,7 +5,6 @@ import android.os.Parcelable;
 
 import com.mapbox.mapboxsdk.geometry.LatLng;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -27,9 +26,7 @@ public final class PolylineOptions implements Parcelable {
 
   private PolylineOptions(Parcel in) {
     polyline = new Polyline();
-    ArrayList<LatLng> pointsList = new ArrayList<>();
-    in.readList(pointsList, LatLng.class.getClassLoader());
-    addAll(pointsList);
+    addAll(in.createDoubleArray());
     alpha(in.readFloat());
     color(in.readInt());
     width(in.readFloat());
@@ -55,7 +52,7 @@ public final class PolylineOptions implements Parcelable {
    */
   @Override
   public void writeToParcel(Parcel out, int flags) {
-    out.writeList(getPoints());
+    out.writeDoubleArray(polyline.getCoordinates());
     out.writeFloat(getAlpha());
     out.writeInt(getColor());
     out.writeFloat(getWidth());
@@ -108,6 +105,17 @@ public final class PolylineOptions implements Parcelable {
     return this;
   }
 
+  /**
+   * Adds vertices to the end of the polyline being built.
+   *
+   * @param coordinates interleaved latitude and longitude values defining the polyline geometry.
+   * @return This {@link PolylineOptions} object with the given points on the end.
+   */
+  public PolylineOptions addAll(double[] coordinates) {
+    polyline.appendCoordinates(coordinates);
+    return this;
+  }
+
   /**
    * Set the alpha value of the polyline.
    *
@@ -16,7 +16,10 @@ import com.mapbox.mapboxsdk.maps.MapView;
  * @see MapView
  * @see Icon
  * @see Marker
+ * @deprecated No longer thrown, an {@link Icon} registered again with a different {@link Bitmap} is uploaded
+ * as a new sprite and markers added with the former bitmap keep it.
  */
+@Deprecated
 public class IconBitmapChangedException extends RuntimeException {
 
   public IconBitmapChangedException() {
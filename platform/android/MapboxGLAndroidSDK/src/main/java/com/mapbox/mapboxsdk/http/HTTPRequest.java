@@ -4,159 +4,130 @@ package com.mapbox.mapboxsdk.http;
 import android.content.Context;
 import android.content.pm.PackageInfo;
 import android.os.Build;
-import android.text.TextUtils;
 
 import com.mapbox.mapboxsdk.BuildConfig;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.constants.MapboxConstants;
 
-import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.net.NoRouteToHostException;
 import java.net.ProtocolException;
 import java.net.SocketException;
 import java.net.UnknownHostException;
-import java.util.concurrent.locks.ReentrantLock;
+import java.nio.ByteBuffer;
 
 import javax.net.ssl.SSLException;
 
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.HttpUrl;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
 import okhttp3.internal.Util;
 import timber.log.Timber;
 
-class HTTPRequest implements Callback {
+class HTTPRequest implements InFlightRequest.Waiter {
 
-  private static OkHttpClient mClient = new OkHttpClient();
-  private String USER_AGENT_STRING = null;
+  private static volatile HttpTransport mTransport = new OkHttpTransport(new HttpClientOptions().createClient());
+  private static final RequestScheduler mScheduler =
+    new RequestScheduler(HttpClientOptions.DEFAULT_MAX_REQUESTS, HttpClientOptions.DEFAULT_MAX_REQUESTS_PER_HOST);
+  private static final HostBackoff mHostBackoff = new HostBackoff();
+  private static volatile RequestFactory mRequestFactory;
 
-  private static final int CONNECTION_ERROR = 0;
-  private static final int TEMPORARY_ERROR = 1;
-  private static final int PERMANENT_ERROR = 2;
+  static final int CONNECTION_ERROR = 0;
+  static final int TEMPORARY_ERROR = 1;
+  static final int PERMANENT_ERROR = 2;
 
-  // Reentrancy is not needed, but "Lock" is an
-  // abstract class.
-  private ReentrantLock mLock = new ReentrantLock();
+  // read by the native peer registration, the guard decides whether it may still be called
+  private final long mNativePtr;
+  private final NativeCallbackGuard mCallbackGuard;
 
-  private long mNativePtr = 0;
-
-  private Call mCall;
-  private Request mRequest;
+  private InFlightRequest mInFlightRequest;
 
   private native void nativeOnFailure(int type, String message);
 
   private native void nativeOnResponse(int code, String etag, String modified, String cacheControl, String expires,
-                                       String retryAfter, String xRateLimitReset, byte[] body);
+                                       String retryAfter, String xRateLimitReset, ByteBuffer body, int bodyLength);
 
-  private HTTPRequest(long nativePtr, String resourceUrl, String etag, String modified) {
+  private HTTPRequest(long nativePtr, String resourceUrl, String etag, String modified, int priority) {
     mNativePtr = nativePtr;
+    mCallbackGuard = new NativeCallbackGuard(nativePtr);
 
     try {
       // Don't try a request if we aren't connected
-      if (!Mapbox.isConnected()) {
+      if (!mTransport.isConnected()) {
         throw new NoRouteToHostException("No Internet connection available.");
       }
 
-      HttpUrl httpUrl = HttpUrl.parse(resourceUrl);
-      final String host = httpUrl.host().toLowerCase(MapboxConstants.MAPBOX_LOCALE);
-      if (host.equals("mapbox.com") || host.endsWith(".mapbox.com") || host.equals("mapbox.cn")
-        || host.endsWith(".mapbox.cn")) {
-        if (httpUrl.querySize() == 0) {
-          resourceUrl = resourceUrl + "?";
-        } else {
-          resourceUrl = resourceUrl + "&";
-        }
-        resourceUrl = resourceUrl + "events=true";
-      }
+      RequestFactory requestFactory = getRequestFactory();
+      String url = requestFactory.decorate(resourceUrl);
+      HttpTransport.Request request = requestFactory.create(url, etag, modified);
 
-      Request.Builder builder = new Request.Builder()
-        .url(resourceUrl)
-        .tag(resourceUrl.toLowerCase(MapboxConstants.MAPBOX_LOCALE))
-        .addHeader("User-Agent", getUserAgent());
-      if (etag.length() > 0) {
-        builder = builder.addHeader("If-None-Match", etag);
-      } else if (modified.length() > 0) {
-        builder = builder.addHeader("If-Modified-Since", modified);
-      }
-      mRequest = builder.build();
-      mCall = mClient.newCall(mRequest);
-      mCall.enqueue(this);
+      // concurrent requests for the same resource and validators share a single fetch
+      String key = url + '\n' + etag + '\n' + modified;
+      mInFlightRequest = InFlightRequest.join(this, key, request, priority);
     } catch (Exception exception) {
       onFailure(exception);
     }
   }
 
-  public void cancel() {
-    // mCall can be null if the constructor gets aborted (e.g, under a NoRouteToHostException).
-    if (mCall != null) {
-      mCall.cancel();
-    }
+  static HttpTransport getTransport() {
+    return mTransport;
+  }
 
-    // TODO: We need a lock here because we can try
-    // to cancel at the same time the request is getting
-    // answered on the OkHTTP thread. We could get rid of
-    // this lock by using Runnable when we move Android
-    // implementation of mbgl::RunLoop to Looper.
-    mLock.lock();
-    mNativePtr = 0;
-    mLock.unlock();
+  static void setTransport(HttpTransport transport) {
+    mTransport = transport;
+    // hand the transport no more requests than it runs at once, so waiting requests stay ordered by priority
+    mScheduler.setMaxActiveRequests(transport.getMaxRequests());
+    mScheduler.setMaxActiveRequestsPerHost(transport.getMaxRequestsPerHost());
   }
 
-  @Override
-  public void onResponse(Call call, Response response) throws IOException {
-    if (response.isSuccessful()) {
-      Timber.v(String.format("[HTTP] Request was successful (code = %d).", response.code()));
-    } else {
-      // We don't want to call this unsuccessful because a 304 isn't really an error
-      String message = !TextUtils.isEmpty(response.message()) ? response.message() : "No additional information";
-      Timber.d(String.format(
-        "[HTTP] Request with response code = %d: %s",
-        response.code(), message));
-    }
+  static RequestScheduler getScheduler() {
+    return mScheduler;
+  }
 
-    byte[] body;
-    try {
-      body = response.body().bytes();
-    } catch (IOException ioException) {
-      onFailure(ioException);
-      //throw ioException;
-      return;
-    } finally {
-      response.body().close();
-    }
+  static HostBackoff getHostBackoff() {
+    return mHostBackoff;
+  }
 
-    mLock.lock();
-    if (mNativePtr != 0) {
-      nativeOnResponse(response.code(),
-        response.header("ETag"),
-        response.header("Last-Modified"),
-        response.header("Cache-Control"),
-        response.header("Expires"),
-        response.header("Retry-After"),
-        response.header("x-rate-limit-reset"),
-        body);
+  private static RequestFactory getRequestFactory() {
+    RequestFactory requestFactory = mRequestFactory;
+    if (requestFactory == null) {
+      // the user agent doesn't change during the lifetime of the process, computing it twice in a race is harmless
+      requestFactory = mRequestFactory = new RequestFactory(createUserAgent());
     }
-    mLock.unlock();
+    return requestFactory;
   }
 
-  @Override
-  public void onFailure(Call call, IOException e) {
-    onFailure(e);
+  public void cancel() {
+    // The native peer is destroyed after this call, wait for a response
+    // that is being delivered on an OkHttp thread and drop any later one.
+    mCallbackGuard.cancel();
+
+    // The shared fetch is only cancelled when no other request waits for it.
+    // mInFlightRequest can be null if the constructor gets aborted (e.g, under a NoRouteToHostException).
+    if (mInFlightRequest != null) {
+      mInFlightRequest.leave(this);
+    }
   }
 
-  private void onFailure(Exception e) {
-    int type = PERMANENT_ERROR;
-    if ((e instanceof NoRouteToHostException) || (e instanceof UnknownHostException) || (e instanceof SocketException)
-      || (e instanceof ProtocolException) || (e instanceof SSLException)) {
-      type = CONNECTION_ERROR;
-    } else if ((e instanceof InterruptedIOException)) {
-      type = TEMPORARY_ERROR;
+  @Override
+  public void onResponse(HttpTransport.Response response, ResponseBuffer body) {
+    if (mCallbackGuard.beginCallback()) {
+      try {
+        nativeOnResponse(response.getCode(),
+          response.header("ETag"),
+          response.header("Last-Modified"),
+          response.header("Cache-Control"),
+          response.header("Expires"),
+          response.header("Retry-After"),
+          response.header("x-rate-limit-reset"),
+          body.getBuffer(),
+          body.getLength());
+      } finally {
+        mCallbackGuard.endCallback();
+      }
     }
+  }
 
+  @Override
+  public void onFailure(Exception e) {
+    int type = getFailureType(e);
     String errorMessage = e.getMessage() != null ? e.getMessage() : "Error processing the request";
 
     if (type == TEMPORARY_ERROR) {
@@ -171,29 +142,37 @@ class HTTPRequest implements Callback {
         "Request failed due to a permanent error: %s", errorMessage));
     }
 
-    mLock.lock();
-    if (mNativePtr != 0) {
-      nativeOnFailure(type, errorMessage);
+    if (mCallbackGuard.beginCallback()) {
+      try {
+        nativeOnFailure(type, errorMessage);
+      } finally {
+        mCallbackGuard.endCallback();
+      }
     }
-    mLock.unlock();
   }
 
-  private String getUserAgent() {
-    if (USER_AGENT_STRING == null) {
-      return USER_AGENT_STRING = Util.toHumanReadableAscii(
-        String.format("%s %s (%s) Android/%s (%s)",
-          getApplicationIdentifier(),
-          BuildConfig.MAPBOX_VERSION_STRING,
-          BuildConfig.GIT_REVISION_SHORT,
-          Build.VERSION.SDK_INT,
-          Build.CPU_ABI)
-      );
-    } else {
-      return USER_AGENT_STRING;
+  static int getFailureType(Exception e) {
+    if ((e instanceof NoRouteToHostException) || (e instanceof UnknownHostException) || (e instanceof SocketException)
+      || (e instanceof ProtocolException) || (e instanceof SSLException)) {
+      return CONNECTION_ERROR;
+    } else if ((e instanceof InterruptedIOException)) {
+      return TEMPORARY_ERROR;
     }
+    return PERMANENT_ERROR;
+  }
+
+  private static String createUserAgent() {
+    return Util.toHumanReadableAscii(
+      String.format("%s %s (%s) Android/%s (%s)",
+        getApplicationIdentifier(),
+        BuildConfig.MAPBOX_VERSION_STRING,
+        BuildConfig.GIT_REVISION_SHORT,
+        Build.VERSION.SDK_INT,
+        Build.CPU_ABI)
+    );
   }
 
-  private String getApplicationIdentifier() {
+  private static String getApplicationIdentifier() {
     try {
       Context context = Mapbox.getApplicationContext();
       PackageInfo packageInfo = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
@@ -0,0 +1,162 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import okhttp3.internal.http.HttpDate;
+
+/**
+ * Host level backoff and circuit breaker shared by all map requests.
+ * <p>
+ * A rate limited response pauses every request to its host until the time given by the Retry-After or
+ * x-rate-limit-reset header, or an exponential backoff when neither is present. After
+ * {@link #FAILURE_THRESHOLD} consecutive server errors or timeouts the host is paused with an exponential backoff
+ * as well. Once a pause ends a single probe request is let through, further requests wait until it succeeds.
+ * </p>
+ * <p>
+ * Requests to a paused host are answered locally, the native file source then retries them when the pause ends.
+ * This keeps hundreds of tile requests from each reaching a host that is known to reject them.
+ * </p>
+ */
+class HostBackoff {
+
+  static final int FAILURE_THRESHOLD = 5;
+  static final long MIN_BACKOFF_MILLIS = 1000;
+  static final long MAX_BACKOFF_MILLIS = 5 * 60 * 1000;
+
+  private final Map<String, HostState> hosts = new HashMap<>();
+
+  /**
+   * Checks whether a request to a host may be made.
+   *
+   * @param host the host of the request
+   * @param now  the current time in milliseconds
+   * @return 0 if the request may be made, otherwise the time in milliseconds to wait before retrying
+   */
+  synchronized long acquire(@NonNull String host, long now) {
+    HostState state = hosts.get(host);
+    if (state == null || state.pausedUntil == 0) {
+      return 0;
+    }
+
+    if (now < state.pausedUntil) {
+      return state.pausedUntil - now;
+    } else if (state.probing) {
+      // the probe request hasn't completed yet
+      return MIN_BACKOFF_MILLIS;
+    }
+    state.probing = true;
+    return 0;
+  }
+
+  /**
+   * Records a response showing the host is healthy, this closes the circuit.
+   *
+   * @param host the host of the request
+   */
+  synchronized void onSuccess(@NonNull String host) {
+    hosts.remove(host);
+  }
+
+  /**
+   * Records a rate limited response and pauses the host.
+   *
+   * @param host    the host of the request
+   * @param retryAt the time in milliseconds the host accepts requests again, or 0 when unknown
+   * @param now     the current time in milliseconds
+   */
+  synchronized void onRateLimited(@NonNull String host, long retryAt, long now) {
+    HostState state = obtain(host);
+    state.failures++;
+    state.probing = false;
+    long pausedUntil = retryAt > now ? retryAt : now + backoffMillis(state.failures);
+    state.pausedUntil = Math.max(state.pausedUntil, pausedUntil);
+  }
+
+  /**
+   * Records a server error or timeout, the host is paused once the failures reach the threshold.
+   *
+   * @param host the host of the request
+   * @param now  the current time in milliseconds
+   */
+  synchronized void onServerError(@NonNull String host, long now) {
+    HostState state = obtain(host);
+    state.failures++;
+    state.probing = false;
+    if (state.failures >= FAILURE_THRESHOLD) {
+      state.pausedUntil = Math.max(state.pausedUntil, now + backoffMillis(state.failures - FAILURE_THRESHOLD + 1));
+    }
+  }
+
+  /**
+   * Records a request that completed without telling anything about the health of the host, such as a cancelled
+   * request. Another request may probe the host.
+   *
+   * @param host the host of the request
+   */
+  synchronized void release(@NonNull String host) {
+    HostState state = hosts.get(host);
+    if (state != null) {
+      state.probing = false;
+    }
+  }
+
+  synchronized void clear() {
+    hosts.clear();
+  }
+
+  /**
+   * Returns the time a rate limited host accepts requests again.
+   *
+   * @param retryAfter      the Retry-After header, in seconds or as an HTTP date
+   * @param xRateLimitReset the x-rate-limit-reset header, in seconds since the epoch
+   * @param now             the current time in milliseconds
+   * @return the time in milliseconds, or 0 when the headers are missing or invalid
+   */
+  static long retryAt(@Nullable String retryAfter, @Nullable String xRateLimitReset, long now) {
+    if (retryAfter != null) {
+      try {
+        return now + Long.parseLong(retryAfter.trim()) * 1000;
+      } catch (NumberFormatException exception) {
+        Date date = HttpDate.parse(retryAfter);
+        if (date != null) {
+          return date.getTime();
+        }
+      }
+    }
+
+    if (xRateLimitReset != null) {
+      try {
+        return Long.parseLong(xRateLimitReset.trim()) * 1000;
+      } catch (NumberFormatException exception) {
+        // ignore invalid header
+      }
+    }
+    return 0;
+  }
+
+  private HostState obtain(String host) {
+    HostState state = hosts.get(host);
+    if (state == null) {
+      state = new HostState();
+      hosts.put(host, state);
+    }
+    return state;
+  }
+
+  private static long backoffMillis(int failures) {
+    // doubles with every failure: 1s, 2s, 4s, ...
+    int exponent = Math.min(failures - 1, 30);
+    return Math.min(MAX_BACKOFF_MILLIS, MIN_BACKOFF_MILLIS << exponent);
+  }
+
+  private static class HostState {
+    int failures;
+    long pausedUntil;
+    boolean probing;
+  }
+}
@@ -0,0 +1,127 @@
+package com.mapbox.mapboxsdk.http;
+
+/**
+ * Aggregated metrics of the network requests made by the map to a single host.
+ * <p>
+ * Instances returned by {@link HttpRequestUtil#getHostMetrics()} are snapshots, they don't change afterwards.
+ * </p>
+ */
+public class HostMetrics {
+
+  private final String host;
+  private long requestCount;
+  private long notModifiedCount;
+  private long reusedConnectionCount;
+  private long bytes;
+  private final long[] errorCounts = new long[RequestMetrics.ERROR_SERVER + 1];
+
+  private final LatencyHistogram dns;
+  private final LatencyHistogram connect;
+  private final LatencyHistogram firstByte;
+  private final LatencyHistogram transfer;
+  private final LatencyHistogram total;
+
+  HostMetrics(String host) {
+    this.host = host;
+    dns = new LatencyHistogram();
+    connect = new LatencyHistogram();
+    firstByte = new LatencyHistogram();
+    transfer = new LatencyHistogram();
+    total = new LatencyHistogram();
+  }
+
+  HostMetrics(HostMetrics metrics) {
+    host = metrics.host;
+    requestCount = metrics.requestCount;
+    notModifiedCount = metrics.notModifiedCount;
+    reusedConnectionCount = metrics.reusedConnectionCount;
+    bytes = metrics.bytes;
+    System.arraycopy(metrics.errorCounts, 0, errorCounts, 0, errorCounts.length);
+    dns = new LatencyHistogram(metrics.dns);
+    connect = new LatencyHistogram(metrics.connect);
+    firstByte = new LatencyHistogram(metrics.firstByte);
+    transfer = new LatencyHistogram(metrics.transfer);
+    total = new LatencyHistogram(metrics.total);
+  }
+
+  void record(RequestMetrics metrics) {
+    requestCount++;
+    errorCounts[metrics.getErrorClass()]++;
+    bytes += metrics.getBytes();
+    if (metrics.isNotModified()) {
+      notModifiedCount++;
+    }
+    if (metrics.isConnectionReused()) {
+      reusedConnectionCount++;
+    } else {
+      // DNS and connect timings of reused connections would only skew the histograms towards 0
+      dns.record(metrics.getDnsMillis());
+      connect.record(metrics.getConnectMillis());
+    }
+    if (metrics.getStatusCode() != 0) {
+      firstByte.record(metrics.getFirstByteMillis());
+      transfer.record(metrics.getTransferMillis());
+    }
+    total.record(metrics.getTotalMillis());
+  }
+
+  public String getHost() {
+    return host;
+  }
+
+  public long getRequestCount() {
+    return requestCount;
+  }
+
+  public long getNotModifiedCount() {
+    return notModifiedCount;
+  }
+
+  /**
+   * Returns the share of requests answered with 304 Not Modified, the rate at which cached resources were
+   * revalidated without downloading them again.
+   *
+   * @return the rate between 0 and 1
+   */
+  public double getRevalidationRate() {
+    return requestCount == 0 ? 0 : (double) notModifiedCount / requestCount;
+  }
+
+  public long getReusedConnectionCount() {
+    return reusedConnectionCount;
+  }
+
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Returns the amount of requests that failed with a class of error.
+   *
+   * @param errorClass one of the ERROR_ constants of {@link RequestMetrics}
+   * @return the amount of requests
+   */
+  public long getErrorCount(int errorClass) {
+    return errorCounts[errorClass];
+  }
+
+  public LatencyHistogram getDns() {
+    return dns;
+  }
+
+  public LatencyHistogram getConnect() {
+    return connect;
+  }
+
+  public LatencyHistogram getFirstByte() {
+    return firstByte;
+  }
+
+  public LatencyHistogram getTransfer() {
+    return transfer;
+  }
+
+  public LatencyHistogram getTotal() {
+    return total;
+  }
+}
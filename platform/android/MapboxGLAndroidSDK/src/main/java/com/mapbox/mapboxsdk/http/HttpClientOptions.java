@@ -0,0 +1,178 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Defines the configuration of the HTTP client used to load tiles, styles, sprites and glyphs.
+ * <p>
+ * Map resources are loaded as bursts of many small requests to a few hosts. The defaults allow more
+ * concurrent requests per host than OkHttp does and keep more idle connections alive, so panning a
+ * map over a high latency link isn't throttled by the dispatcher or by connection setup.
+ * </p>
+ * <p>
+ * Apply the options with {@link HttpRequestUtil#setClientOptions(HttpClientOptions)}.
+ * </p>
+ */
+public class HttpClientOptions {
+
+  public static final int DEFAULT_MAX_REQUESTS = 64;
+  public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 20;
+  public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 20;
+  public static final long DEFAULT_KEEP_ALIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+  public static final long DEFAULT_CONNECT_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(15);
+  public static final long DEFAULT_READ_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+  public static final long DEFAULT_WRITE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  private int maxRequests = DEFAULT_MAX_REQUESTS;
+  private int maxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
+  private int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+  private long keepAliveMillis = DEFAULT_KEEP_ALIVE_MILLIS;
+  private boolean http2Enabled = true;
+  private long connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+  private long readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+  private long writeTimeoutMillis = DEFAULT_WRITE_TIMEOUT_MILLIS;
+
+  /**
+   * Specifies the maximum amount of requests executed concurrently.
+   *
+   * @param maxRequests The maximum amount of concurrent requests, at least 1
+   * @return This
+   */
+  public HttpClientOptions maxRequests(int maxRequests) {
+    if (maxRequests < 1) {
+      throw new IllegalArgumentException("maxRequests < 1: " + maxRequests);
+    }
+    this.maxRequests = maxRequests;
+    return this;
+  }
+
+  /**
+   * Specifies the maximum amount of requests executed concurrently for each host.
+   *
+   * @param maxRequestsPerHost The maximum amount of concurrent requests per host, at least 1
+   * @return This
+   */
+  public HttpClientOptions maxRequestsPerHost(int maxRequestsPerHost) {
+    if (maxRequestsPerHost < 1) {
+      throw new IllegalArgumentException("maxRequestsPerHost < 1: " + maxRequestsPerHost);
+    }
+    this.maxRequestsPerHost = maxRequestsPerHost;
+    return this;
+  }
+
+  /**
+   * Specifies the connection pool used to reuse connections.
+   *
+   * @param maxIdleConnections The maximum amount of idle connections kept alive
+   * @param keepAlive          The time an idle connection is kept alive
+   * @param unit               The unit of keepAlive
+   * @return This
+   */
+  public HttpClientOptions connectionPool(int maxIdleConnections, long keepAlive, @NonNull TimeUnit unit) {
+    if (maxIdleConnections < 0) {
+      throw new IllegalArgumentException("maxIdleConnections < 0: " + maxIdleConnections);
+    }
+    if (keepAlive <= 0) {
+      throw new IllegalArgumentException("keepAlive <= 0: " + keepAlive);
+    }
+    this.maxIdleConnections = maxIdleConnections;
+    this.keepAliveMillis = unit.toMillis(keepAlive);
+    return this;
+  }
+
+  /**
+   * Specifies if HTTP/2 is preferred when the server supports it. Multiple requests to the same host are
+   * multiplexed over a single HTTP/2 connection.
+   *
+   * @param enabled True to negotiate HTTP/2, false to use HTTP/1.1 only
+   * @return This
+   */
+  public HttpClientOptions http2Enabled(boolean enabled) {
+    this.http2Enabled = enabled;
+    return this;
+  }
+
+  /**
+   * Specifies the timeouts of a request, 0 means no timeout.
+   *
+   * @param connect The connect timeout
+   * @param read    The read timeout
+   * @param write   The write timeout
+   * @param unit    The unit of the timeouts
+   * @return This
+   */
+  public HttpClientOptions timeouts(long connect, long read, long write, @NonNull TimeUnit unit) {
+    if (connect < 0 || read < 0 || write < 0) {
+      throw new IllegalArgumentException("Timeouts should not be negative");
+    }
+    this.connectTimeoutMillis = unit.toMillis(connect);
+    this.readTimeoutMillis = unit.toMillis(read);
+    this.writeTimeoutMillis = unit.toMillis(write);
+    return this;
+  }
+
+  public int getMaxRequests() {
+    return maxRequests;
+  }
+
+  public int getMaxRequestsPerHost() {
+    return maxRequestsPerHost;
+  }
+
+  public int getMaxIdleConnections() {
+    return maxIdleConnections;
+  }
+
+  public long getKeepAliveMillis() {
+    return keepAliveMillis;
+  }
+
+  public boolean isHttp2Enabled() {
+    return http2Enabled;
+  }
+
+  public long getConnectTimeoutMillis() {
+    return connectTimeoutMillis;
+  }
+
+  public long getReadTimeoutMillis() {
+    return readTimeoutMillis;
+  }
+
+  public long getWriteTimeoutMillis() {
+    return writeTimeoutMillis;
+  }
+
+  /**
+   * Creates a client configured with these options.
+   *
+   * @return the client
+   */
+  OkHttpClient createClient() {
+    Dispatcher dispatcher = new Dispatcher();
+    dispatcher.setMaxRequests(maxRequests);
+    dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+    OkHttpClient.Builder builder = new OkHttpClient.Builder()
+      .dispatcher(dispatcher)
+      .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMillis, TimeUnit.MILLISECONDS))
+      .connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS)
+      .readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+      .writeTimeout(writeTimeoutMillis, TimeUnit.MILLISECONDS);
+    if (http2Enabled) {
+      builder.protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+    } else {
+      builder.protocols(Collections.singletonList(Protocol.HTTP_1_1));
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,75 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Aggregates the metrics of map requests per host and forwards them to the {@link HttpMetricsListener}.
+ */
+class HttpMetrics {
+
+  private static final Map<String, HostMetrics> hosts = new HashMap<>();
+  private static volatile HttpMetricsListener listener;
+
+  static void setListener(@Nullable HttpMetricsListener metricsListener) {
+    listener = metricsListener;
+  }
+
+  static void record(@NonNull RequestMetrics metrics) {
+    synchronized (hosts) {
+      HostMetrics hostMetrics = hosts.get(metrics.getHost());
+      if (hostMetrics == null) {
+        hostMetrics = new HostMetrics(metrics.getHost());
+        hosts.put(metrics.getHost(), hostMetrics);
+      }
+      hostMetrics.record(metrics);
+    }
+
+    HttpMetricsListener metricsListener = listener;
+    if (metricsListener != null) {
+      metricsListener.onRequestMetrics(metrics);
+    }
+  }
+
+  @NonNull
+  static Map<String, HostMetrics> getHostMetrics() {
+    synchronized (hosts) {
+      Map<String, HostMetrics> snapshot = new HashMap<>(hosts.size());
+      for (Map.Entry<String, HostMetrics> entry : hosts.entrySet()) {
+        snapshot.put(entry.getKey(), new HostMetrics(entry.getValue()));
+      }
+      return snapshot;
+    }
+  }
+
+  static void reset() {
+    synchronized (hosts) {
+      hosts.clear();
+    }
+  }
+
+  static int errorClass(int statusCode) {
+    if (statusCode == 429) {
+      return RequestMetrics.ERROR_RATE_LIMITED;
+    } else if (statusCode >= 500 && statusCode < 600) {
+      return RequestMetrics.ERROR_SERVER;
+    } else if (statusCode >= 400 && statusCode < 500) {
+      return RequestMetrics.ERROR_CLIENT;
+    }
+    return RequestMetrics.ERROR_NONE;
+  }
+
+  static int errorClass(@NonNull Exception exception) {
+    switch (HTTPRequest.getFailureType(exception)) {
+      case HTTPRequest.CONNECTION_ERROR:
+        return RequestMetrics.ERROR_CONNECTION;
+      case HTTPRequest.TEMPORARY_ERROR:
+        return RequestMetrics.ERROR_TEMPORARY;
+      default:
+        return RequestMetrics.ERROR_PERMANENT;
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package com.mapbox.mapboxsdk.http;
+
+/**
+ * Receives the timing of every network request made by the map.
+ * <p>
+ * Called on the HTTP client thread that completed the request, implementations should return quickly.
+ * </p>
+ *
+ * @see HttpRequestUtil#setMetricsListener(HttpMetricsListener)
+ */
+public interface HttpMetricsListener {
+
+  void onRequestMetrics(RequestMetrics metrics);
+
+}
@@ -0,0 +1,99 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mapbox.mapboxsdk.maps.MapView;
+
+import java.util.Map;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * Utility class for configuring the HTTP client used to load map resources such as tiles, styles, sprites and
+ * glyphs.
+ * <p>
+ * All maps share a single client, changes only apply to requests started after the call.
+ * </p>
+ */
+public class HttpRequestUtil {
+
+  /**
+   * Set the options of the HTTP client used to load map resources.
+   *
+   * @param options the options to create the client with
+   */
+  public static void setClientOptions(@NonNull HttpClientOptions options) {
+    HTTPRequest.setTransport(new OkHttpTransport(options.createClient()));
+  }
+
+  /**
+   * Set the OkHttpClient used to load map resources, for example to share a connection pool, cache or interceptors
+   * with the rest of an application.
+   * <p>
+   * The client replaces the one created from {@link HttpClientOptions}. Interceptors measuring the requests for
+   * {@link #getHostMetrics()} are added to a copy of it sharing the same connection pool and dispatcher.
+   * </p>
+   *
+   * @param client the OkHttpClient to use
+   */
+  public static void setOkHttpClient(@NonNull OkHttpClient client) {
+    HTTPRequest.setTransport(new OkHttpTransport(client));
+  }
+
+  /**
+   * Set the transport executing the requests of map resources, replacing the OkHttp client.
+   *
+   * @param transport the transport to use
+   */
+  public static void setTransport(@NonNull HttpTransport transport) {
+    HTTPRequest.setTransport(transport);
+  }
+
+  /**
+   * Get the transport executing the requests of map resources.
+   *
+   * @return the transport, an {@link OkHttpTransport} unless replaced
+   */
+  @NonNull
+  public static HttpTransport getTransport() {
+    return HTTPRequest.getTransport();
+  }
+
+  /**
+   * Set the listener receiving the timing of every network request made by the map.
+   * <p>
+   * The total time is measured for any transport, the DNS, connect and first byte times only by
+   * {@link OkHttpTransport}.
+   * </p>
+   *
+   * @param listener the listener, or null to remove it
+   */
+  public static void setMetricsListener(@Nullable HttpMetricsListener listener) {
+    HttpMetrics.setListener(listener);
+  }
+
+  /**
+   * Get the metrics aggregated per host since the start of the process or the last call to {@link #resetMetrics()}.
+   *
+   * @return a snapshot of the metrics, keyed by host
+   */
+  @NonNull
+  public static Map<String, HostMetrics> getHostMetrics() {
+    return HttpMetrics.getHostMetrics();
+  }
+
+  /**
+   * Clear the metrics aggregated per host.
+   */
+  public static void resetMetrics() {
+    HttpMetrics.reset();
+  }
+
+  /**
+   * Release the buffers retained for reading response bodies, called by {@link MapView#onLowMemory()}.
+   */
+  public static void onLowMemory() {
+    ResponseBuffer.releasePool();
+  }
+}
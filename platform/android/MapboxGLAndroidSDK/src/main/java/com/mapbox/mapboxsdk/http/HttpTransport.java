@@ -0,0 +1,366 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Executes the network requests of the map, such as tiles, styles, sprites and glyphs.
+ * <p>
+ * The native file source calls through the transport set with {@link HttpRequestUtil#setTransport(HttpTransport)},
+ * {@link OkHttpTransport} is used by default. A custom transport can put a caching client in front of the default
+ * one, or serve resources from a local source to run benchmarks without a network. Requests reach the transport
+ * after they were coalesced and ordered by priority, the transport is handed no more requests at once than it
+ * reports with {@link #getMaxRequests()} and {@link #getMaxRequestsPerHost()}.
+ * </p>
+ */
+public interface HttpTransport {
+
+  /**
+   * Checks whether requests can currently be executed, requests fail with a connection error without reaching
+   * {@link #enqueue(Request, Callback)} when they can't.
+   *
+   * @return true if requests can be executed
+   */
+  boolean isConnected();
+
+  /**
+   * Returns the maximum number of requests the transport executes at once.
+   *
+   * @return the maximum number of requests, at least 1
+   */
+  int getMaxRequests();
+
+  /**
+   * Returns the maximum number of requests the transport executes at once for the same host.
+   *
+   * @return the maximum number of requests for a host, at least 1
+   */
+  int getMaxRequestsPerHost();
+
+  /**
+   * Starts executing a request asynchronously.
+   * <p>
+   * The callback is called exactly once unless the request is cancelled, it may be called on any thread but not
+   * from within this method.
+   * </p>
+   *
+   * @param request  the request to execute
+   * @param callback the callback receiving the outcome
+   * @return a handle to cancel the request
+   */
+  @NonNull
+  Cancelable enqueue(@NonNull Request request, @NonNull Callback callback);
+
+  /**
+   * Receives the outcome of a request.
+   */
+  interface Callback {
+
+    /**
+     * Called with the response of a request, the body is closed once the call returns.
+     *
+     * @param response the response, its request must be the executed request
+     * @throws IOException if reading the body fails
+     */
+    void onResponse(@NonNull Response response) throws IOException;
+
+    void onFailure(@NonNull IOException exception);
+  }
+
+  /**
+   * Handle to a request in progress.
+   */
+  interface Cancelable {
+
+    /**
+     * Cancels the request, the callback may still be called if the outcome is being delivered.
+     */
+    void cancel();
+  }
+
+  /**
+   * A GET request of a map resource.
+   */
+  final class Request {
+
+    private final HttpUrl url;
+    private final String[] headers;
+    private final RequestTimer timer = new RequestTimer();
+
+    /**
+     * Creates a request.
+     *
+     * @param url     the URL of the resource
+     * @param headers the header names and values, alternating
+     */
+    Request(@NonNull HttpUrl url, @NonNull String... headers) {
+      this.url = url;
+      this.headers = headers;
+    }
+
+    @NonNull
+    HttpUrl httpUrl() {
+      return url;
+    }
+
+    @NonNull
+    RequestTimer timer() {
+      return timer;
+    }
+
+    /**
+     * @return the URL of the resource
+     */
+    @NonNull
+    public String getUrl() {
+      return url.toString();
+    }
+
+    /**
+     * @return the host of the URL
+     */
+    @NonNull
+    public String getHost() {
+      return url.host();
+    }
+
+    /**
+     * @return the number of headers
+     */
+    public int getHeaderCount() {
+      return headers.length / 2;
+    }
+
+    /**
+     * @param index the index of the header
+     * @return the name of the header
+     */
+    @NonNull
+    public String getHeaderName(int index) {
+      return headers[index * 2];
+    }
+
+    /**
+     * @param index the index of the header
+     * @return the value of the header
+     */
+    @NonNull
+    public String getHeaderValue(int index) {
+      return headers[index * 2 + 1];
+    }
+
+    /**
+     * Returns the value of a header.
+     *
+     * @param name the name of the header, case insensitive
+     * @return the value, or null if the request doesn't have the header
+     */
+    @Nullable
+    public String header(@NonNull String name) {
+      return Response.find(headers, name);
+    }
+  }
+
+  /**
+   * The response to a {@link Request}, built with a {@link Response.Builder} by the transport.
+   */
+  final class Response implements Closeable {
+
+    private final Request request;
+    private final int code;
+    private final String message;
+    private final String[] headers;
+    private final InputStream body;
+    private final long contentLength;
+
+    private Response(Builder builder) {
+      request = builder.request;
+      code = builder.code;
+      message = builder.message;
+      headers = builder.headers.toArray(new String[builder.headers.size()]);
+      body = builder.body;
+      contentLength = builder.contentLength;
+    }
+
+    /**
+     * @return the executed request
+     */
+    @NonNull
+    public Request getRequest() {
+      return request;
+    }
+
+    /**
+     * @return the HTTP status code
+     */
+    public int getCode() {
+      return code;
+    }
+
+    /**
+     * @return the HTTP status message, may be empty
+     */
+    @NonNull
+    public String getMessage() {
+      return message;
+    }
+
+    /**
+     * @return true if the status code is in the range [200..300)
+     */
+    public boolean isSuccessful() {
+      return code >= 200 && code < 300;
+    }
+
+    /**
+     * Returns the value of a header, the last one if the header is repeated.
+     *
+     * @param name the name of the header, case insensitive
+     * @return the value, or null if the response doesn't have the header
+     */
+    @Nullable
+    public String header(@NonNull String name) {
+      return find(headers, name);
+    }
+
+    /**
+     * @return the body, read once
+     */
+    @NonNull
+    public InputStream getBody() {
+      return body;
+    }
+
+    /**
+     * @return the length of the body in bytes, or -1 if unknown
+     */
+    public long getContentLength() {
+      return contentLength;
+    }
+
+    /**
+     * Closes the body.
+     */
+    @Override
+    public void close() {
+      try {
+        body.close();
+      } catch (IOException ignored) {
+        // the body was read or abandoned, nothing is left to release
+      }
+    }
+
+    private static String find(String[] headers, String name) {
+      for (int i = headers.length - 2; i >= 0; i -= 2) {
+        if (name.equalsIgnoreCase(headers[i])) {
+          return headers[i + 1];
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Builds a {@link Response}.
+     */
+    public static final class Builder {
+
+      private static final InputStream EMPTY_BODY = new ByteArrayInputStream(new byte[0]);
+
+      private Request request;
+      private int code = -1;
+      private String message = "";
+      private final List<String> headers = new ArrayList<>();
+      private InputStream body = EMPTY_BODY;
+      private long contentLength;
+
+      /**
+       * @param request the executed request
+       * @return this builder
+       */
+      @NonNull
+      public Builder request(@NonNull Request request) {
+        this.request = request;
+        return this;
+      }
+
+      /**
+       * @param code the HTTP status code
+       * @return this builder
+       */
+      @NonNull
+      public Builder code(int code) {
+        this.code = code;
+        return this;
+      }
+
+      /**
+       * @param message the HTTP status message
+       * @return this builder
+       */
+      @NonNull
+      public Builder message(@NonNull String message) {
+        this.message = message;
+        return this;
+      }
+
+      /**
+       * Adds a header, a header may be added more than once.
+       *
+       * @param name  the name of the header
+       * @param value the value of the header
+       * @return this builder
+       */
+      @NonNull
+      public Builder header(@NonNull String name, @NonNull String value) {
+        headers.add(name);
+        headers.add(value);
+        return this;
+      }
+
+      /**
+       * @param body          the body, closed with the response
+       * @param contentLength the length of the body in bytes, or -1 if unknown
+       * @return this builder
+       */
+      @NonNull
+      public Builder body(@NonNull InputStream body, long contentLength) {
+        this.body = body;
+        this.contentLength = contentLength;
+        return this;
+      }
+
+      /**
+       * @param body the body
+       * @return this builder
+       */
+      @NonNull
+      public Builder body(@NonNull byte[] body) {
+        return body(new ByteArrayInputStream(body), body.length);
+      }
+
+      /**
+       * @return the response
+       * @throws IllegalStateException if the request or the status code is missing
+       */
+      @NonNull
+      public Response build() {
+        if (request == null) {
+          throw new IllegalStateException("request == null");
+        }
+        if (code < 0) {
+          throw new IllegalStateException("code < 0: " + code);
+        }
+        return new Response(this);
+      }
+    }
+  }
+}
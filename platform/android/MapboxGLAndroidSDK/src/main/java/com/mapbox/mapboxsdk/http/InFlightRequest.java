@@ -0,0 +1,285 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import timber.log.Timber;
+
+/**
+ * A network fetch shared by every request for the same resource that is in flight at the same time.
+ * <p>
+ * Two maps sharing a style, or rapid zoom changes, can make the native file source ask for the same URL
+ * concurrently. Requests with the same key join the pending fetch instead of starting a new one, its response is
+ * delivered to every waiter. A waiter that leaves doesn't affect the others, the fetch is only cancelled when the
+ * last waiter leaves.
+ * </p>
+ */
+class InFlightRequest implements HttpTransport.Callback, RequestScheduler.Task {
+
+  /**
+   * Receives the outcome of a shared fetch.
+   */
+  interface Waiter {
+
+    /**
+     * Called with the response, the body is only valid for the duration of the call.
+     *
+     * @param response the response
+     * @param body     the body, read from position 0 up to its length
+     */
+    void onResponse(HttpTransport.Response response, ResponseBuffer body);
+
+    void onFailure(Exception exception);
+  }
+
+  private static final Map<String, InFlightRequest> inFlight = new HashMap<>();
+
+  private final String key;
+  private final HttpTransport.Request request;
+  private final List<Waiter> waiters = new ArrayList<>(1);
+  private int priority;
+  private boolean cancelled;
+  private volatile HttpTransport.Cancelable call;
+
+  private InFlightRequest(String key, HttpTransport.Request request, int priority) {
+    this.key = key;
+    this.request = request;
+    this.priority = priority;
+  }
+
+  /**
+   * Joins the fetch of a request with the same key, or starts a new one.
+   *
+   * @param waiter   the waiter to deliver the outcome to
+   * @param key      the key identifying the resource and its conditional headers
+   * @param request  the request to execute when no fetch is in flight for the key
+   * @param priority the {@link RequestScheduler} priority of the waiter
+   * @return the fetch, to leave with {@link #leave(Waiter)}
+   */
+  @NonNull
+  static InFlightRequest join(@NonNull Waiter waiter, @NonNull String key, @NonNull HttpTransport.Request request,
+                             int priority) {
+    RequestScheduler scheduler = HTTPRequest.getScheduler();
+    InFlightRequest fetch;
+    boolean reschedule = false;
+    synchronized (inFlight) {
+      fetch = inFlight.get(key);
+      if (fetch == null) {
+        fetch = new InFlightRequest(key, request, priority);
+        inFlight.put(key, fetch);
+        reschedule = true;
+      } else if (priority < fetch.priority) {
+        // a waiter with a higher priority moves a queued fetch forward
+        fetch.priority = priority;
+        reschedule = scheduler.cancel(fetch);
+      }
+      fetch.waiters.add(waiter);
+    }
+
+    if (reschedule) {
+      scheduler.schedule(fetch, priority);
+    }
+    return fetch;
+  }
+
+  /**
+   * Removes a waiter, the fetch is cancelled when no waiters are left.
+   *
+   * @param waiter the waiter to remove
+   */
+  void leave(@NonNull Waiter waiter) {
+    synchronized (inFlight) {
+      if (!waiters.remove(waiter) || !waiters.isEmpty() || cancelled) {
+        return;
+      }
+      cancelled = true;
+      if (inFlight.get(key) == this) {
+        inFlight.remove(key);
+      }
+    }
+
+    if (!HTTPRequest.getScheduler().cancel(this)) {
+      HttpTransport.Cancelable call = this.call;
+      if (call != null) {
+        abandon(call);
+      }
+    }
+  }
+
+  int getWaiterCount() {
+    synchronized (inFlight) {
+      return waiters.size();
+    }
+  }
+
+  static int getInFlightCount() {
+    synchronized (inFlight) {
+      return inFlight.size();
+    }
+  }
+
+  @NonNull
+  @Override
+  public String getHost() {
+    return request.getHost();
+  }
+
+  @Override
+  public void execute() {
+    long retryInMillis = HTTPRequest.getHostBackoff().acquire(request.getHost(), System.currentTimeMillis());
+    if (retryInMillis > 0) {
+      // the host is paused, answer locally and let the native file source retry once the pause ends
+      HTTPRequest.getScheduler().finished(this);
+      deliver(pausedResponse(retryInMillis), complete(), null);
+      return;
+    }
+
+    if (isCancelled()) {
+      // every waiter left while the scheduler was starting this fetch
+      HTTPRequest.getHostBackoff().release(request.getHost());
+      HTTPRequest.getScheduler().finished(this);
+      return;
+    }
+
+    request.timer().start();
+    HttpTransport.Cancelable call = HTTPRequest.getTransport().enqueue(request, this);
+    this.call = call;
+    if (isCancelled()) {
+      // the last waiter left before the handle was published
+      abandon(call);
+    }
+  }
+
+  @Override
+  public void onResponse(@NonNull HttpTransport.Response response) throws IOException {
+    // record the outcome before the next request to the host is started
+    recordOutcome(response);
+    HTTPRequest.getScheduler().finished(this);
+
+    if (response.isSuccessful()) {
+      Timber.v(String.format("[HTTP] Request was successful (code = %d).", response.getCode()));
+    } else {
+      // We don't want to call this unsuccessful because a 304 isn't really an error
+      String message = !TextUtils.isEmpty(response.getMessage()) ? response.getMessage() : "No additional information";
+      Timber.d(String.format(
+        "[HTTP] Request with response code = %d: %s",
+        response.getCode(), message));
+    }
+    deliver(response, complete(), request.timer());
+  }
+
+  @Override
+  public void onFailure(@NonNull IOException exception) {
+    boolean cancelled = isCancelled();
+    if (!cancelled) {
+      HttpMetrics.record(request.timer().finish(request.getHost(), 0, HttpMetrics.errorClass(exception), 0, 0));
+    }
+
+    if (exception instanceof InterruptedIOException && !cancelled) {
+      HTTPRequest.getHostBackoff().onServerError(request.getHost(), System.currentTimeMillis());
+    } else {
+      HTTPRequest.getHostBackoff().release(request.getHost());
+    }
+    HTTPRequest.getScheduler().finished(this);
+
+    for (Waiter waiter : complete()) {
+      waiter.onFailure(exception);
+    }
+  }
+
+  /**
+   * Cancels the call of this fetch and releases its slot right away. The transport may still call back, OkHttp
+   * reports a "Canceled" failure, releasing the slot again is safe since {@link RequestScheduler#finished} ignores
+   * tasks that already finished.
+   */
+  private void abandon(HttpTransport.Cancelable call) {
+    call.cancel();
+    HTTPRequest.getHostBackoff().release(request.getHost());
+    HTTPRequest.getScheduler().finished(this);
+  }
+
+  private boolean isCancelled() {
+    synchronized (inFlight) {
+      return cancelled;
+    }
+  }
+
+  private void recordOutcome(HttpTransport.Response response) {
+    HostBackoff hostBackoff = HTTPRequest.getHostBackoff();
+    String host = request.getHost();
+    long now = System.currentTimeMillis();
+    int code = response.getCode();
+    if (code == 429) {
+      hostBackoff.onRateLimited(host,
+        HostBackoff.retryAt(response.header("Retry-After"), response.header("x-rate-limit-reset"), now), now);
+    } else if (code >= 500 && code < 600) {
+      hostBackoff.onServerError(host, now);
+    } else {
+      hostBackoff.onSuccess(host);
+    }
+  }
+
+  private static void deliver(HttpTransport.Response response, Waiter[] waiters, RequestTimer timer) {
+    // stream the body into a pooled direct buffer, the native file source copies it from there
+    ResponseBuffer body = ResponseBuffer.obtain();
+    String host = response.getRequest().getHost();
+    long transferStart = System.nanoTime();
+    try {
+      body.read(response.getBody(), response.getContentLength());
+    } catch (IOException ioException) {
+      if (timer != null) {
+        HttpMetrics.record(timer.finish(host, response.getCode(), HttpMetrics.errorClass(ioException),
+          System.nanoTime() - transferStart, body.getLength()));
+      }
+      body.recycle();
+      for (Waiter waiter : waiters) {
+        waiter.onFailure(ioException);
+      }
+      return;
+    } finally {
+      response.close();
+    }
+
+    if (timer != null) {
+      HttpMetrics.record(timer.finish(host, response.getCode(), HttpMetrics.errorClass(response.getCode()),
+        System.nanoTime() - transferStart, body.getLength()));
+    }
+    for (Waiter waiter : waiters) {
+      waiter.onResponse(response, body);
+    }
+    body.recycle();
+  }
+
+  private HttpTransport.Response pausedResponse(long retryInMillis) {
+    long retryAfterSeconds = (retryInMillis + 999) / 1000;
+    return new HttpTransport.Response.Builder()
+      .request(request)
+      .code(429)
+      .message("Host paused by backoff")
+      .header("Retry-After", String.valueOf(retryAfterSeconds))
+      .build();
+  }
+
+  /**
+   * Unregisters this fetch, requests made from now on start a new one.
+   *
+   * @return the waiters to deliver the outcome to
+   */
+  private Waiter[] complete() {
+    synchronized (inFlight) {
+      if (inFlight.get(key) == this) {
+        inFlight.remove(key);
+      }
+      Waiter[] result = waiters.toArray(new Waiter[waiters.size()]);
+      waiters.clear();
+      return result;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.mapbox.mapboxsdk.http;
+
+/**
+ * Histogram of durations with power of two millisecond buckets.
+ * <p>
+ * Bucket 0 counts durations below 1 millisecond, bucket i counts durations from 2^(i-1) up to 2^i milliseconds and
+ * the last bucket counts everything from {@link #getBucketUpperBound(int)} of the previous bucket.
+ * </p>
+ */
+public class LatencyHistogram {
+
+  public static final int BUCKET_COUNT = 18;
+
+  private final long[] buckets = new long[BUCKET_COUNT];
+  private long count;
+  private long sum;
+
+  LatencyHistogram() {
+  }
+
+  LatencyHistogram(LatencyHistogram histogram) {
+    System.arraycopy(histogram.buckets, 0, buckets, 0, BUCKET_COUNT);
+    count = histogram.count;
+    sum = histogram.sum;
+  }
+
+  void record(long millis) {
+    long value = Math.max(0, millis);
+    int bucket = value == 0 ? 0 : Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(value));
+    buckets[bucket]++;
+    count++;
+    sum += value;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public long getBucketCount(int bucket) {
+    return buckets[bucket];
+  }
+
+  /**
+   * Returns the exclusive upper bound of a bucket.
+   *
+   * @param bucket the bucket index
+   * @return the upper bound in milliseconds, or Long.MAX_VALUE for the last bucket
+   */
+  public static long getBucketUpperBound(int bucket) {
+    return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << bucket;
+  }
+
+  public double getMean() {
+    return count == 0 ? 0 : (double) sum / count;
+  }
+
+  /**
+   * Returns an estimate of a percentile, the upper bound of the bucket containing it.
+   *
+   * @param percentile the percentile, between 0 and 100
+   * @return the estimate in milliseconds, 0 when the histogram is empty
+   */
+  public long getPercentile(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(count * Math.max(0, Math.min(100, percentile)) / 100);
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += buckets[i];
+      if (seen >= rank && seen > 0) {
+        return getBucketUpperBound(i);
+      }
+    }
+    return getBucketUpperBound(BUCKET_COUNT - 1);
+  }
+}
@@ -0,0 +1,61 @@
+package com.mapbox.mapboxsdk.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free guard making sure a native peer isn't called after it was cancelled.
+ * <p>
+ * The state holds the native pointer while the peer is alive, {@link #DELIVERING} while a callback is running and
+ * 0 once the peer is cancelled or received its callback. Delivering a callback moves the state from the pointer to
+ * {@link #DELIVERING} with a single compare-and-set, cancelling moves it to 0 and waits for a callback in progress to
+ * finish. After {@link #cancel()} returns the native peer can be destroyed safely.
+ * </p>
+ * <p>
+ * A peer receives at most one callback, any later attempt is ignored.
+ * </p>
+ */
+class NativeCallbackGuard {
+
+  // native pointers are aligned and never odd
+  static final long DELIVERING = -1;
+
+  private final AtomicLong state;
+
+  NativeCallbackGuard(long nativePtr) {
+    state = new AtomicLong(nativePtr);
+  }
+
+  /**
+   * Claims the right to call the native peer.
+   *
+   * @return true if the callback may be delivered, {@link #endCallback()} must be called once it's done
+   */
+  boolean beginCallback() {
+    long nativePtr = state.get();
+    return nativePtr != 0 && nativePtr != DELIVERING && state.compareAndSet(nativePtr, DELIVERING);
+  }
+
+  /**
+   * Marks the callback claimed by {@link #beginCallback()} as delivered, no other callback will be delivered.
+   */
+  void endCallback() {
+    state.set(0);
+  }
+
+  /**
+   * Prevents any further callback, waiting for a callback in progress to return.
+   */
+  void cancel() {
+    while (true) {
+      long nativePtr = state.get();
+      if (nativePtr == 0) {
+        return;
+      } else if (nativePtr == DELIVERING) {
+        // a callback only hands data to the native peer, it returns quickly
+        Thread.yield();
+      } else if (state.compareAndSet(nativePtr, 0)) {
+        return;
+      }
+    }
+  }
+}
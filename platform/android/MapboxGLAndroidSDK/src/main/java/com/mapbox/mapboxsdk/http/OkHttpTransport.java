@@ -0,0 +1,101 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+
+import com.mapbox.mapboxsdk.Mapbox;
+
+import java.io.IOException;
+
+import okhttp3.Call;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+
+/**
+ * The default {@link HttpTransport}, executing requests with OkHttp.
+ * <p>
+ * Requests are measured for {@link HttpRequestUtil#getHostMetrics()}, the client is copied with the interceptors
+ * needed for this. The copy shares the connection pool and dispatcher of the client, whose limits are reported as
+ * the limits of the transport.
+ * </p>
+ */
+public class OkHttpTransport implements HttpTransport {
+
+  private final OkHttpClient client;
+
+  /**
+   * Creates a transport using the given client.
+   *
+   * @param client the client to execute requests with
+   */
+  public OkHttpTransport(@NonNull OkHttpClient client) {
+    this.client = RequestTimer.instrument(client);
+  }
+
+  /**
+   * Returns the client used to execute requests.
+   *
+   * @return the instrumented client
+   */
+  @NonNull
+  public OkHttpClient getClient() {
+    return client;
+  }
+
+  @Override
+  public boolean isConnected() {
+    return Mapbox.isConnected();
+  }
+
+  @Override
+  public int getMaxRequests() {
+    return client.dispatcher().getMaxRequests();
+  }
+
+  @Override
+  public int getMaxRequestsPerHost() {
+    return client.dispatcher().getMaxRequestsPerHost();
+  }
+
+  @NonNull
+  @Override
+  public Cancelable enqueue(@NonNull final Request request, @NonNull final Callback callback) {
+    okhttp3.Request.Builder builder = new okhttp3.Request.Builder()
+      .url(request.httpUrl())
+      .tag(request);
+    for (int i = 0, count = request.getHeaderCount(); i < count; i++) {
+      builder.header(request.getHeaderName(i), request.getHeaderValue(i));
+    }
+
+    final Call call = client.newCall(builder.build());
+    call.enqueue(new okhttp3.Callback() {
+      @Override
+      public void onFailure(Call call, IOException exception) {
+        callback.onFailure(exception);
+      }
+
+      @Override
+      public void onResponse(Call call, okhttp3.Response response) throws IOException {
+        ResponseBody body = response.body();
+        Response.Builder builder = new Response.Builder()
+          .request(request)
+          .code(response.code())
+          .body(body.byteStream(), body.contentLength());
+        if (response.message() != null) {
+          builder.message(response.message());
+        }
+        Headers headers = response.headers();
+        for (int i = 0, count = headers.size(); i < count; i++) {
+          builder.header(headers.name(i), headers.value(i));
+        }
+        callback.onResponse(builder.build());
+      }
+    });
+    return new Cancelable() {
+      @Override
+      public void cancel() {
+        call.cancel();
+      }
+    };
+  }
+}
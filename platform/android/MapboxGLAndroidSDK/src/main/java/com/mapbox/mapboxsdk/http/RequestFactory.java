@@ -0,0 +1,139 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Builds the {@link HttpTransport} requests of map resources.
+ * <p>
+ * The native file source asks for hundreds of resources from a handful of hosts, the user agent and the
+ * classification of each host are computed once and reused. Requests to Mapbox hosts are decorated with the
+ * events=true query parameter in a single scan of the URL, the URL is then parsed once.
+ * </p>
+ */
+class RequestFactory {
+
+  static final String EVENTS_PARAMETER = "events=true";
+
+  // hosts are only cached up to this amount, a misbehaving style can't grow the cache without bounds
+  static final int MAX_CACHED_HOSTS = 64;
+
+  private final String userAgent;
+  private final Map<String, Boolean> mapboxHosts = new ConcurrentHashMap<>();
+
+  RequestFactory(@NonNull String userAgent) {
+    this.userAgent = userAgent;
+  }
+
+  /**
+   * Adds the events=true query parameter to a URL of a Mapbox host.
+   *
+   * @param url the URL of the resource
+   * @return the decorated URL, or the URL itself for other hosts or URLs that can't be parsed
+   */
+  @NonNull
+  String decorate(@NonNull String url) {
+    int length = url.length();
+    int hostStart = url.indexOf("://");
+    if (hostStart == -1) {
+      return url;
+    }
+    hostStart += 3;
+
+    // find the end of the authority and the start of the query and fragment, in a single pass
+    int hostEnd = length;
+    int authorityEnd = length;
+    int queryStart = -1;
+    int fragmentStart = length;
+    for (int i = hostStart; i < length; i++) {
+      char c = url.charAt(i);
+      if (authorityEnd == length) {
+        if (c == '@') {
+          // user info precedes the host
+          hostStart = i + 1;
+          hostEnd = length;
+        } else if (c == ':' && hostEnd == length) {
+          hostEnd = i;
+        } else if (c == '/' || c == '?' || c == '#') {
+          authorityEnd = i;
+          hostEnd = Math.min(hostEnd, i);
+        }
+      }
+      if (c == '?' && queryStart == -1) {
+        queryStart = i;
+      } else if (c == '#') {
+        fragmentStart = i;
+        break;
+      }
+    }
+
+    if (!isMapboxHost(url.substring(hostStart, hostEnd))) {
+      return url;
+    }
+
+    StringBuilder builder = new StringBuilder(length + EVENTS_PARAMETER.length() + 1)
+      .append(url, 0, fragmentStart);
+    if (queryStart == -1) {
+      builder.append('?');
+    } else if (queryStart != fragmentStart - 1) {
+      builder.append('&');
+    }
+    return builder.append(EVENTS_PARAMETER)
+      .append(url, fragmentStart, length)
+      .toString();
+  }
+
+  /**
+   * Creates the request of a resource.
+   *
+   * @param url      the decorated URL of the resource
+   * @param etag     the ETag of the cached resource, or an empty string
+   * @param modified the Last-Modified date of the cached resource, or an empty string
+   * @return the request
+   * @throws IllegalArgumentException if the URL isn't a valid HTTP or HTTPS URL
+   */
+  @NonNull
+  HttpTransport.Request create(@NonNull String url, @NonNull String etag, @NonNull String modified) {
+    HttpUrl httpUrl = HttpUrl.parse(url);
+    if (httpUrl == null) {
+      throw new IllegalArgumentException("unexpected url: " + url);
+    }
+    if (etag.length() > 0) {
+      return new HttpTransport.Request(httpUrl, "User-Agent", userAgent, "If-None-Match", etag);
+    } else if (modified.length() > 0) {
+      return new HttpTransport.Request(httpUrl, "User-Agent", userAgent, "If-Modified-Since", modified);
+    }
+    return new HttpTransport.Request(httpUrl, "User-Agent", userAgent);
+  }
+
+  @NonNull
+  String getUserAgent() {
+    return userAgent;
+  }
+
+  boolean isMapboxHost(@NonNull String host) {
+    Boolean mapboxHost = mapboxHosts.get(host);
+    if (mapboxHost == null) {
+      mapboxHost = classify(host);
+      if (mapboxHosts.size() < MAX_CACHED_HOSTS) {
+        mapboxHosts.put(host, mapboxHost);
+      }
+    }
+    return mapboxHost;
+  }
+
+  private static boolean classify(String host) {
+    return isDomainOrSubdomain(host, "mapbox.com") || isDomainOrSubdomain(host, "mapbox.cn");
+  }
+
+  private static boolean isDomainOrSubdomain(String host, String domain) {
+    int offset = host.length() - domain.length();
+    // host names are case insensitive, compare without creating a lower case copy
+    return offset >= 0 && host.regionMatches(true, offset, domain, 0, domain.length())
+      && (offset == 0 || host.charAt(offset - 1) == '.');
+  }
+}
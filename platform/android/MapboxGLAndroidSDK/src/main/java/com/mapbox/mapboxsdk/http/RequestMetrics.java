@@ -0,0 +1,123 @@
+package com.mapbox.mapboxsdk.http;
+
+/**
+ * Timing and outcome of a single network request made by the map.
+ * <p>
+ * Durations are in milliseconds. The connect phase includes the TLS handshake and is 0 when an idle connection was
+ * reused. Phases that weren't reached, for example the transfer of a request that failed to connect, are 0.
+ * </p>
+ */
+public class RequestMetrics {
+
+  public static final int ERROR_NONE = 0;
+  public static final int ERROR_CONNECTION = 1;
+  public static final int ERROR_TEMPORARY = 2;
+  public static final int ERROR_PERMANENT = 3;
+  public static final int ERROR_RATE_LIMITED = 4;
+  public static final int ERROR_CLIENT = 5;
+  public static final int ERROR_SERVER = 6;
+
+  private final String host;
+  private final int statusCode;
+  private final int errorClass;
+  private final long dnsMillis;
+  private final long connectMillis;
+  private final long firstByteMillis;
+  private final long transferMillis;
+  private final long totalMillis;
+  private final long bytes;
+  private final boolean connectionReused;
+  private final boolean secure;
+
+  RequestMetrics(String host, int statusCode, int errorClass, long dnsMillis, long connectMillis,
+                 long firstByteMillis, long transferMillis, long totalMillis, long bytes, boolean connectionReused,
+                 boolean secure) {
+    this.host = host;
+    this.statusCode = statusCode;
+    this.errorClass = errorClass;
+    this.dnsMillis = dnsMillis;
+    this.connectMillis = connectMillis;
+    this.firstByteMillis = firstByteMillis;
+    this.transferMillis = transferMillis;
+    this.totalMillis = totalMillis;
+    this.bytes = bytes;
+    this.connectionReused = connectionReused;
+    this.secure = secure;
+  }
+
+  public String getHost() {
+    return host;
+  }
+
+  /**
+   * Returns the HTTP status code of the response.
+   *
+   * @return the status code, or 0 if no response was received
+   */
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  /**
+   * Returns the class of error of the request.
+   *
+   * @return one of the ERROR_ constants, {@link #ERROR_NONE} for a successful or not modified response
+   */
+  public int getErrorClass() {
+    return errorClass;
+  }
+
+  public boolean isNotModified() {
+    return statusCode == 304;
+  }
+
+  public long getDnsMillis() {
+    return dnsMillis;
+  }
+
+  public long getConnectMillis() {
+    return connectMillis;
+  }
+
+  /**
+   * Returns the time between acquiring a connection and receiving the response headers.
+   *
+   * @return the time to first byte in milliseconds
+   */
+  public long getFirstByteMillis() {
+    return firstByteMillis;
+  }
+
+  public long getTransferMillis() {
+    return transferMillis;
+  }
+
+  public long getTotalMillis() {
+    return totalMillis;
+  }
+
+  /**
+   * Returns the amount of response body bytes received.
+   *
+   * @return the amount of bytes
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  public boolean isConnectionReused() {
+    return connectionReused;
+  }
+
+  public boolean isSecure() {
+    return secure;
+  }
+
+  @Override
+  public String toString() {
+    return "RequestMetrics [host=" + host + ", statusCode=" + statusCode + ", errorClass=" + errorClass
+      + ", dns=" + dnsMillis + ", connect=" + connectMillis + ", firstByte=" + firstByteMillis
+      + ", transfer=" + transferMillis + ", total=" + totalMillis + ", bytes=" + bytes
+      + ", reused=" + connectionReused + "]";
+  }
+}
@@ -0,0 +1,197 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Orders requests by priority before they're handed to the HTTP client.
+ * <p>
+ * At most {@link #getMaxActiveRequests()} requests are executed at once, and at most
+ * {@link #getMaxActiveRequestsPerHost()} of them for the same host. The others wait in a queue per priority and are
+ * executed in order of arrival within a priority, a request for a host that is at its limit lets the requests for
+ * other hosts go first. Resources that block rendering the visible map go first,
+ * then glyphs and sprites, then low priority work such as offline downloads. A request that is cancelled while
+ * waiting, for example a tile that left the viewport, is dropped from its queue without touching the network.
+ * </p>
+ * <p>
+ * Priorities are assigned by the native file source, the constants must match the ones in http_file_source.cpp.
+ * </p>
+ */
+class RequestScheduler {
+
+  static final int PRIORITY_REQUIRED = 0;
+  static final int PRIORITY_RESOURCE = 1;
+  static final int PRIORITY_LOW = 2;
+
+  /**
+   * A unit of work executed by the scheduler, {@link #finished(Task)} must be called once it completes.
+   */
+  interface Task {
+
+    /**
+     * @return the host the task connects to, it must not change while the task is scheduled
+     */
+    @NonNull
+    String getHost();
+
+    void execute();
+  }
+
+  private final Set<Task>[] queues;
+  private final Set<Task> active = new HashSet<>();
+  private final Map<String, Integer> activePerHost = new HashMap<>();
+  private int maxActiveRequests;
+  private int maxActiveRequestsPerHost;
+
+  @SuppressWarnings("unchecked")
+  RequestScheduler(int maxActiveRequests, int maxActiveRequestsPerHost) {
+    checkMaxActiveRequests(maxActiveRequests);
+    checkMaxActiveRequests(maxActiveRequestsPerHost);
+    this.maxActiveRequests = maxActiveRequests;
+    this.maxActiveRequestsPerHost = maxActiveRequestsPerHost;
+    queues = new Set[PRIORITY_LOW + 1];
+    for (int i = 0; i < queues.length; i++) {
+      queues[i] = new LinkedHashSet<>();
+    }
+  }
+
+  /**
+   * Queues a task, it's executed right away when a slot is available.
+   *
+   * @param task     the task to execute
+   * @param priority the priority of the task, out of range values are clamped
+   */
+  void schedule(@NonNull Task task, int priority) {
+    int clamped = Math.max(PRIORITY_REQUIRED, Math.min(PRIORITY_LOW, priority));
+    synchronized (this) {
+      queues[clamped].add(task);
+    }
+    promote();
+  }
+
+  /**
+   * Removes a task that is still waiting for a slot.
+   *
+   * @param task the task to remove
+   * @return true if the task was waiting and won't be executed, false if it already started or was unknown
+   */
+  synchronized boolean cancel(@NonNull Task task) {
+    for (Set<Task> queue : queues) {
+      if (queue.remove(task)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Releases the slot of an executed task and starts the next waiting task, calling this more than once for the
+   * same task has no effect.
+   *
+   * @param task the task that completed
+   */
+  void finished(@NonNull Task task) {
+    boolean released;
+    synchronized (this) {
+      released = active.remove(task);
+      if (released) {
+        String host = task.getHost();
+        int count = activePerHost.get(host);
+        if (count > 1) {
+          activePerHost.put(host, count - 1);
+        } else {
+          activePerHost.remove(host);
+        }
+      }
+    }
+    if (released) {
+      promote();
+    }
+  }
+
+  void setMaxActiveRequests(int maxActiveRequests) {
+    checkMaxActiveRequests(maxActiveRequests);
+    synchronized (this) {
+      this.maxActiveRequests = maxActiveRequests;
+    }
+    promote();
+  }
+
+  synchronized int getMaxActiveRequests() {
+    return maxActiveRequests;
+  }
+
+  void setMaxActiveRequestsPerHost(int maxActiveRequestsPerHost) {
+    checkMaxActiveRequests(maxActiveRequestsPerHost);
+    synchronized (this) {
+      this.maxActiveRequestsPerHost = maxActiveRequestsPerHost;
+    }
+    promote();
+  }
+
+  synchronized int getMaxActiveRequestsPerHost() {
+    return maxActiveRequestsPerHost;
+  }
+
+  synchronized int getActiveCount() {
+    return active.size();
+  }
+
+  synchronized int getActiveCount(@NonNull String host) {
+    Integer count = activePerHost.get(host);
+    return count != null ? count : 0;
+  }
+
+  synchronized int getQueuedCount() {
+    int count = 0;
+    for (Set<Task> queue : queues) {
+      count += queue.size();
+    }
+    return count;
+  }
+
+  private static void checkMaxActiveRequests(int maxActiveRequests) {
+    if (maxActiveRequests < 1) {
+      throw new IllegalArgumentException("maxActiveRequests < 1: " + maxActiveRequests);
+    }
+  }
+
+  private void promote() {
+    // tasks are executed outside the lock, they may complete or cancel synchronously
+    Task task;
+    while ((task = next()) != null) {
+      task.execute();
+    }
+  }
+
+  private synchronized Task next() {
+    if (active.size() >= maxActiveRequests) {
+      return null;
+    }
+    for (Set<Task> queue : queues) {
+      Iterator<Task> iterator = queue.iterator();
+      while (iterator.hasNext()) {
+        Task task = iterator.next();
+        String host = task.getHost();
+        Integer count = activePerHost.get(host);
+        if (count == null) {
+          count = 0;
+        } else if (count >= maxActiveRequestsPerHost) {
+          // the host is busy, the task keeps its place until one of the requests to the host finishes
+          continue;
+        }
+        iterator.remove();
+        active.add(task);
+        activePerHost.put(host, count + 1);
+        return task;
+      }
+    }
+    return null;
+  }
+}
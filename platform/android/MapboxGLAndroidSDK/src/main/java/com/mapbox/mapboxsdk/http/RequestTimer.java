@@ -0,0 +1,165 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Connection;
+import okhttp3.Dns;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+
+/**
+ * Measures the phases of a request.
+ * <p>
+ * Every {@link HttpTransport.Request} carries its own timer, started when the request is handed to the transport
+ * and finished with its outcome, so the total time is measured for any transport. The connection phases are only
+ * measured by {@link OkHttpTransport}, which tags the OkHttp request with the request of the map: a network
+ * interceptor finds the timer through the tag and marks when a connection was acquired and when the response
+ * headers arrived. A {@link Dns} wrapper times host name lookups, which run on the thread executing the call, the
+ * application interceptor exposes the timer to it through a thread local until the call returns.
+ * </p>
+ */
+class RequestTimer {
+
+  private static final ThreadLocal<RequestTimer> current = new ThreadLocal<>();
+  private static final Map<Connection, Boolean> connections = new WeakHashMap<>();
+
+  static final Interceptor APPLICATION_INTERCEPTOR = new Interceptor() {
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+      RequestTimer timer = of(chain.request());
+      if (timer == null) {
+        return chain.proceed(chain.request());
+      }
+      current.set(timer);
+      try {
+        return chain.proceed(chain.request());
+      } finally {
+        current.remove();
+      }
+    }
+  };
+
+  static final Interceptor NETWORK_INTERCEPTOR = new Interceptor() {
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+      RequestTimer timer = of(chain.request());
+      if (timer != null) {
+        timer.connected(chain.connection());
+      }
+      Response response = chain.proceed(chain.request());
+      if (timer != null) {
+        timer.headersNanos = System.nanoTime();
+      }
+      return response;
+    }
+  };
+
+  private long startNanos;
+  private long dnsNanos;
+  private long connectedNanos;
+  private long headersNanos;
+  private boolean connectionReused;
+  private boolean secure;
+
+  /**
+   * Adds the timing instrumentation to a client, clients that are already instrumented are returned as is.
+   *
+   * @param client the client to instrument
+   * @return the instrumented client, sharing the connection pool and dispatcher of the original
+   */
+  @NonNull
+  static OkHttpClient instrument(@NonNull OkHttpClient client) {
+    if (client.interceptors().contains(APPLICATION_INTERCEPTOR)) {
+      return client;
+    }
+    return client.newBuilder()
+      .addInterceptor(APPLICATION_INTERCEPTOR)
+      .addNetworkInterceptor(NETWORK_INTERCEPTOR)
+      .dns(new TimingDns(client.dns()))
+      .build();
+  }
+
+  /**
+   * Starts the measurement, called when the request is handed to the transport.
+   */
+  void start() {
+    startNanos = System.nanoTime();
+  }
+
+  /**
+   * Completes the measurement.
+   *
+   * @param host           the host of the request
+   * @param statusCode     the status code, 0 if no response was received
+   * @param errorClass     the class of error, one of the ERROR_ constants of {@link RequestMetrics}
+   * @param transferNanos  the time spent reading the body
+   * @param bytes          the amount of body bytes read
+   * @return the metrics of the request
+   */
+  RequestMetrics finish(String host, int statusCode, int errorClass, long transferNanos, long bytes) {
+    long endNanos = System.nanoTime();
+    long dnsMillis = TimeUnit.NANOSECONDS.toMillis(dnsNanos);
+    long connectMillis = 0;
+    long firstByteMillis = 0;
+    if (connectedNanos != 0) {
+      connectMillis = connectionReused ? 0 : Math.max(0, toMillis(connectedNanos - startNanos) - dnsMillis);
+      if (headersNanos != 0) {
+        firstByteMillis = toMillis(headersNanos - connectedNanos);
+      }
+    }
+    return new RequestMetrics(host, statusCode, errorClass, dnsMillis, connectMillis, firstByteMillis,
+      toMillis(transferNanos), toMillis(endNanos - startNanos), bytes, connectionReused, secure);
+  }
+
+  private void connected(Connection connection) {
+    connectedNanos = System.nanoTime();
+    if (connection != null) {
+      secure = connection.handshake() != null;
+      synchronized (connections) {
+        connectionReused = connections.put(connection, Boolean.TRUE) != null;
+      }
+    }
+  }
+
+  @Nullable
+  private static RequestTimer of(okhttp3.Request request) {
+    Object tag = request.tag();
+    return tag instanceof HttpTransport.Request ? ((HttpTransport.Request) tag).timer() : null;
+  }
+
+  private static long toMillis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  private static class TimingDns implements Dns {
+
+    private final Dns delegate;
+
+    TimingDns(Dns delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+      long start = System.nanoTime();
+      try {
+        return delegate.lookup(hostname);
+      } finally {
+        RequestTimer timer = current.get();
+        if (timer != null) {
+          timer.dnsNanos += System.nanoTime() - start;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Pooled direct buffer a response body is read into before it's handed to the native file source.
+ * <p>
+ * The body is streamed in chunks into native memory, the native file source reads it without an intermediate
+ * Java heap array. Buffers are recycled and grown to the next power of two as the body arrives, a Content-Length
+ * header doesn't reserve memory up front. Loading tiles doesn't allocate on the Java heap once the pool is warmed up.
+ * </p>
+ * <p>
+ * A buffer is only in use while its body is handed over, so the pool absorbs bursts of responses rather than
+ * holding one buffer per request in flight. At most {@link #MAX_POOL_SIZE} buffers holding together at most
+ * {@link #MAX_POOL_BYTES} are retained, buffers that grew beyond {@link #MAX_POOLED_CAPACITY} are dropped when
+ * recycled and {@link #releasePool()} drops every retained buffer when memory runs low.
+ * </p>
+ */
+class ResponseBuffer {
+
+  static final int MIN_CAPACITY = 16 * 1024;
+  static final int MAX_POOLED_CAPACITY = 1024 * 1024;
+  static final int MAX_POOL_SIZE = 20;
+  static final int MAX_POOL_BYTES = 2 * 1024 * 1024;
+
+  private static final int CHUNK_SIZE = 8 * 1024;
+  private static final Deque<ResponseBuffer> pool = new ArrayDeque<>(MAX_POOL_SIZE);
+  // capacity of the buffers in the pool, guarded by pool
+  private static int poolBytes;
+
+  private final byte[] chunk = new byte[CHUNK_SIZE];
+  private ByteBuffer buffer;
+  private int length;
+  private int allocationCount;
+
+  ResponseBuffer() {
+  }
+
+  /**
+   * Returns a pooled buffer, or a new one when the pool is empty.
+   *
+   * @return the buffer, to be recycled with {@link #recycle()}
+   */
+  @NonNull
+  static ResponseBuffer obtain() {
+    synchronized (pool) {
+      ResponseBuffer responseBuffer = pool.poll();
+      if (responseBuffer != null) {
+        poolBytes -= responseBuffer.getCapacity();
+        return responseBuffer;
+      }
+    }
+    return new ResponseBuffer();
+  }
+
+  /**
+   * Drops every pooled buffer, the native memory is freed when the buffers are garbage collected.
+   */
+  static void releasePool() {
+    synchronized (pool) {
+      pool.clear();
+      poolBytes = 0;
+    }
+  }
+
+  static int getPoolBytes() {
+    synchronized (pool) {
+      return poolBytes;
+    }
+  }
+
+  /**
+   * Returns this buffer to the pool, it shouldn't be used after this call.
+   */
+  void recycle() {
+    length = 0;
+    if (buffer != null && buffer.capacity() > MAX_POOLED_CAPACITY) {
+      buffer = null;
+    }
+    synchronized (pool) {
+      int capacity = getCapacity();
+      if (pool.size() < MAX_POOL_SIZE && poolBytes + capacity <= MAX_POOL_BYTES) {
+        pool.push(this);
+        poolBytes += capacity;
+      }
+    }
+  }
+
+  /**
+   * Reads a stream until its end.
+   *
+   * @param input         the stream to read
+   * @param contentLength the expected amount of bytes, or -1 when unknown
+   * @throws IOException when reading the stream fails or the body is too large for a buffer
+   */
+  void read(@NonNull InputStream input, long contentLength) throws IOException {
+    length = 0;
+    if (contentLength > Integer.MAX_VALUE) {
+      throw new IOException("Response body too large: " + contentLength);
+    }
+    ensureCapacity(MIN_CAPACITY);
+
+    int read;
+    while ((read = input.read(chunk, 0, chunk.length)) != -1) {
+      if (length > Integer.MAX_VALUE - read) {
+        throw new IOException("Response body too large");
+      }
+      ensureCapacity(length + read);
+      buffer.position(length);
+      buffer.put(chunk, 0, read);
+      length += read;
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Returns the direct buffer holding the body from position 0 up to {@link #getLength()}.
+   *
+   * @return the buffer
+   */
+  ByteBuffer getBuffer() {
+    return buffer;
+  }
+
+  int getLength() {
+    return length;
+  }
+
+  int getAllocationCount() {
+    return allocationCount;
+  }
+
+  private int getCapacity() {
+    return buffer != null ? buffer.capacity() : 0;
+  }
+
+  private void ensureCapacity(int size) {
+    if (buffer != null && buffer.capacity() >= size) {
+      return;
+    }
+
+    ByteBuffer grown = ByteBuffer.allocateDirect(capacityFor(size));
+    allocationCount++;
+    if (buffer != null && length > 0) {
+      buffer.position(0).limit(length);
+      grown.put(buffer);
+    }
+    grown.clear();
+    buffer = grown;
+  }
+
+  private static int capacityFor(int size) {
+    int capacity = Math.max(size, MIN_CAPACITY);
+    int highest = Integer.highestOneBit(capacity);
+    if (highest == capacity || highest == 1 << 30) {
+      return capacity;
+    }
+    return highest << 1;
+  }
+}
@@ -1,4 +1,7 @@
 /**
- * Do not use this package. Internal use only.
+ * Contains the HTTP networking of the map. Use {@link com.mapbox.mapboxsdk.http.HttpRequestUtil} and
+ * {@link com.mapbox.mapboxsdk.http.HttpClientOptions} to configure the HTTP client or replace it with
+ * a {@link com.mapbox.mapboxsdk.http.HttpTransport}, and to read the {@link com.mapbox.mapboxsdk.http.HostMetrics}
+ * of its requests. The other classes are for internal use only.
  */
 package com.mapbox.mapboxsdk.http;
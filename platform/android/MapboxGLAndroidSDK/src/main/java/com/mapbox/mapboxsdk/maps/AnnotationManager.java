@@ -5,6 +5,7 @@ import android.graphics.RectF;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v4.util.LongSparseArray;
+import android.support.v4.view.ViewCompat;
 
 import com.mapbox.mapboxsdk.annotations.Annotation;
 import com.mapbox.mapboxsdk.annotations.BaseMarkerOptions;
@@ -17,10 +18,14 @@ import com.mapbox.mapboxsdk.annotations.Polygon;
 import com.mapbox.mapboxsdk.annotations.PolygonOptions;
 import com.mapbox.mapboxsdk.annotations.Polyline;
 import com.mapbox.mapboxsdk.annotations.PolylineOptions;
+import com.mapbox.mapboxsdk.geometry.LatLng;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Responsible for managing and tracking state of Annotations linked to Map. All events related to
@@ -35,21 +40,33 @@ import java.util.List;
  */
 class AnnotationManager {
 
-  private final NativeMapView nativeMapView;
+  private final NativeMap nativeMapView;
   private final MapView mapView;
   private final IconManager iconManager;
   private final InfoWindowManager infoWindowManager = new InfoWindowManager();
   private final MarkerViewManager markerViewManager;
-  private final LongSparseArray<Annotation> annotations = new LongSparseArray<>();
+  private final AnnotationRegistry annotations = new AnnotationRegistry();
   private final List<Marker> selectedMarkers = new ArrayList<>();
+  private final LongSparseArray<Polyline> appendedPolylines = new LongSparseArray<>();
+  private final Runnable appendPolylinePointsRunnable = new Runnable() {
+    @Override
+    public void run() {
+      flushAppendedPolylinePoints();
+    }
+  };
 
   private MapboxMap mapboxMap;
   private MapboxMap.OnMarkerClickListener onMarkerClickListener;
 
-  AnnotationManager(NativeMapView view, MapView mapView, MarkerViewManager markerViewManager) {
+  AnnotationManager(NativeMap view, MapView mapView, MarkerViewManager markerViewManager) {
+    this(view, mapView, new IconManager(view), markerViewManager);
+  }
+
+  AnnotationManager(NativeMap view, MapView mapView, IconManager iconManager,
+                    MarkerViewManager markerViewManager) {
     this.nativeMapView = view;
     this.mapView = mapView;
-    this.iconManager = new IconManager(nativeMapView);
+    this.iconManager = iconManager;
     this.markerViewManager = markerViewManager;
     if (view != null) {
       // null checking needed for unit tests
@@ -79,11 +96,7 @@ class AnnotationManager {
   }
 
   List<Annotation> getAnnotations() {
-    List<Annotation> annotations = new ArrayList<>();
-    for (int i = 0; i < this.annotations.size(); i++) {
-      annotations.add(this.annotations.get(this.annotations.keyAt(i)));
-    }
-    return annotations;
+    return annotations.getAnnotations();
   }
 
   void removeAnnotation(@NonNull Annotation annotation) {
@@ -105,7 +118,10 @@ class AnnotationManager {
     if (nativeMapView != null) {
       nativeMapView.removeAnnotation(id);
     }
-    annotations.remove(id);
+    Annotation annotation = annotations.remove(id);
+    if (annotation instanceof MarkerView) {
+      markerViewManager.removeMarkerView((MarkerView) annotation);
+    }
   }
 
   void removeAnnotations(@NonNull List<? extends Annotation> annotationList) {
@@ -138,7 +154,7 @@ class AnnotationManager {
     long[] ids = new long[count];
     for (int i = 0; i < count; i++) {
       ids[i] = annotations.keyAt(i);
-      annotation = annotations.get(ids[i]);
+      annotation = annotations.valueAt(i);
       if (annotation instanceof Marker) {
         Marker marker = (Marker) annotation;
         marker.hideInfoWindow();
@@ -161,7 +177,7 @@ class AnnotationManager {
 
   Marker addMarker(@NonNull BaseMarkerOptions markerOptions, @NonNull MapboxMap mapboxMap) {
     Marker marker = prepareMarker(markerOptions);
-    long id = nativeMapView != null ? nativeMapView.addMarker(marker) : 0;
+    long id = nativeMapView != null ? nativeMapView.addMarker(marker, iconManager.getSpriteId(marker.getIcon())) : 0;
     marker.setMapboxMap(mapboxMap);
     marker.setId(id);
     annotations.put(id, marker);
@@ -183,7 +199,11 @@ class AnnotationManager {
       if (markers.size() > 0) {
         long[] ids = null;
         if (nativeMapView != null) {
-          ids = nativeMapView.addMarkers(markers);
+          String[] iconIds = new String[markers.size()];
+          for (int i = 0; i < iconIds.length; i++) {
+            iconIds[i] = iconManager.getSpriteId(markers.get(i).getIcon());
+          }
+          ids = nativeMapView.addMarkers(markers, iconIds);
         }
 
         long id = 0;
@@ -219,9 +239,10 @@ class AnnotationManager {
 
     // add marker to map
     marker.setMapboxMap(mapboxMap);
-    long id = nativeMapView.addMarker(marker);
+    long id = nativeMapView.addMarker(marker, iconManager.getSpriteId(marker.getIcon()));
     marker.setId(id);
     annotations.put(id, marker);
+    markerViewManager.addMarkerView(marker);
 
     if (onMarkerViewAddedListener != null) {
       markerViewManager.addOnMarkerViewAddedListener(marker, onMarkerViewAddedListener);
@@ -244,9 +265,10 @@ class AnnotationManager {
       // add marker to map
       MarkerView marker = prepareViewMarker(markerViewOption);
       marker.setMapboxMap(mapboxMap);
-      long id = nativeMapView.addMarker(marker);
+      long id = nativeMapView.addMarker(marker, iconManager.getSpriteId(marker.getIcon()));
       marker.setId(id);
       annotations.put(id, marker);
+      markerViewManager.addMarkerView(marker);
       markers.add(marker);
     }
     markerViewManager.setEnabled(true);
@@ -273,24 +295,76 @@ class AnnotationManager {
       iconManager.ensureIconLoaded(updatedMarker, mapboxMap);
     }
 
-    nativeMapView.updateMarker(updatedMarker);
+    nativeMapView.updateMarker(updatedMarker, iconManager.getSpriteId(updatedMarker.getIcon()));
 
-    int index = annotations.indexOfKey(updatedMarker.getId());
-    if (index > -1) {
-      annotations.setValueAt(index, updatedMarker);
+    if (annotations.contains(updatedMarker.getId())) {
+      annotations.put(updatedMarker.getId(), updatedMarker);
     }
   }
 
-  List<Marker> getMarkers() {
-    List<Marker> markers = new ArrayList<>();
-    Annotation annotation;
-    for (int i = 0; i < annotations.size(); i++) {
-      annotation = annotations.get(annotations.keyAt(i));
-      if (annotation instanceof Marker) {
-        markers.add((Marker) annotation);
+  void updateMarkers(@NonNull List<Marker> updatedMarkers, @NonNull MapboxMap mapboxMap) {
+    int count = updatedMarkers.size();
+    long[] ids = new long[count];
+    double[] positions = new double[2 * count];
+    int[] iconIndices = new int[count];
+    List<String> iconIds = new ArrayList<>();
+    // icons are loaded and verified once per distinct icon in the batch
+    Map<Icon, Integer> iconIndexMap = new IdentityHashMap<>();
+
+    int index = 0;
+    for (int i = 0; i < count; i++) {
+      Marker marker = updatedMarkers.get(i);
+      if (marker == null || marker.getId() == -1) {
+        continue;
+      }
+
+      Icon icon = marker.getIcon();
+      Integer iconIndex = icon != null ? iconIndexMap.get(icon) : null;
+      if (iconIndex == null) {
+        if (!(marker instanceof MarkerView)) {
+          iconManager.ensureIconLoaded(marker, mapboxMap);
+          icon = marker.getIcon();
+          iconIndex = iconIndexMap.get(icon);
+        }
+        if (iconIndex == null) {
+          iconIndex = iconIds.size();
+          iconIds.add(iconManager.getSpriteId(icon));
+          iconIndexMap.put(icon, iconIndex);
+        }
+      } else if (!(marker instanceof MarkerView)) {
+        iconManager.updateTopOffsetPixels(marker, icon, mapboxMap);
       }
+
+      LatLng position = marker.getPosition();
+      ids[index] = marker.getId();
+      positions[2 * index] = position.getLatitude();
+      positions[2 * index + 1] = position.getLongitude();
+      iconIndices[index] = iconIndex;
+      index++;
     }
-    return markers;
+
+    if (index == 0) {
+      return;
+    }
+
+    if (index < count) {
+      ids = Arrays.copyOf(ids, index);
+      positions = Arrays.copyOf(positions, 2 * index);
+      iconIndices = Arrays.copyOf(iconIndices, index);
+    }
+
+    nativeMapView.updateMarkers(ids, positions, iconIndices, iconIds.toArray(new String[iconIds.size()]));
+
+    for (int i = 0; i < count; i++) {
+      Marker marker = updatedMarkers.get(i);
+      if (marker != null && annotations.contains(marker.getId())) {
+        annotations.put(marker.getId(), marker);
+      }
+    }
+  }
+
+  List<Marker> getMarkers() {
+    return annotations.getMarkers();
   }
 
   void setOnMarkerClickListener(@Nullable MapboxMap.OnMarkerClickListener listener) {
@@ -368,23 +442,7 @@ class AnnotationManager {
       rectangle.bottom / pixelRatio);
 
     long[] ids = nativeMapView.queryPointAnnotations(rect);
-
-    List<Long> idsList = new ArrayList<>(ids.length);
-    for (long id : ids) {
-      idsList.add(id);
-    }
-
-    List<Marker> annotations = new ArrayList<>(ids.length);
-    List<Annotation> annotationList = getAnnotations();
-    int count = annotationList.size();
-    for (int i = 0; i < count; i++) {
-      Annotation annotation = annotationList.get(i);
-      if (annotation instanceof com.mapbox.mapboxsdk.annotations.Marker && idsList.contains(annotation.getId())) {
-        annotations.add((com.mapbox.mapboxsdk.annotations.Marker) annotation);
-      }
-    }
-
-    return new ArrayList<>(annotations);
+    return annotations.getMarkers(ids);
   }
 
   List<MarkerView> getMarkerViewsInRect(@NonNull RectF rectangle) {
@@ -395,23 +453,7 @@ class AnnotationManager {
       rectangle.bottom / pixelRatio);
 
     long[] ids = nativeMapView.queryPointAnnotations(rect);
-
-    List<Long> idsList = new ArrayList<>(ids.length);
-    for (long id : ids) {
-      idsList.add(id);
-    }
-
-    List<MarkerView> annotations = new ArrayList<>(ids.length);
-    List<Annotation> annotationList = getAnnotations();
-    int count = annotationList.size();
-    for (int i = 0; i < count; i++) {
-      Annotation annotation = annotationList.get(i);
-      if (annotation instanceof MarkerView && idsList.contains(annotation.getId())) {
-        annotations.add((MarkerView) annotation);
-      }
-    }
-
-    return new ArrayList<>(annotations);
+    return annotations.getMarkerViews(ids);
   }
 
   //
@@ -420,7 +462,7 @@ class AnnotationManager {
 
   Polygon addPolygon(@NonNull PolygonOptions polygonOptions, @NonNull MapboxMap mapboxMap) {
     Polygon polygon = polygonOptions.getPolygon();
-    if (!polygon.getPoints().isEmpty()) {
+    if (polygon.getPointCount() > 0) {
       long id = nativeMapView != null ? nativeMapView.addPolygon(polygon) : 0;
       polygon.setId(id);
       polygon.setMapboxMap(mapboxMap);
@@ -437,7 +479,7 @@ class AnnotationManager {
     if (count > 0) {
       for (PolygonOptions polygonOptions : polygonOptionsList) {
         polygon = polygonOptions.getPolygon();
-        if (!polygon.getPoints().isEmpty()) {
+        if (polygon.getPointCount() > 0) {
           polygons.add(polygon);
         }
       }
@@ -475,22 +517,13 @@ class AnnotationManager {
 
     nativeMapView.updatePolygon(polygon);
 
-    int index = annotations.indexOfKey(polygon.getId());
-    if (index > -1) {
-      annotations.setValueAt(index, polygon);
+    if (annotations.contains(polygon.getId())) {
+      annotations.put(polygon.getId(), polygon);
     }
   }
 
   List<Polygon> getPolygons() {
-    List<Polygon> polygons = new ArrayList<>();
-    Annotation annotation;
-    for (int i = 0; i < annotations.size(); i++) {
-      annotation = annotations.get(annotations.keyAt(i));
-      if (annotation instanceof Polygon) {
-        polygons.add((Polygon) annotation);
-      }
-    }
-    return polygons;
+    return annotations.getPolygons();
   }
 
   //
@@ -499,7 +532,7 @@ class AnnotationManager {
 
   Polyline addPolyline(@NonNull PolylineOptions polylineOptions, @NonNull MapboxMap mapboxMap) {
     Polyline polyline = polylineOptions.getPolyline();
-    if (!polyline.getPoints().isEmpty()) {
+    if (polyline.getPointCount() > 0) {
       long id = nativeMapView != null ? nativeMapView.addPolyline(polyline) : 0;
       polyline.setMapboxMap(mapboxMap);
       polyline.setId(id);
@@ -516,7 +549,7 @@ class AnnotationManager {
     if (count > 0) {
       for (PolylineOptions options : polylineOptionsList) {
         polyline = options.getPolyline();
-        if (!polyline.getPoints().isEmpty()) {
+        if (polyline.getPointCount() > 0) {
           polylines.add(polyline);
         }
       }
@@ -554,24 +587,51 @@ class AnnotationManager {
       return;
     }
 
+    // a full update includes any pending added points
+    appendedPolylines.remove(polyline.getId());
+    polyline.onPointsSent();
     nativeMapView.updatePolyline(polyline);
 
-    int index = annotations.indexOfKey(polyline.getId());
-    if (index > -1) {
-      annotations.setValueAt(index, polyline);
+    if (annotations.contains(polyline.getId())) {
+      annotations.put(polyline.getId(), polyline);
     }
   }
 
-  List<Polyline> getPolylines() {
-    List<Polyline> polylines = new ArrayList<>();
-    Annotation annotation;
-    for (int i = 0; i < annotations.size(); i++) {
-      annotation = annotations.get(annotations.keyAt(i));
-      if (annotation instanceof Polyline) {
-        polylines.add((Polyline) annotation);
+  void appendPolylinePoints(Polyline polyline) {
+    if (polyline == null) {
+      return;
+    }
+
+    if (polyline.getId() == -1) {
+      return;
+    }
+
+    if (mapView == null) {
+      // unit test
+      return;
+    }
+
+    if (appendedPolylines.size() == 0) {
+      // coalesce all additions made before the next frame into a single update
+      ViewCompat.postOnAnimation(mapView, appendPolylinePointsRunnable);
+    }
+    appendedPolylines.put(polyline.getId(), polyline);
+  }
+
+  void flushAppendedPolylinePoints() {
+    for (int i = 0; i < appendedPolylines.size(); i++) {
+      Polyline polyline = appendedPolylines.valueAt(i);
+      int start = polyline.getFirstUnsentPoint();
+      if (start != -1 && annotations.contains(polyline.getId())) {
+        nativeMapView.appendPolylinePoints(polyline, start);
       }
+      polyline.onPointsSent();
     }
-    return polylines;
+    appendedPolylines.clear();
+  }
+
+  List<Polyline> getPolylines() {
+    return annotations.getPolylines();
   }
 
   InfoWindowManager getInfoWindowManager() {
@@ -583,14 +643,12 @@ class AnnotationManager {
   }
 
   void adjustTopOffsetPixels(MapboxMap mapboxMap) {
-    int count = annotations.size();
+    List<Marker> markers = annotations.getMarkers();
+    int count = markers.size();
     for (int i = 0; i < count; i++) {
-      Annotation annotation = annotations.get(i);
-      if (annotation instanceof Marker) {
-        Marker marker = (Marker) annotation;
-        marker.setTopOffsetPixels(
-          iconManager.getTopOffsetPixelsForIcon(marker.getIcon()));
-      }
+      Marker marker = markers.get(i);
+      marker.setTopOffsetPixels(
+        iconManager.getTopOffsetPixelsForIcon(marker.getIcon()));
     }
 
     for (Marker marker : selectedMarkers) {
@@ -603,15 +661,14 @@ class AnnotationManager {
 
   void reloadMarkers() {
     iconManager.reloadIcons();
-    int count = annotations.size();
-    for (int i = 0; i < count; i++) {
-      Annotation annotation = annotations.get(i);
-      if (annotation instanceof Marker) {
-        Marker marker = (Marker) annotation;
-        nativeMapView.removeAnnotation(annotation.getId());
-        long newId = nativeMapView.addMarker(marker);
-        marker.setId(newId);
-      }
+    // markers are re-keyed while reloading, iterate over a snapshot of the live view
+    Marker[] markers = annotations.getMarkers().toArray(new Marker[0]);
+    for (Marker marker : markers) {
+      annotations.remove(marker.getId());
+      nativeMapView.removeAnnotation(marker.getId());
+      long newId = nativeMapView.addMarker(marker, iconManager.getSpriteId(marker.getIcon()));
+      marker.setId(newId);
+      annotations.put(newId, marker);
     }
   }
 
@@ -648,36 +705,29 @@ class AnnotationManager {
     }
 
     if (newSelectedMarkerId >= 0) {
-      List<Annotation> annotations = getAnnotations();
-      int count = annotations.size();
-      for (int i = 0; i < count; i++) {
-        Annotation annotation = annotations.get(i);
-        if (annotation instanceof Marker) {
-          if (annotation.getId() == newSelectedMarkerId) {
-            Marker marker = (Marker) annotation;
-            boolean handledDefaultClick = false;
-
-            if (marker instanceof MarkerView) {
-              handledDefaultClick = markerViewManager.onClickMarkerView((MarkerView) marker);
-            } else {
-              if (onMarkerClickListener != null) {
-                // end developer has provided a custom click listener
-                handledDefaultClick = onMarkerClickListener.onMarkerClick(marker);
-              }
-            }
-
-            if (annotation instanceof MarkerView) {
-              markerViewManager.onClickMarkerView((MarkerView) annotation);
-            } else {
-              if (!handledDefaultClick) {
-                // only select marker if user didn't handle the click event themselves
-                selectMarker(marker);
-              }
-            }
-
-            return true;
+      Marker marker = annotations.getMarker(newSelectedMarkerId);
+      if (marker != null) {
+        boolean handledDefaultClick = false;
+
+        if (marker instanceof MarkerView) {
+          handledDefaultClick = markerViewManager.onClickMarkerView((MarkerView) marker);
+        } else {
+          if (onMarkerClickListener != null) {
+            // end developer has provided a custom click listener
+            handledDefaultClick = onMarkerClickListener.onMarkerClick(marker);
           }
         }
+
+        if (marker instanceof MarkerView) {
+          markerViewManager.onClickMarkerView((MarkerView) marker);
+        } else {
+          if (!handledDefaultClick) {
+            // only select marker if user didn't handle the click event themselves
+            selectMarker(marker);
+          }
+        }
+
+        return true;
       }
     }
     return false;
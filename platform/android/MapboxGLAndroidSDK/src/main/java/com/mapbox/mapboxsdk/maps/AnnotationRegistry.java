@@ -0,0 +1,294 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LongSparseArray;
+
+import com.mapbox.mapboxsdk.annotations.Annotation;
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MarkerView;
+import com.mapbox.mapboxsdk.annotations.Polygon;
+import com.mapbox.mapboxsdk.annotations.Polyline;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Id keyed store of the annotations added to a {@link MapboxMap}.
+ * <p>
+ * Annotations are partitioned by type into separate primitive long keyed stores, this allows to
+ * look up all markers, polygons or polylines without scanning the complete collection. Each store
+ * is exposed as a live, read-only {@link List} view that reflects additions and removals without
+ * copying.
+ * </p>
+ * <p>
+ * Views are fail-fast: iterating a view while annotations are added or removed results in a
+ * {@link java.util.ConcurrentModificationException}. Take a copy of the view when the map needs to
+ * be modified while iterating.
+ * </p>
+ */
+class AnnotationRegistry {
+
+  private final LongSparseArray<Annotation> annotations = new LongSparseArray<>();
+  private final LongSparseArray<Marker> markers = new LongSparseArray<>();
+  private final LongSparseArray<Polygon> polygons = new LongSparseArray<>();
+  private final LongSparseArray<Polyline> polylines = new LongSparseArray<>();
+
+  private final AnnotationView<Annotation> annotationView = new AnnotationView<>(annotations);
+  private final AnnotationView<Marker> markerView = new AnnotationView<>(markers);
+  private final AnnotationView<Polygon> polygonView = new AnnotationView<>(polygons);
+  private final AnnotationView<Polyline> polylineView = new AnnotationView<>(polylines);
+
+  /**
+   * Adds an annotation or replaces the annotation previously stored for the same id.
+   *
+   * @param id         the id of the annotation
+   * @param annotation the annotation to store
+   */
+  void put(long id, @NonNull Annotation annotation) {
+    boolean added = annotations.indexOfKey(id) < 0;
+    annotations.put(id, annotation);
+    if (added) {
+      annotationView.invalidate();
+    }
+
+    if (annotation instanceof Marker) {
+      put(markers, markerView, id, (Marker) annotation);
+    } else if (annotation instanceof Polygon) {
+      put(polygons, polygonView, id, (Polygon) annotation);
+    } else if (annotation instanceof Polyline) {
+      put(polylines, polylineView, id, (Polyline) annotation);
+    }
+  }
+
+  /**
+   * Removes the annotation stored for an id.
+   *
+   * @param id the id of the annotation
+   * @return the removed annotation, null if no annotation was stored for the id
+   */
+  @Nullable
+  Annotation remove(long id) {
+    int index = annotations.indexOfKey(id);
+    if (index < 0) {
+      return null;
+    }
+
+    Annotation annotation = annotations.valueAt(index);
+    annotations.removeAt(index);
+    annotationView.invalidate();
+
+    if (annotation instanceof Marker) {
+      remove(markers, markerView, id);
+    } else if (annotation instanceof Polygon) {
+      remove(polygons, polygonView, id);
+    } else if (annotation instanceof Polyline) {
+      remove(polylines, polylineView, id);
+    }
+    return annotation;
+  }
+
+  /**
+   * Removes all annotations.
+   */
+  void clear() {
+    annotations.clear();
+    markers.clear();
+    polygons.clear();
+    polylines.clear();
+    annotationView.invalidate();
+    markerView.invalidate();
+    polygonView.invalidate();
+    polylineView.invalidate();
+  }
+
+  @Nullable
+  Annotation get(long id) {
+    return annotations.get(id);
+  }
+
+  @Nullable
+  Marker getMarker(long id) {
+    return markers.get(id);
+  }
+
+  /**
+   * Resolves ids, as returned by a native point annotation query, to markers.
+   * <p>
+   * Each id is looked up directly in the marker store, the cost scales with the amount of ids and
+   * not with the amount of annotations on the map. Unknown and duplicate ids are skipped.
+   * </p>
+   *
+   * @param ids the ids to resolve
+   * @return the markers matching the ids, ordered by id
+   */
+  List<Marker> getMarkers(long[] ids) {
+    long[] sortedIds = sort(ids);
+    List<Marker> result = new ArrayList<>(sortedIds.length);
+    for (int i = 0; i < sortedIds.length; i++) {
+      if (i > 0 && sortedIds[i] == sortedIds[i - 1]) {
+        continue;
+      }
+      Marker marker = markers.get(sortedIds[i]);
+      if (marker != null) {
+        result.add(marker);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Resolves ids, as returned by a native point annotation query, to marker views.
+   *
+   * @param ids the ids to resolve
+   * @return the marker views matching the ids, ordered by id
+   * @see #getMarkers(long[])
+   */
+  List<MarkerView> getMarkerViews(long[] ids) {
+    long[] sortedIds = sort(ids);
+    List<MarkerView> result = new ArrayList<>(sortedIds.length);
+    for (int i = 0; i < sortedIds.length; i++) {
+      if (i > 0 && sortedIds[i] == sortedIds[i - 1]) {
+        continue;
+      }
+      Marker marker = markers.get(sortedIds[i]);
+      if (marker instanceof MarkerView) {
+        result.add((MarkerView) marker);
+      }
+    }
+    return result;
+  }
+
+  boolean contains(long id) {
+    return annotations.indexOfKey(id) >= 0;
+  }
+
+  int size() {
+    return annotations.size();
+  }
+
+  long keyAt(int index) {
+    return annotations.keyAt(index);
+  }
+
+  Annotation valueAt(int index) {
+    return annotations.valueAt(index);
+  }
+
+  /**
+   * Returns a live, read-only view of all annotations ordered by id.
+   *
+   * @return the annotations view
+   */
+  List<Annotation> getAnnotations() {
+    return annotationView;
+  }
+
+  /**
+   * Returns a live, read-only view of all markers, including marker views, ordered by id.
+   *
+   * @return the markers view
+   */
+  List<Marker> getMarkers() {
+    return markerView;
+  }
+
+  /**
+   * Returns a live, read-only view of all polygons ordered by id.
+   *
+   * @return the polygons view
+   */
+  List<Polygon> getPolygons() {
+    return polygonView;
+  }
+
+  /**
+   * Returns a live, read-only view of all polylines ordered by id.
+   *
+   * @return the polylines view
+   */
+  List<Polyline> getPolylines() {
+    return polylineView;
+  }
+
+  private static long[] sort(long[] ids) {
+    for (int i = 1; i < ids.length; i++) {
+      if (ids[i - 1] > ids[i]) {
+        long[] sortedIds = Arrays.copyOf(ids, ids.length);
+        Arrays.sort(sortedIds);
+        return sortedIds;
+      }
+    }
+    return ids;
+  }
+
+  private static <T extends Annotation> void put(LongSparseArray<T> store, AnnotationView<T> view, long id,
+                                                 T annotation) {
+    boolean added = store.indexOfKey(id) < 0;
+    store.put(id, annotation);
+    if (added) {
+      view.invalidate();
+    }
+  }
+
+  private static <T extends Annotation> void remove(LongSparseArray<T> store, AnnotationView<T> view, long id) {
+    int index = store.indexOfKey(id);
+    if (index >= 0) {
+      store.removeAt(index);
+      view.invalidate();
+    }
+  }
+
+  /**
+   * Read-only {@link List} backed by a {@link LongSparseArray}.
+   *
+   * @param <T> the annotation type of the view
+   */
+  private static class AnnotationView<T extends Annotation> extends AbstractList<T> implements RandomAccess {
+
+    private final LongSparseArray<T> store;
+
+    AnnotationView(LongSparseArray<T> store) {
+      this.store = store;
+    }
+
+    @Override
+    public T get(int index) {
+      if (index < 0 || index >= store.size()) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + store.size());
+      }
+      return store.valueAt(index);
+    }
+
+    @Override
+    public int size() {
+      return store.size();
+    }
+
+    @Override
+    public boolean contains(Object object) {
+      if (!(object instanceof Annotation)) {
+        return false;
+      }
+      int index = store.indexOfKey(((Annotation) object).getId());
+      return index >= 0 && store.valueAt(index).equals(object);
+    }
+
+    @Override
+    public int indexOf(Object object) {
+      return contains(object) ? store.indexOfKey(((Annotation) object).getId()) : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object object) {
+      return indexOf(object);
+    }
+
+    void invalidate() {
+      modCount++;
+    }
+  }
+}
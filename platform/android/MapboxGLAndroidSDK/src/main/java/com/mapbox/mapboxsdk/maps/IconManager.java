@@ -7,17 +7,22 @@ import com.mapbox.mapboxsdk.annotations.Icon;
 import com.mapbox.mapboxsdk.annotations.IconFactory;
 import com.mapbox.mapboxsdk.annotations.Marker;
 import com.mapbox.mapboxsdk.annotations.MarkerView;
-import com.mapbox.mapboxsdk.exceptions.IconBitmapChangedException;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Responsible for managing icons added to the Map.
  * <p>
- * Maintains a {@link List} of {@link Icon} and  is responsible for initialising default markers and
- * setting up {@link MarkerView} annotation ghosting.
+ * Maintains a {@link Map} of {@link Icon} keyed by id and is responsible for initialising default
+ * markers and setting up {@link MarkerView} annotation ghosting.
+ * </p>
+ * <p>
+ * Sprites in the renderer are named after a content fingerprint of their pixels and never change once
+ * uploaded. Icons with identical pixels share a single sprite, only a fingerprint match is verified pixel
+ * by pixel. An icon id registered again with different pixels gets a new sprite, markers and icons still
+ * drawn with the old pixels are left untouched.
  * </p>
  * <p>
  * Keep track of icons added and the resulting average icon size. This is used internally by our
@@ -26,102 +31,121 @@ import java.util.List;
  */
 class IconManager {
 
-  private NativeMapView nativeMapView;
-  private List<Icon> icons;
+  private static final String SPRITE_ID_PREFIX = "com.mapbox.sprites.sprite_";
+
+  private NativeMap nativeMapView;
+
+  // registered icons keyed by icon id
+  private final Map<String, Icon> icons = new HashMap<>();
+  // id of the sprite in the renderer, keyed by icon id
+  private final Map<String, String> spriteIds = new HashMap<>();
+  // icon holding the pixels of each uploaded sprite, keyed by sprite id
+  private final Map<String, Icon> sprites = new HashMap<>();
+  // id of the first sprite uploaded with a content fingerprint
+  private final Map<Long, String> fingerprints = new HashMap<>();
 
-  private int averageIconHeight;
-  private int averageIconWidth;
+  private long iconHeightSum;
+  private long iconWidthSum;
+  private int iconCount;
 
-  IconManager(NativeMapView nativeMapView) {
+  IconManager(NativeMap nativeMapView) {
+    this(nativeMapView, IconFactory.recreate(IconFactory.ICON_MARKERVIEW_ID, IconFactory.ICON_MARKERVIEW_BITMAP));
+  }
+
+  IconManager(NativeMap nativeMapView, Icon markerViewIcon) {
     this.nativeMapView = nativeMapView;
-    this.icons = new ArrayList<>();
     // load transparent icon for MarkerView to trace actual markers, see #6352
-    loadIcon(IconFactory.recreate(IconFactory.ICON_MARKERVIEW_ID, IconFactory.ICON_MARKERVIEW_BITMAP));
+    registerIcon(markerViewIcon, true);
   }
 
   Icon loadIconForMarker(Marker marker) {
     Icon icon = marker.getIcon();
 
-    // calculating average before adding
-    int iconSize = icons.size() + 1;
-
     // TODO replace former if case with anchor implementation,
     // current workaround for having extra pixels is diving height by 2
     if (icon == null) {
       icon = IconFactory.getInstance(nativeMapView.getContext()).defaultMarker();
       Bitmap bitmap = icon.getBitmap();
-      averageIconHeight = averageIconHeight + (bitmap.getHeight() / 2 - averageIconHeight) / iconSize;
-      averageIconWidth = averageIconWidth + (bitmap.getWidth() - averageIconWidth) / iconSize;
+      addIconSize(bitmap.getWidth(), bitmap.getHeight() / 2);
       marker.setIcon(icon);
     } else {
       Bitmap bitmap = icon.getBitmap();
-      averageIconHeight = averageIconHeight + (bitmap.getHeight() - averageIconHeight) / iconSize;
-      averageIconWidth = averageIconWidth + (bitmap.getWidth() - averageIconWidth) / iconSize;
+      addIconSize(bitmap.getWidth(), bitmap.getHeight());
     }
 
-    if (!icons.contains(icon)) {
-      icons.add(icon);
-      loadIcon(icon);
-    } else {
-      Icon oldIcon = icons.get(icons.indexOf(icon));
-      if (!oldIcon.getBitmap().sameAs(icon.getBitmap())) {
-        throw new IconBitmapChangedException();
-      }
-    }
+    registerIcon(icon, true);
     return icon;
   }
 
   Icon loadIconForMarkerView(MarkerView marker) {
     Icon icon = marker.getIcon();
-    int iconSize = icons.size() + 1;
     if (icon == null) {
       icon = IconFactory.getInstance(nativeMapView.getContext()).defaultMarkerView();
       marker.setIcon(icon);
     }
     Bitmap bitmap = icon.getBitmap();
-    averageIconHeight = averageIconHeight + (bitmap.getHeight() - averageIconHeight) / iconSize;
-    averageIconWidth = averageIconWidth + (bitmap.getWidth() - averageIconWidth) / iconSize;
-    if (!icons.contains(icon)) {
-      icons.add(icon);
-    } else {
-      Icon oldIcon = icons.get(icons.indexOf(icon));
-      if (!oldIcon.getBitmap().sameAs(icon.getBitmap())) {
-        throw new IconBitmapChangedException();
-      }
-    }
+    addIconSize(bitmap.getWidth(), bitmap.getHeight());
+    registerIcon(icon, false);
     return icon;
   }
 
   int getTopOffsetPixelsForIcon(Icon icon) {
-    return (int) (nativeMapView.getTopOffsetPixelsForAnnotationSymbol(icon.getId()) * nativeMapView.getPixelRatio());
+    return (int) (nativeMapView.getTopOffsetPixelsForAnnotationSymbol(getSpriteId(icon))
+      * nativeMapView.getPixelRatio());
+  }
+
+  /**
+   * Returns the id of the renderer sprite used to draw an icon.
+   *
+   * @param icon the icon
+   * @return the sprite id, the icon id when the icon wasn't uploaded
+   */
+  String getSpriteId(Icon icon) {
+    String spriteId = spriteIds.get(icon.getId());
+    return spriteId != null ? spriteId : icon.getId();
+  }
+
+  private void registerIcon(Icon icon, boolean load) {
+    Icon registeredIcon = icons.get(icon.getId());
+    if (registeredIcon == icon || (registeredIcon != null && registeredIcon.getBitmap() == icon.getBitmap())) {
+      return;
+    }
+
+    icons.put(icon.getId(), icon);
+    if (load) {
+      loadIcon(icon);
+    }
   }
 
   void loadIcon(Icon icon) {
-    Bitmap bitmap = icon.getBitmap();
-    String id = icon.getId();
-    if (bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
-      bitmap = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+    Bitmap bitmap = toArgb8888(icon.getBitmap());
+    ByteBuffer buffer = nativeMapView.getPixelBuffer().put(bitmap);
+
+    long fingerprint = fingerprint(bitmap, buffer);
+    String spriteId = fingerprints.get(fingerprint);
+    if (spriteId != null && toArgb8888(sprites.get(spriteId).getBitmap()).sameAs(bitmap)) {
+      // identical pixels are already uploaded
+      spriteIds.put(icon.getId(), spriteId);
+      return;
     }
-    ByteBuffer buffer = ByteBuffer.allocate(bitmap.getRowBytes() * bitmap.getHeight());
-    bitmap.copyPixelsToBuffer(buffer);
 
-    float density = bitmap.getDensity();
-    if (density == Bitmap.DENSITY_NONE) {
-      density = DisplayMetrics.DENSITY_DEFAULT;
+    if (spriteId == null) {
+      spriteId = SPRITE_ID_PREFIX + Long.toHexString(fingerprint);
+      fingerprints.put(fingerprint, spriteId);
+    } else {
+      // different pixels with the same fingerprint, only the first of them is found by fingerprint
+      spriteId = SPRITE_ID_PREFIX + Long.toHexString(fingerprint) + "_" + sprites.size();
     }
-    float scale = density / DisplayMetrics.DENSITY_DEFAULT;
-    nativeMapView.addAnnotationIcon(
-      id,
-      bitmap.getWidth(),
-      bitmap.getHeight(),
-      scale, buffer.array());
+    sprites.put(spriteId, icon);
+    spriteIds.put(icon.getId(), spriteId);
+    addAnnotationIcon(spriteId, bitmap, buffer);
   }
 
   void reloadIcons() {
-    int count = icons.size();
-    for (int i = 0; i < count; i++) {
-      Icon icon = icons.get(i);
-      loadIcon(icon);
+    // markers may still be drawn with sprites no registered icon resolves to
+    for (Map.Entry<String, Icon> entry : sprites.entrySet()) {
+      Bitmap bitmap = toArgb8888(entry.getValue().getBitmap());
+      addAnnotationIcon(entry.getKey(), bitmap, nativeMapView.getPixelBuffer().put(bitmap));
     }
   }
 
@@ -131,16 +155,11 @@ class IconManager {
       icon = IconFactory.getInstance(nativeMapView.getContext()).defaultMarker();
       marker.setIcon(icon);
     }
-    if (!icons.contains(icon)) {
-      icons.add(icon);
-      loadIcon(icon);
-    } else {
-      Icon oldIcon = icons.get(icons.indexOf(icon));
-      if (!oldIcon.getBitmap().sameAs(icon.getBitmap())) {
-        throw new IconBitmapChangedException();
-      }
-    }
+    registerIcon(icon, true);
+    updateTopOffsetPixels(marker, icon, mapboxMap);
+  }
 
+  void updateTopOffsetPixels(Marker marker, Icon icon, MapboxMap mapboxMap) {
     // this seems to be a costly operation according to the profiler so I'm trying to save some calls
     Marker previousMarker = marker.getId() != -1 ? (Marker) mapboxMap.getAnnotation(marker.getId()) : null;
     if (previousMarker == null || previousMarker.getIcon() == null || previousMarker.getIcon() != marker.getIcon()) {
@@ -149,10 +168,41 @@ class IconManager {
   }
 
   int getAverageIconHeight() {
-    return averageIconHeight;
+    return iconCount > 0 ? (int) (iconHeightSum / iconCount) : 0;
   }
 
   int getAverageIconWidth() {
-    return averageIconWidth;
+    return iconCount > 0 ? (int) (iconWidthSum / iconCount) : 0;
+  }
+
+  private void addIconSize(int width, int height) {
+    iconWidthSum += width;
+    iconHeightSum += height;
+    iconCount++;
+  }
+
+  private void addAnnotationIcon(String id, Bitmap bitmap, ByteBuffer buffer) {
+    float density = bitmap.getDensity();
+    if (density == Bitmap.DENSITY_NONE) {
+      density = DisplayMetrics.DENSITY_DEFAULT;
+    }
+    float scale = density / DisplayMetrics.DENSITY_DEFAULT;
+    nativeMapView.addAnnotationIcon(
+      id,
+      bitmap.getWidth(),
+      bitmap.getHeight(),
+      scale, buffer);
+  }
+
+  private static Bitmap toArgb8888(Bitmap bitmap) {
+    if (bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
+      bitmap = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+    }
+    return bitmap;
+  }
+
+  private static long fingerprint(Bitmap bitmap, ByteBuffer buffer) {
+    long header = 31 * (31 * (31L * bitmap.getWidth() + bitmap.getHeight()) + bitmap.getDensity());
+    return (header << 32) ^ (buffer.hashCode() & 0xffffffffL);
   }
 }
@@ -45,6 +45,7 @@ import com.mapbox.services.commons.geojson.Feature;
 
 import java.lang.reflect.ParameterizedType;
 import java.util.List;
+import java.util.Map;
 
 import timber.log.Timber;
 
@@ -348,6 +349,21 @@ public final class MapboxMap {
     nativeMapView.addImage(name, image);
   }
 
+  /**
+   * Adds images to be used in the map's style.
+   * <p>
+   * The images are packed into a single buffer and registered with the style in one call, this is
+   * considerably faster than calling {@link #addImage(String, Bitmap)} for every image when adding
+   * many images, for example when the style is loaded.
+   * </p>
+   *
+   * @param images the pre-multiplied Bitmaps keyed by image name
+   */
+  @UiThread
+  public void addImages(@NonNull Map<String, Bitmap> images) {
+    nativeMapView.addImages(images);
+  }
+
   /**
    * Removes an image from the map's style
    *
@@ -1023,6 +1039,21 @@ public final class MapboxMap {
     annotationManager.updateMarker(updatedMarker, this);
   }
 
+  /**
+   * <p>
+   * Updates multiple markers on this map with a single call to the renderer. Markers that
+   * aren't already added are ignored.
+   * </p>
+   * Icons are only loaded and verified once for each distinct icon in the list, making this
+   * the preferred way to move a large amount of markers at once.
+   *
+   * @param updatedMarkers A list of updated marker objects.
+   */
+  @UiThread
+  public void updateMarkers(@NonNull List<Marker> updatedMarkers) {
+    annotationManager.updateMarkers(updatedMarkers, this);
+  }
+
   /**
    * Adds a polyline to this map.
    *
@@ -1057,6 +1088,20 @@ public final class MapboxMap {
     annotationManager.updatePolyline(polyline);
   }
 
+  /**
+   * Update a polyline on this map with the points that were added since its last update.
+   * <p>
+   * Only the added points are transferred and appended to the line already on the map, calls
+   * made within the same frame are combined into a single update.
+   * </p>
+   *
+   * @param polyline A polyline object with added points.
+   */
+  @UiThread
+  public void appendPolylinePoints(Polyline polyline) {
+    annotationManager.appendPolylinePoints(polyline);
+  }
+
   /**
    * Adds a polygon to this map.
    *
@@ -1191,8 +1236,9 @@ public final class MapboxMap {
   /**
    * Returns a list of all the annotations on the map.
    *
-   * @return A list of all the annotation objects. The returned object is a copy so modifying this
-   * list will not update the map
+   * @return A read-only list of all the annotation objects. The returned object is a live view that
+   * reflects annotations added to or removed from the map, copy it before removing annotations while
+   * iterating.
    */
   @NonNull
   public List<Annotation> getAnnotations() {
@@ -1202,8 +1248,8 @@ public final class MapboxMap {
   /**
    * Returns a list of all the markers on the map.
    *
-   * @return A list of all the markers objects. The returned object is a copy so modifying this
-   * list will not update the map.
+   * @return A read-only list of all the markers objects. The returned object is a live view that
+   * reflects markers added to or removed from the map, copy it before removing markers while iterating.
    */
   @NonNull
   public List<Marker> getMarkers() {
@@ -1213,8 +1259,8 @@ public final class MapboxMap {
   /**
    * Returns a list of all the polygons on the map.
    *
-   * @return A list of all the polygon objects. The returned object is a copy so modifying this
-   * list will not update the map.
+   * @return A read-only list of all the polygon objects. The returned object is a live view that
+   * reflects polygons added to or removed from the map, copy it before removing polygons while iterating.
    */
   @NonNull
   public List<Polygon> getPolygons() {
@@ -1224,8 +1270,8 @@ public final class MapboxMap {
   /**
    * Returns a list of all the polylines on the map.
    *
-   * @return A list of all the polylines objects. The returned object is a copy so modifying this
-   * list will not update the map.
+   * @return A read-only list of all the polylines objects. The returned object is a live view that
+   * reflects polylines added to or removed from the map, copy it before removing polylines while iterating.
    */
   @NonNull
   public List<Polyline> getPolylines() {
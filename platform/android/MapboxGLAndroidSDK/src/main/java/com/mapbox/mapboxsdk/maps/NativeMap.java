@@ -0,0 +1,94 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.content.Context;
+import android.graphics.PointF;
+import android.graphics.RectF;
+import android.support.annotation.NonNull;
+
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.Polygon;
+import com.mapbox.mapboxsdk.annotations.Polyline;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * The calls into the native map used by the annotation, icon and projection managers.
+ * <p>
+ * Implemented by {@link NativeMapView}, the managers depend on this interface so they can be unit tested without
+ * loading the native library.
+ * </p>
+ */
+interface NativeMap {
+
+  //
+  // Map
+  //
+
+  Context getContext();
+
+  float getPixelRatio();
+
+  int getWidth();
+
+  int getHeight();
+
+  void setContentPadding(int[] padding);
+
+  void addOnMapChangedListener(@NonNull MapView.OnMapChangedListener listener);
+
+  //
+  // Annotations
+  //
+
+  long addMarker(Marker marker, String iconId);
+
+  long[] addMarkers(List<Marker> markers, String[] iconIds);
+
+  void updateMarker(Marker marker, String iconId);
+
+  void updateMarkers(long[] ids, double[] positions, int[] iconIndices, String[] iconIds);
+
+  long addPolygon(Polygon polygon);
+
+  long[] addPolygons(List<Polygon> polygons);
+
+  void updatePolygon(Polygon polygon);
+
+  long addPolyline(Polyline polyline);
+
+  long[] addPolylines(List<Polyline> polylines);
+
+  void updatePolyline(Polyline polyline);
+
+  void appendPolylinePoints(Polyline polyline, int start);
+
+  void removeAnnotation(long id);
+
+  void removeAnnotations(long[] ids);
+
+  long[] queryPointAnnotations(RectF rect);
+
+  //
+  // Icons
+  //
+
+  PixelBuffer getPixelBuffer();
+
+  void addAnnotationIcon(String symbol, int width, int height, float scale, ByteBuffer pixels);
+
+  double getTopOffsetPixelsForAnnotationSymbol(String symbolName);
+
+  //
+  // Projection
+  //
+
+  double getMetersPerPixelAtLatitude(double lat);
+
+  LatLng latLngForPixel(PointF pixel);
+
+  PointF pixelForLatLng(LatLng latLng);
+
+  void pixelsForLatLngs(double[] coordinates, float[] pixels, int count);
+}
@@ -13,7 +13,6 @@ import android.text.TextUtils;
 import android.util.DisplayMetrics;
 import android.view.Surface;
 
-import com.mapbox.mapboxsdk.annotations.Icon;
 import com.mapbox.mapboxsdk.annotations.Marker;
 import com.mapbox.mapboxsdk.annotations.Polygon;
 import com.mapbox.mapboxsdk.annotations.Polyline;
@@ -31,12 +30,13 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import timber.log.Timber;
 
 // Class that wraps the native methods for convenience
-final class NativeMapView {
+final class NativeMapView implements NativeMap {
 
   // Flag to indicating destroy was called
   private boolean destroyed = false;
@@ -56,6 +56,9 @@ final class NativeMapView {
   // Listener invoked to return a bitmap of the map
   private SnapshotRequest snapshotRequest;
 
+  // Direct buffer reused to upload bitmap pixels
+  private final PixelBuffer pixelBuffer = new PixelBuffer();
+
   //
   // Static methods
   //
@@ -498,6 +501,7 @@ final class NativeMapView {
     nativeRotateBy(nativeMapViewPtr, sx / pixelRatio, sy / pixelRatio, ex, ey, duration);
   }
 
+  @Override
   public void setContentPadding(int[] padding) {
     if (isDestroyedOn("setContentPadding")) {
       return;
@@ -544,21 +548,25 @@ final class NativeMapView {
     nativeResetNorth(nativeMapViewPtr);
   }
 
-  public long addMarker(Marker marker) {
+  @Override
+  public long addMarker(Marker marker, String iconId) {
     if (isDestroyedOn("addMarker")) {
       return 0;
     }
     Marker[] markers = {marker};
-    return nativeAddMarkers(nativeMapViewPtr, markers)[0];
+    String[] iconIds = {iconId};
+    return nativeAddMarkers(nativeMapViewPtr, markers, iconIds)[0];
   }
 
-  public long[] addMarkers(List<Marker> markers) {
+  @Override
+  public long[] addMarkers(List<Marker> markers, String[] iconIds) {
     if (isDestroyedOn("addMarkers")) {
       return new long[] {};
     }
-    return nativeAddMarkers(nativeMapViewPtr, markers.toArray(new Marker[markers.size()]));
+    return nativeAddMarkers(nativeMapViewPtr, markers.toArray(new Marker[markers.size()]), iconIds);
   }
 
+  @Override
   public long addPolyline(Polyline polyline) {
     if (isDestroyedOn("addPolyline")) {
       return 0;
@@ -567,6 +575,7 @@ final class NativeMapView {
     return nativeAddPolylines(nativeMapViewPtr, polylines)[0];
   }
 
+  @Override
   public long[] addPolylines(List<Polyline> polylines) {
     if (isDestroyedOn("addPolylines")) {
       return new long[] {};
@@ -574,6 +583,7 @@ final class NativeMapView {
     return nativeAddPolylines(nativeMapViewPtr, polylines.toArray(new Polyline[polylines.size()]));
   }
 
+  @Override
   public long addPolygon(Polygon polygon) {
     if (isDestroyedOn("addPolygon")) {
       return 0;
@@ -582,6 +592,7 @@ final class NativeMapView {
     return nativeAddPolygons(nativeMapViewPtr, polygons)[0];
   }
 
+  @Override
   public long[] addPolygons(List<Polygon> polygons) {
     if (isDestroyedOn("addPolygons")) {
       return new long[] {};
@@ -589,15 +600,24 @@ final class NativeMapView {
     return nativeAddPolygons(nativeMapViewPtr, polygons.toArray(new Polygon[polygons.size()]));
   }
 
-  public void updateMarker(Marker marker) {
+  @Override
+  public void updateMarker(Marker marker, String iconId) {
     if (isDestroyedOn("updateMarker")) {
       return;
     }
     LatLng position = marker.getPosition();
-    Icon icon = marker.getIcon();
-    nativeUpdateMarker(nativeMapViewPtr, marker.getId(), position.getLatitude(), position.getLongitude(), icon.getId());
+    nativeUpdateMarker(nativeMapViewPtr, marker.getId(), position.getLatitude(), position.getLongitude(), iconId);
+  }
+
+  @Override
+  public void updateMarkers(long[] ids, double[] positions, int[] iconIndices, String[] iconIds) {
+    if (isDestroyedOn("updateMarkers")) {
+      return;
+    }
+    nativeUpdateMarkers(nativeMapViewPtr, ids, positions, iconIndices, iconIds);
   }
 
+  @Override
   public void updatePolygon(Polygon polygon) {
     if (isDestroyedOn("updatePolygon")) {
       return;
@@ -605,6 +625,7 @@ final class NativeMapView {
     nativeUpdatePolygon(nativeMapViewPtr, polygon.getId(), polygon);
   }
 
+  @Override
   public void updatePolyline(Polyline polyline) {
     if (isDestroyedOn("updatePolyline")) {
       return;
@@ -612,6 +633,15 @@ final class NativeMapView {
     nativeUpdatePolyline(nativeMapViewPtr, polyline.getId(), polyline);
   }
 
+  @Override
+  public void appendPolylinePoints(Polyline polyline, int start) {
+    if (isDestroyedOn("appendPolylinePoints")) {
+      return;
+    }
+    nativeAppendPolylinePoints(nativeMapViewPtr, polyline.getId(), polyline, start);
+  }
+
+  @Override
   public void removeAnnotation(long id) {
     if (isDestroyedOn("removeAnnotation")) {
       return;
@@ -620,6 +650,7 @@ final class NativeMapView {
     removeAnnotations(ids);
   }
 
+  @Override
   public void removeAnnotations(long[] ids) {
     if (isDestroyedOn("removeAnnotations")) {
       return;
@@ -627,6 +658,7 @@ final class NativeMapView {
     nativeRemoveAnnotations(nativeMapViewPtr, ids);
   }
 
+  @Override
   public long[] queryPointAnnotations(RectF rect) {
     if (isDestroyedOn("queryPointAnnotations")) {
       return new long[] {};
@@ -634,7 +666,8 @@ final class NativeMapView {
     return nativeQueryPointAnnotations(nativeMapViewPtr, rect);
   }
 
-  public void addAnnotationIcon(String symbol, int width, int height, float scale, byte[] pixels) {
+  @Override
+  public void addAnnotationIcon(String symbol, int width, int height, float scale, ByteBuffer pixels) {
     if (isDestroyedOn("addAnnotationIcon")) {
       return;
     }
@@ -652,6 +685,7 @@ final class NativeMapView {
     if (isDestroyedOn("onLowMemory")) {
       return;
     }
+    pixelBuffer.release();
     nativeOnLowMemory(nativeMapViewPtr);
   }
 
@@ -690,6 +724,7 @@ final class NativeMapView {
     nativeSetReachability(nativeMapViewPtr, status);
   }
 
+  @Override
   public double getMetersPerPixelAtLatitude(double lat) {
     if (isDestroyedOn("getMetersPerPixelAtLatitude")) {
       return 0;
@@ -712,6 +747,7 @@ final class NativeMapView {
       projectedMeters.getEasting());
   }
 
+  @Override
   public PointF pixelForLatLng(LatLng latLng) {
     if (isDestroyedOn("pixelForLatLng")) {
       return new PointF();
@@ -721,6 +757,18 @@ final class NativeMapView {
     return pointF;
   }
 
+  @Override
+  public void pixelsForLatLngs(double[] coordinates, float[] pixels, int count) {
+    if (isDestroyedOn("pixelsForLatLngs")) {
+      return;
+    }
+    nativePixelsForLatLngs(nativeMapViewPtr, coordinates, pixels, count);
+    for (int i = 0; i < 2 * count; i++) {
+      pixels[i] *= pixelRatio;
+    }
+  }
+
+  @Override
   public LatLng latLngForPixel(PointF pixel) {
     if (isDestroyedOn("latLngForPixel")) {
       return new LatLng();
@@ -728,6 +776,7 @@ final class NativeMapView {
     return nativeLatLngForPixel(nativeMapViewPtr, pixel.x / pixelRatio, pixel.y / pixelRatio);
   }
 
+  @Override
   public double getTopOffsetPixelsForAnnotationSymbol(String symbolName) {
     if (isDestroyedOn("getTopOffsetPixelsForAnnotationSymbol")) {
       return 0;
@@ -848,15 +897,75 @@ final class NativeMapView {
       image = image.copy(Bitmap.Config.ARGB_8888, false);
     }
 
-    //Get pixels
-    ByteBuffer buffer = ByteBuffer.allocate(image.getByteCount());
-    image.copyPixelsToBuffer(buffer);
+    //Get pixels, reusing the direct buffer shared with annotation icons
+    ByteBuffer buffer = pixelBuffer.put(image);
 
     //Determine pixel ratio
     float density = image.getDensity() == Bitmap.DENSITY_NONE ? Bitmap.DENSITY_NONE : image.getDensity();
     float pixelRatio = density / DisplayMetrics.DENSITY_DEFAULT;
 
-    nativeAddImage(nativeMapViewPtr, name, image.getWidth(), image.getHeight(), pixelRatio, buffer.array());
+    nativeAddImage(nativeMapViewPtr, name, image.getWidth(), image.getHeight(), pixelRatio, buffer);
+  }
+
+  public void addImages(@NonNull Map<String, Bitmap> images) {
+    if (isDestroyedOn("addImages")) {
+      return;
+    }
+
+    int count = images.size();
+    String[] names = new String[count];
+    Bitmap[] bitmaps = new Bitmap[count];
+    int[] dimensions = new int[2 * count];
+    float[] pixelRatios = new float[count];
+
+    int index = 0;
+    for (Map.Entry<String, Bitmap> entry : images.entrySet()) {
+      Bitmap image = entry.getValue();
+      if (image.getConfig() != Bitmap.Config.ARGB_8888) {
+        image = image.copy(Bitmap.Config.ARGB_8888, false);
+      }
+
+      float density = image.getDensity() == Bitmap.DENSITY_NONE ? Bitmap.DENSITY_NONE : image.getDensity();
+      names[index] = entry.getKey();
+      bitmaps[index] = image;
+      dimensions[2 * index] = image.getWidth();
+      dimensions[2 * index + 1] = image.getHeight();
+      pixelRatios[index] = density / DisplayMetrics.DENSITY_DEFAULT;
+      index++;
+    }
+
+    // Split into batches whose pixels fit a single buffer, summed as long to detect the overflow
+    int start = 0;
+    long byteCount = 0;
+    for (int i = 0; i < count; i++) {
+      int imageByteCount = bitmaps[i].getByteCount();
+      if (i > start && byteCount + imageByteCount > Integer.MAX_VALUE) {
+        addImageBatch(names, bitmaps, dimensions, pixelRatios, start, i, (int) byteCount);
+        start = i;
+        byteCount = 0;
+      }
+      byteCount += imageByteCount;
+    }
+    if (start < count) {
+      addImageBatch(names, bitmaps, dimensions, pixelRatios, start, count, (int) byteCount);
+    }
+  }
+
+  private void addImageBatch(String[] names, Bitmap[] bitmaps, int[] dimensions, float[] pixelRatios,
+                             int start, int end, int byteCount) {
+    // Pack all pixels back to back into a single atlas buffer
+    ByteBuffer buffer = pixelBuffer.obtain(byteCount);
+    for (int i = start; i < end; i++) {
+      bitmaps[i].copyPixelsToBuffer(buffer);
+    }
+    buffer.rewind();
+
+    if (start == 0 && end == names.length) {
+      nativeAddImages(nativeMapViewPtr, names, dimensions, pixelRatios, buffer);
+    } else {
+      nativeAddImages(nativeMapViewPtr, Arrays.copyOfRange(names, start, end),
+        Arrays.copyOfRange(dimensions, 2 * start, 2 * end), Arrays.copyOfRange(pixelRatios, start, end), buffer);
+    }
   }
 
   public void removeImage(String name) {
@@ -907,10 +1016,17 @@ final class NativeMapView {
     nativeSetAPIBaseURL(nativeMapViewPtr, baseUrl);
   }
 
+  @Override
   public float getPixelRatio() {
     return pixelRatio;
   }
 
+  @Override
+  public PixelBuffer getPixelBuffer() {
+    return pixelBuffer;
+  }
+
+  @Override
   public Context getContext() {
     return mapView.getContext();
   }
@@ -1062,7 +1178,10 @@ final class NativeMapView {
 
   private native void nativeUpdateMarker(long nativeMapViewPtr, long markerId, double lat, double lon, String iconId);
 
-  private native long[] nativeAddMarkers(long nativeMapViewPtr, Marker[] markers);
+  private native void nativeUpdateMarkers(long nativeMapViewPtr, long[] markerIds, double[] positions,
+                                          int[] iconIndices, String[] iconIds);
+
+  private native long[] nativeAddMarkers(long nativeMapViewPtr, Marker[] markers, String[] iconIds);
 
   private native long[] nativeAddPolylines(long nativeMapViewPtr, Polyline[] polylines);
 
@@ -1073,7 +1192,7 @@ final class NativeMapView {
   private native long[] nativeQueryPointAnnotations(long nativeMapViewPtr, RectF rect);
 
   private native void nativeAddAnnotationIcon(long nativeMapViewPtr, String symbol,
-                                              int width, int height, float scale, byte[] pixels);
+                                              int width, int height, float scale, ByteBuffer pixels);
 
   private native void nativeSetVisibleCoordinateBounds(long nativeMapViewPtr, LatLng[] coordinates,
                                                        RectF padding, double direction, long duration);
@@ -1099,6 +1218,8 @@ final class NativeMapView {
 
   private native PointF nativePixelForLatLng(long nativeMapViewPtr, double lat, double lon);
 
+  private native void nativePixelsForLatLngs(long nativeMapViewPtr, double[] coordinates, float[] pixels, int count);
+
   private native LatLng nativeLatLngForPixel(long nativeMapViewPtr, float x, float y);
 
   private native double nativeGetTopOffsetPixelsForAnnotationSymbol(long nativeMapViewPtr, String symbolName);
@@ -1139,7 +1260,10 @@ final class NativeMapView {
   private native void nativeRemoveSource(long nativeMapViewPtr, long sourcePtr) throws NoSuchSourceException;
 
   private native void nativeAddImage(long nativeMapViewPtr, String name, int width, int height, float pixelRatio,
-                                     byte[] array);
+                                     ByteBuffer pixels);
+
+  private native void nativeAddImages(long nativeMapViewPtr, String[] names, int[] dimensions, float[] pixelRatios,
+                                      ByteBuffer pixels);
 
   private native void nativeRemoveImage(long nativeMapViewPtr, String name);
 
@@ -1147,6 +1271,9 @@ final class NativeMapView {
 
   private native void nativeUpdatePolyline(long nativeMapviewPtr, long polylineId, Polyline polyline);
 
+  private native void nativeAppendPolylinePoints(long nativeMapViewPtr, long polylineId, Polyline polyline,
+                                                  int start);
+
   private native void nativeScheduleTakeSnapshot(long nativeMapViewPtr);
 
   private native Feature[] nativeQueryRenderedFeaturesForPoint(long nativeMapViewPtr, float x, float y, String[]
@@ -1157,14 +1284,16 @@ final class NativeMapView {
 
   private native void nativeSetAPIBaseURL(long nativeMapViewPtr, String baseUrl);
 
-  int getWidth() {
+  @Override
+  public int getWidth() {
     if (isDestroyedOn("")) {
       return 0;
     }
     return mapView.getWidth();
   }
 
-  int getHeight() {
+  @Override
+  public int getHeight() {
     if (isDestroyedOn("")) {
       return 0;
     }
@@ -1175,7 +1304,8 @@ final class NativeMapView {
   // MapChangeEvents
   //
 
-  void addOnMapChangedListener(@NonNull MapView.OnMapChangedListener listener) {
+  @Override
+  public void addOnMapChangedListener(@NonNull MapView.OnMapChangedListener listener) {
     onMapChangedListeners.add(listener);
   }
 
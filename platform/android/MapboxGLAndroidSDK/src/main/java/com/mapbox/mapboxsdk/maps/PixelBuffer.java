@@ -0,0 +1,90 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reusable direct buffer used to hand bitmap pixels to the renderer.
+ * <p>
+ * Pixels are copied once from the {@link Bitmap} into native memory, the renderer reads them
+ * without an intermediate Java heap array. The buffer is retained and grown to the next power of
+ * two, uploading many icons results in a handful of allocations instead of one per icon.
+ * </p>
+ * <p>
+ * Bitmaps larger than {@link #MAX_POOLED_CAPACITY} get a buffer of their own size that isn't retained,
+ * a single large upload doesn't keep its native memory alive for the lifetime of the map.
+ * This class is not thread safe, it's meant to be used from the thread that owns the map.
+ * </p>
+ */
+class PixelBuffer {
+
+  static final int MIN_CAPACITY = 64 * 64 * 4;
+  static final int MAX_POOLED_CAPACITY = 1024 * 1024 * 4;
+
+  private ByteBuffer buffer;
+  private int allocationCount;
+
+  /**
+   * Copies the pixels of a bitmap into a direct buffer.
+   * <p>
+   * The returned buffer is only valid until the next call to this object.
+   * </p>
+   *
+   * @param bitmap the ARGB_8888 bitmap to copy
+   * @return the buffer positioned at the first pixel with the pixel data as remaining bytes
+   */
+  @NonNull
+  ByteBuffer put(@NonNull Bitmap bitmap) {
+    ByteBuffer pixels = obtain(bitmap.getRowBytes() * bitmap.getHeight());
+    bitmap.copyPixelsToBuffer(pixels);
+    pixels.rewind();
+    return pixels;
+  }
+
+  /**
+   * Returns a cleared direct buffer with the limit set to the requested size.
+   *
+   * @param size the amount of bytes required
+   * @return the buffer
+   */
+  @NonNull
+  ByteBuffer obtain(int size) {
+    if (size > MAX_POOLED_CAPACITY) {
+      // dropped by the caller after the upload, freed with the next garbage collection
+      allocationCount++;
+      return ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+    }
+
+    if (buffer == null || buffer.capacity() < size) {
+      allocationCount++;
+      buffer = ByteBuffer.allocateDirect(capacityFor(size)).order(ByteOrder.nativeOrder());
+    }
+    return limit(buffer, size);
+  }
+
+  /**
+   * Drops the retained buffer, the native memory is freed when the buffer is garbage collected.
+   */
+  void release() {
+    buffer = null;
+  }
+
+  int getAllocationCount() {
+    return allocationCount;
+  }
+
+  private static ByteBuffer limit(ByteBuffer buffer, int size) {
+    buffer.clear();
+    buffer.limit(size);
+    return buffer;
+  }
+
+  private static int capacityFor(int size) {
+    int capacity = Math.max(size, MIN_CAPACITY);
+    int highest = Integer.highestOneBit(capacity);
+    return highest == capacity ? capacity : Math.min(highest << 1, MAX_POOLED_CAPACITY);
+  }
+}
@@ -15,10 +15,10 @@ import com.mapbox.mapboxsdk.geometry.VisibleRegion;
  */
 public class Projection {
 
-  private final NativeMapView nativeMapView;
+  private final NativeMap nativeMapView;
   private int[] contentPadding;
 
-  Projection(@NonNull NativeMapView nativeMapView) {
+  Projection(@NonNull NativeMap nativeMapView) {
     this.nativeMapView = nativeMapView;
     this.contentPadding = new int[] {0, 0, 0, 0};
   }
@@ -110,6 +110,25 @@ public class Projection {
     return nativeMapView.pixelForLatLng(location);
   }
 
+  /**
+   * Converts geographical coordinates to screen locations in a single call, without allocating.
+   * <p>
+   * The screen locations are in screen pixels (not display pixels) relative to the top left of the
+   * map, see {@link #toScreenLocation(LatLng)}.
+   * </p>
+   *
+   * @param coordinates     Interleaved latitude, longitude pairs to convert.
+   * @param screenLocations Array receiving the interleaved x, y screen locations.
+   * @param count           The amount of coordinates to convert.
+   * @throws IllegalArgumentException if either array is too small to hold count pairs
+   */
+  public void toScreenLocations(@NonNull double[] coordinates, @NonNull float[] screenLocations, int count) {
+    if (count < 0 || coordinates.length < 2 * count || screenLocations.length < 2 * count) {
+      throw new IllegalArgumentException("Coordinates and screen locations should hold at least " + count + " pairs");
+    }
+    nativeMapView.pixelsForLatLngs(coordinates, screenLocations, count);
+  }
+
   float getHeight() {
     return nativeMapView.getHeight();
   }
@@ -18,6 +18,10 @@ import timber.log.Timber;
 /**
  * Interface definition for a callback to be invoked when connectivity changes.
  * Not public api.
+ * <p>
+ * The receiver keeps a snapshot of the network state, updated by connectivity broadcasts. Reading the snapshot
+ * doesn't lock nor query the ConnectivityManager, map requests check it on every call.
+ * </p>
  */
 public class ConnectivityReceiver extends BroadcastReceiver {
   private static ConnectivityReceiver INSTANCE;
@@ -29,6 +33,7 @@ public class ConnectivityReceiver extends BroadcastReceiver {
     if (INSTANCE == null) {
       //Register new instance
       INSTANCE = new ConnectivityReceiver();
+      INSTANCE.networkConnected = queryNetworkConnected(context);
       context.registerReceiver(INSTANCE, new IntentFilter("android.net.conn.CONNECTIVITY_CHANGE"));
 
       //Add default listeners
@@ -39,6 +44,7 @@ public class ConnectivityReceiver extends BroadcastReceiver {
   }
 
   private List<ConnectivityListener> listeners = new CopyOnWriteArrayList<>();
+  private volatile boolean networkConnected;
 
   private ConnectivityReceiver() {
   }
@@ -48,6 +54,7 @@ public class ConnectivityReceiver extends BroadcastReceiver {
    */
   @Override
   public void onReceive(Context context, Intent intent) {
+    networkConnected = queryNetworkConnected(context);
     boolean connected = isConnected(context);
     Timber.v("Connected: " + connected);
 
@@ -82,12 +89,20 @@ public class ConnectivityReceiver extends BroadcastReceiver {
    * @return true if connected
    */
   public boolean isConnected(Context context) {
-    Boolean connected = Mapbox.isConnected();
-    if (connected != null) {
-      // Connectivity state overridden by app
-      return connected;
-    }
+    // includes the connectivity state overridden by app
+    return Mapbox.isConnected();
+  }
+
+  /**
+   * Get the network state received with the last connectivity broadcast, without querying the ConnectivityManager.
+   *
+   * @return true if the network was connected
+   */
+  public boolean isNetworkConnected() {
+    return networkConnected;
+  }
 
+  private static boolean queryNetworkConnected(Context context) {
     ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
     NetworkInfo activeNetwork = cm.getActiveNetworkInfo();
     return (activeNetwork != null && activeNetwork.isConnected());
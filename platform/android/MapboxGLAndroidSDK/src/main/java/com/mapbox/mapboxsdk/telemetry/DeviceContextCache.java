@@ -0,0 +1,162 @@
+package com.mapbox.mapboxsdk.telemetry;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import timber.log.Timber;
+
+/**
+ * Cache of the device state added to telemetry events.
+ * <p>
+ * Querying the state goes through system services, several of them binder calls, so it's sampled off the calling
+ * thread into a snapshot and events read the latest snapshot. The snapshot is sampled again when connectivity or the
+ * configuration changes, and when it's older than its time to live. The battery state comes with its own broadcasts
+ * and is kept up to date without sampling.
+ * </p>
+ */
+class DeviceContextCache extends BroadcastReceiver {
+
+  /**
+   * The device state at one point in time.
+   */
+  static class Snapshot {
+    String orientation = "";
+    String carrier = "";
+    String cellularNetworkType = "";
+    boolean wifi;
+    String applicationState = "";
+  }
+
+  /**
+   * Queries the device state from the system services.
+   */
+  interface Sampler {
+    @NonNull
+    Snapshot sample();
+  }
+
+  private final Sampler sampler;
+  private final Executor executor;
+  private final long ttlNanos;
+  private final AtomicBoolean refreshQueued = new AtomicBoolean();
+  private final Runnable refresh = new Runnable() {
+    @Override
+    public void run() {
+      // changes from now on need another sample
+      refreshQueued.set(false);
+      refreshNow();
+    }
+  };
+
+  private volatile Snapshot snapshot = new Snapshot();
+  private volatile long sampledAt;
+  private volatile int batteryLevel = TelemetryEvent.NO_BATTERY_LEVEL;
+  private volatile boolean pluggedIn;
+
+  /**
+   * Creates a cache, empty until it's refreshed.
+   *
+   * @param sampler   the sampler of the device state
+   * @param executor  the executor sampling in the background
+   * @param ttlMillis the age after which a snapshot is sampled again
+   */
+  DeviceContextCache(@NonNull Sampler sampler, @NonNull Executor executor, long ttlMillis) {
+    this.sampler = sampler;
+    this.executor = executor;
+    this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    // expired until the first sample
+    sampledAt = System.nanoTime() - ttlNanos - 1;
+  }
+
+  /**
+   * Registers for the broadcasts updating the cache and takes the current battery state.
+   *
+   * @param context the application context
+   */
+  void register(@NonNull Context context) {
+    IntentFilter filter = new IntentFilter();
+    filter.addAction("android.net.conn.CONNECTIVITY_CHANGE");
+    filter.addAction(Intent.ACTION_CONFIGURATION_CHANGED);
+    context.registerReceiver(this, filter);
+
+    // the battery broadcast is sticky, the current state is returned right away
+    Intent batteryStatus = context.registerReceiver(this, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+    if (batteryStatus != null) {
+      onBatteryChanged(batteryStatus);
+    }
+  }
+
+  /**
+   * @see BroadcastReceiver#onReceive(Context, Intent)
+   */
+  @Override
+  public void onReceive(Context context, Intent intent) {
+    if (Intent.ACTION_BATTERY_CHANGED.equals(intent.getAction())) {
+      onBatteryChanged(intent);
+    } else {
+      refresh();
+    }
+  }
+
+  /**
+   * Returns the latest snapshot without querying any system service, sampling a new one in the background when it's
+   * expired.
+   *
+   * @return the snapshot
+   */
+  @NonNull
+  Snapshot get() {
+    if (System.nanoTime() - sampledAt > ttlNanos) {
+      refresh();
+    }
+    return snapshot;
+  }
+
+  int getBatteryLevel() {
+    return batteryLevel;
+  }
+
+  boolean isPluggedIn() {
+    return pluggedIn;
+  }
+
+  /**
+   * Samples a new snapshot in the background, merged with a sample that's already queued.
+   */
+  void refresh() {
+    if (refreshQueued.compareAndSet(false, true)) {
+      executor.execute(refresh);
+    }
+  }
+
+  /**
+   * Samples a new snapshot on the calling thread.
+   */
+  void refreshNow() {
+    try {
+      snapshot = sampler.sample();
+    } catch (RuntimeException exception) {
+      Timber.e("Error sampling the device state: ", exception);
+    }
+    // a failed sample isn't retried before the time to live passes
+    sampledAt = System.nanoTime();
+  }
+
+  void onBatteryChanged(@NonNull Intent batteryStatus) {
+    int level = batteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+    int scale = batteryStatus.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+    batteryLevel = Math.round((level / (float) scale) * 100);
+
+    // http://developer.android.com/reference/android/os/BatteryManager.html#EXTRA_PLUGGED
+    int chargePlug = batteryStatus.getIntExtra(BatteryManager.EXTRA_PLUGGED, -1);
+    pluggedIn = chargePlug == BatteryManager.BATTERY_PLUGGED_USB || chargePlug == BatteryManager.BATTERY_PLUGGED_AC;
+  }
+}
@@ -3,7 +3,6 @@ package com.mapbox.mapboxsdk.telemetry;
 import android.app.ActivityManager;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageInfo;
@@ -14,7 +13,6 @@ import android.location.Location;
 import android.net.wifi.WifiInfo;
 import android.net.wifi.WifiManager;
 import android.os.AsyncTask;
-import android.os.BatteryManager;
 import android.os.Build;
 import android.os.Handler;
 import android.support.annotation.NonNull;
@@ -25,28 +23,24 @@ import android.view.WindowManager;
 
 import com.mapbox.mapboxsdk.BuildConfig;
 import com.mapbox.mapboxsdk.Mapbox;
-import com.mapbox.mapboxsdk.constants.GeoConstants;
 import com.mapbox.mapboxsdk.constants.MapboxConstants;
 import com.mapbox.mapboxsdk.exceptions.TelemetryServiceNotConfiguredException;
 import com.mapbox.mapboxsdk.location.LocationServices;
-import com.mapbox.mapboxsdk.utils.MathUtils;
-
-import org.json.JSONArray;
-import org.json.JSONObject;
+import com.mapbox.mapboxsdk.net.ConnectivityListener;
+import com.mapbox.mapboxsdk.net.ConnectivityReceiver;
 
+import java.io.File;
+import java.io.IOException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Hashtable;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.UUID;
-import java.util.Vector;
 
 import okhttp3.CertificatePinner;
-import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
@@ -62,12 +56,11 @@ public class MapboxEventManager {
 
   private static MapboxEventManager mapboxEventManager = null;
 
-  private boolean initialized = false;
+  // read by the flush thread
+  private volatile boolean initialized = false;
   private boolean stagingEnv;
   private boolean telemetryEnabled;
 
-  private final Vector<Hashtable<String, Object>> events = new Vector<>();
-  private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
   private static SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ",
     MapboxConstants.MAPBOX_LOCALE);
 
@@ -77,7 +70,8 @@ public class MapboxEventManager {
 
   private String userAgent = BuildConfig.MAPBOX_EVENTS_USER_AGENT_BASE;
 
-  private Intent batteryStatus = null;
+  private DeviceContextCache deviceContext = null;
+  private static final long DEVICE_CONTEXT_TTL_IN_MILLIS = 1000 * 30;  // 30 Seconds
   private final String operatingSystem = "Android - " + Build.VERSION.RELEASE;
 
   private DisplayMetrics displayMetrics = null;
@@ -89,15 +83,36 @@ public class MapboxEventManager {
   private static long hourInMillis = 1000 * 60 * 60;
   private static long flushDelayInitialInMillis = 1000 * 10;  // 10 Seconds
   private static long flushDelayInMillis = 1000 * 60 * 3;  // 3 Minutes
+  private static long maxFlushDelayInMillis = 1000 * 60 * 30;  // 30 Minutes, while flushes fail
   private static final int SESSION_ID_ROTATION_HOURS = 24;
 
   private static final int FLUSH_EVENTS_CAP = 1000;
+  // events offered while the queue is full are dropped, this leaves room for a flush to catch up
+  private static final int EVENTS_QUEUE_CAPACITY = 2048;
+
+  private final TelemetryEventQueue events = new TelemetryEventQueue(EVENTS_QUEUE_CAPACITY);
+
+  // events that couldn't be sent are kept on disk until connectivity returns
+  private static final String SPOOL_DIRECTORY = "mapbox-telemetry";
+  private static final long SPOOL_MAX_BYTES = 1024 * 1024;
+  private static final long SPOOL_SEGMENT_BYTES = 64 * 1024;
+
+  private TelemetrySpool spool;
 
   private static MessageDigest messageDigest = null;
 
   private static final double locationEventAccuracy = 10000000;
 
-  private Timer timer = null;
+  private final TelemetryFlushScheduler flushScheduler = new TelemetryFlushScheduler(
+    new TelemetryFlushScheduler.FlushTask() {
+      @Override
+      public int flush() {
+        return flushEvents();
+      }
+    }, flushDelayInMillis, maxFlushDelayInMillis);
+
+  // only used on the flush thread
+  private OkHttpClient client;
 
   /**
    * Private Constructor for configuring the single instance per app.
@@ -139,6 +154,18 @@ public class MapboxEventManager {
     // Create Initial Session Id
     rotateSessionId();
 
+    // Pick up the events spooled by previous sessions and replay them once connected
+    spool = new TelemetrySpool(new File(this.context.getFilesDir(), SPOOL_DIRECTORY), SPOOL_MAX_BYTES,
+      SPOOL_SEGMENT_BYTES);
+    ConnectivityReceiver.instance(this.context).addListener(new ConnectivityListener() {
+      @Override
+      public void onNetworkStateChanged(boolean connected) {
+        if (connected && telemetryEnabled) {
+          flushEventsQueueImmediately();
+        }
+      }
+    });
+
     SharedPreferences prefs = context.getSharedPreferences(MapboxConstants.MAPBOX_SHARED_PREFERENCES_FILE,
       Context.MODE_PRIVATE);
 
@@ -194,9 +221,17 @@ public class MapboxEventManager {
       //Timber.e("Error Trying to load Staging Credentials: ", exception);
     }
 
-    // Register for battery updates
-    IntentFilter iFilter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
-    batteryStatus = context.registerReceiver(null, iFilter);
+    // Sample the device state added to events in the background, kept up to date by broadcasts
+    deviceContext = new DeviceContextCache(new DeviceContextCache.Sampler() {
+      @NonNull
+      @Override
+      public DeviceContextCache.Snapshot sample() {
+        return sampleDeviceContext();
+      }
+    }, AsyncTask.THREAD_POOL_EXECUTOR, DEVICE_CONTEXT_TTL_IN_MILLIS);
+    deviceContext.register(this.context);
+    // Sample once right away so the map load event comes with the device state
+    deviceContext.refreshNow();
 
     initialized = true;
   }
@@ -291,19 +326,16 @@ public class MapboxEventManager {
         permsHandler.postDelayed(runnable, 1000 * 10);
       }
 
-      // Manage Timer Flush
-      timer = new Timer();
-      timer.schedule(new FlushEventsTimerTask(), flushDelayInitialInMillis, flushDelayInMillis);
+      // Manage Periodic Flush
+      flushScheduler.start(flushDelayInitialInMillis);
     } else {
       //Timber.d("Shutting Telemetry Down");
       // Shut It Down
-      events.removeAllElements();
+      events.clear();
+      spool.clear();
       context.stopService(new Intent(context, TelemetryService.class));
 
-      if (timer != null) {
-        timer.cancel();
-        timer = null;
-      }
+      flushScheduler.stop();
     }
 
     // Persist
@@ -323,7 +355,7 @@ public class MapboxEventManager {
    */
   void flushEventsQueueImmediately() {
     //Timber.i("flushEventsQueueImmediately() called...");
-    new FlushTheEventsTask().execute();
+    flushScheduler.requestFlush();
   }
 
   /**
@@ -331,12 +363,13 @@ public class MapboxEventManager {
    *
    * @param event Event to add to the Events Queue
    */
-  private void putEventOnQueue(@NonNull Hashtable<String, Object> event) {
-    if (event == null) {
+  private void putEventOnQueue(@NonNull TelemetryEvent event) {
+    if (!events.offer(event)) {
+      // the queue is full, the event is dropped and counted by the queue
       return;
     }
-    events.add(event);
-    if (events.size() == FLUSH_EVENTS_CAP) {
+    // other producers may add events between the offer and this check, the size can step over the cap
+    if (events.size() >= FLUSH_EVENTS_CAP) {
       //Timber.d("eventsSize == flushCap so send data.");
       flushEventsQueueImmediately();
     }
@@ -361,19 +394,15 @@ public class MapboxEventManager {
     }
 
     // Add Location even to queue
-    Hashtable<String, Object> event = new Hashtable<>();
-    event.put(MapboxEvent.ATTRIBUTE_EVENT, MapboxEvent.TYPE_LOCATION);
-    event.put(MapboxEvent.ATTRIBUTE_CREATED, generateCreateDate());
-    event.put(MapboxEvent.ATTRIBUTE_SOURCE, MapboxEvent.SOURCE_MAPBOX);
-    event.put(MapboxEvent.ATTRIBUTE_SESSION_ID, encodeString(mapboxSessionId));
-    event.put(MapboxEvent.KEY_LATITUDE,
-      Math.floor(location.getLatitude() * locationEventAccuracy) / locationEventAccuracy);
-    event.put(MapboxEvent.KEY_LONGITUDE,
-      Math.floor(location.getLongitude() * locationEventAccuracy) / locationEventAccuracy);
-    event.put(MapboxEvent.KEY_ALTITUDE, location.getAltitude());
-    event.put(MapboxEvent.KEY_HORIZONTAL_ACCURACY, Math.round(location.getAccuracy()));
-    event.put(MapboxEvent.ATTRIBUTE_OPERATING_SYSTEM, operatingSystem);
-    event.put(MapboxEvent.ATTRIBUTE_APPLICATION_STATE, getApplicationState());
+    TelemetryEvent event = new TelemetryEvent(MapboxEvent.TYPE_LOCATION);
+    event.created = generateCreateDate();
+    event.source = MapboxEvent.SOURCE_MAPBOX;
+    event.sessionId = encodeString(mapboxSessionId);
+    event.latitude = Math.floor(location.getLatitude() * locationEventAccuracy) / locationEventAccuracy;
+    event.longitude = Math.floor(location.getLongitude() * locationEventAccuracy) / locationEventAccuracy;
+    event.altitude = location.getAltitude();
+    event.operatingSystem = operatingSystem;
+    event.applicationState = deviceContext.get().applicationState;
 
     putEventOnQueue(event);
 
@@ -399,22 +428,18 @@ public class MapboxEventManager {
       return;
     }
 
+    TelemetryEvent event = TelemetryEvent.fromAttributes(eventWithAttributes);
     if (eventType.equalsIgnoreCase(MapboxEvent.TYPE_MAP_LOAD)) {
       // Map Load Data Model
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_USERID, mapboxVendorId);
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_MODEL, Build.MODEL);
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_OPERATING_SYSTEM, operatingSystem);
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_RESOLUTION, displayMetrics.density);
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_ACCESSIBILITY_FONT_SCALE, getAccesibilityFontScaleSize());
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_ORIENTATION, getOrientation());
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_BATTERY_LEVEL, getBatteryLevel());
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_PLUGGED_IN, isPluggedIn());
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_CARRIER, getCellularCarrier());
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_CELLULAR_NETWORK_TYPE, getCellularNetworkType());
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_WIFI, getConnectedToWifi());
-
-      // Put Map Load on events before Turnstile clears it
-      putEventOnQueue(eventWithAttributes);
+      event.userId = mapboxVendorId;
+      event.model = Build.MODEL;
+      event.operatingSystem = operatingSystem;
+      event.resolution = displayMetrics.density;
+      event.accessibilityFontScale = getAccesibilityFontScaleSize();
+      addDeviceState(event);
+
+      // Put Map Load on events before the Turnstile
+      putEventOnQueue(event);
 
       // Turnstile
       pushTurnstileEvent();
@@ -422,26 +447,41 @@ public class MapboxEventManager {
       // Return immediately to avoid double adding of event
       return;
 
-    } else if (eventType.equalsIgnoreCase(MapboxEvent.TYPE_MAP_CLICK)) {
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_ORIENTATION, getOrientation());
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_BATTERY_LEVEL, getBatteryLevel());
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_PLUGGED_IN, isPluggedIn());
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_CARRIER, getCellularCarrier());
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_CELLULAR_NETWORK_TYPE, getCellularNetworkType());
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_WIFI, getConnectedToWifi());
-    } else if (eventType.equalsIgnoreCase(MapboxEvent.TYPE_MAP_DRAGEND)) {
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_ORIENTATION, getOrientation());
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_BATTERY_LEVEL, getBatteryLevel());
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_PLUGGED_IN, isPluggedIn());
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_CARRIER, getCellularCarrier());
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_CELLULAR_NETWORK_TYPE, getCellularNetworkType());
-      eventWithAttributes.put(MapboxEvent.ATTRIBUTE_WIFI, getConnectedToWifi());
+    } else if (eventType.equalsIgnoreCase(MapboxEvent.TYPE_MAP_CLICK)
+      || eventType.equalsIgnoreCase(MapboxEvent.TYPE_MAP_DRAGEND)) {
+      addDeviceState(event);
     } else {
       //Timber.w("This is not an event type in the Events Data Model.");
       return;
     }
 
-    putEventOnQueue(eventWithAttributes);
+    putEventOnQueue(event);
+  }
+
+  private void addDeviceState(TelemetryEvent event) {
+    // Cached, adding the state doesn't query any system service
+    DeviceContextCache.Snapshot state = deviceContext.get();
+    event.orientation = state.orientation;
+    event.batteryLevel = deviceContext.getBatteryLevel();
+    event.pluggedIn = deviceContext.isPluggedIn();
+    event.carrier = state.carrier;
+    event.cellularNetworkType = state.cellularNetworkType;
+    event.wifi = state.wifi;
+  }
+
+  /**
+   * Queries the device state from the system services, called in the background by the device context cache.
+   *
+   * @return the device state
+   */
+  private DeviceContextCache.Snapshot sampleDeviceContext() {
+    DeviceContextCache.Snapshot state = new DeviceContextCache.Snapshot();
+    state.orientation = getOrientation();
+    state.carrier = getCellularCarrier();
+    state.cellularNetworkType = getCellularNetworkType();
+    state.wifi = getConnectedToWifi();
+    state.applicationState = getApplicationState();
+    return state;
   }
 
   /**
@@ -449,13 +489,12 @@ public class MapboxEventManager {
    */
   private void pushTurnstileEvent() {
 
-    Hashtable<String, Object> event = new Hashtable<>();
-    event.put(MapboxEvent.ATTRIBUTE_EVENT, MapboxEvent.TYPE_TURNSTILE);
-    event.put(MapboxEvent.ATTRIBUTE_CREATED, generateCreateDate());
-    event.put(MapboxEvent.ATTRIBUTE_USERID, mapboxVendorId);
-    event.put(MapboxEvent.ATTRIBUTE_ENABLED_TELEMETRY, telemetryEnabled);
+    TelemetryEvent event = new TelemetryEvent(MapboxEvent.TYPE_TURNSTILE);
+    event.created = generateCreateDate();
+    event.userId = mapboxVendorId;
+    event.enabledTelemetry = telemetryEnabled;
 
-    events.add(event);
+    events.offer(event);
 
     // Send to Server Immediately
     flushEventsQueueImmediately();
@@ -513,30 +552,6 @@ public class MapboxEventManager {
     }
   }
 
-  private int getBatteryLevel() {
-    int level = batteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
-    int scale = batteryStatus.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
-
-    return Math.round((level / (float) scale) * 100);
-  }
-
-  /**
-   * Determine if device is plugged in to power via USB or AC or not.
-   * <p>
-   * http://developer.android.com/reference/android/os/BatteryManager.html#EXTRA_PLUGGED
-   *
-   * @return true if plugged in, false if not
-   */
-  private boolean isPluggedIn() {
-
-    int chargePlug = batteryStatus.getIntExtra(BatteryManager.EXTRA_PLUGGED, -1);
-    if (chargePlug == BatteryManager.BATTERY_PLUGGED_USB || chargePlug == BatteryManager.BATTERY_PLUGGED_AC) {
-      return true;
-    }
-
-    return false;
-  }
-
   private String getApplicationState() {
 
     ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
@@ -634,175 +649,127 @@ public class MapboxEventManager {
 
 
   /**
-   * Task responsible for converting stored events and sending them to the server
+   * Converts stored events and sends them to the server, run by the flush scheduler on its thread.
+   *
+   * @return the outcome of the flush, one of the TelemetryFlushScheduler results
    */
-  private class FlushTheEventsTask extends AsyncTask<Void, Void, Void> {
+  private int flushEvents() {
+    if (!initialized) {
+      return TelemetryFlushScheduler.RESULT_IDLE;
+    }
 
-    @Override
-    protected Void doInBackground(Void... voids) {
+    // Take the events over from the queue, events added while sending stay queued for the next flush
+    List<TelemetryEvent> batch = new ArrayList<>(events.size());
+    events.drain(batch, Integer.MAX_VALUE);
+
+    // Check for NetworkConnectivity
+    if (!Mapbox.isConnected()) {
+      //Timber.w("Not connected to network, so spool the events and return without attempting to send events");
+      // Make sure that events don't pile up in memory when Offline,
+      // the spool keeps them on disk until connectivity returns.
+      spool.append(batch);
+      return TelemetryFlushScheduler.RESULT_FAILED;
+    }
 
-      if (events.isEmpty()) {
-        //Timber.d("No events in the queue to send so returning.");
-        return null;
-      }
+    List<File> segments = spool.seal();
+    if (batch.isEmpty() && segments.isEmpty()) {
+      //Timber.d("No events in the queue to send so returning.");
+      return TelemetryFlushScheduler.RESULT_IDLE;
+    }
 
-      // Check for NetworkConnectivity
-      if (!Mapbox.isConnected()) {
-        //Timber.w("Not connected to network, so empty events cache and return without attempting to send events");
-        // Make sure that events don't pile up when Offline
-        // and thus impact available memory over time.
-        events.removeAllElements();
-        return null;
+    boolean sent = false;
+    try {
+      // Send data
+      // =========
+      OkHttpClient client = getClient();
+
+      // Replay spooled events first, oldest first, and stop at the first failure to keep their order
+      for (File segment : segments) {
+        if (!postEvents(client, TelemetrySpool.createRequestBody(segment))) {
+          return TelemetryFlushScheduler.RESULT_FAILED;
+        }
+        spool.delete(segment);
       }
 
-      Response response = null;
-
-      try {
-        // Send data
-        // =========
-        JSONArray jsonArray = new JSONArray();
-
-        Vector<Hashtable<String, Object>> eventsClone = (Vector<Hashtable<String, Object>>) events.clone();
-
-        for (Hashtable<String, Object> evt : eventsClone) {
-          JSONObject jsonObject = new JSONObject();
-
-          // Build the JSON but only if there's a value for it in the evt
-          jsonObject.putOpt(MapboxEvent.ATTRIBUTE_EVENT, evt.get(MapboxEvent.ATTRIBUTE_EVENT));
-          jsonObject.putOpt(MapboxEvent.ATTRIBUTE_CREATED, evt.get(MapboxEvent.ATTRIBUTE_CREATED));
-          jsonObject.putOpt(MapboxEvent.ATTRIBUTE_USERID, evt.get(MapboxEvent.ATTRIBUTE_USERID));
-          jsonObject.putOpt(MapboxEvent.ATTRIBUTE_ENABLED_TELEMETRY, evt.get(MapboxEvent.ATTRIBUTE_ENABLED_TELEMETRY));
-          jsonObject.putOpt(MapboxEvent.ATTRIBUTE_SOURCE, evt.get(MapboxEvent.ATTRIBUTE_SOURCE));
-          jsonObject.putOpt(MapboxEvent.ATTRIBUTE_SESSION_ID, evt.get(MapboxEvent.ATTRIBUTE_SESSION_ID));
-          jsonObject.putOpt(MapboxEvent.KEY_LATITUDE, evt.get(MapboxEvent.KEY_LATITUDE));
-
-          // Make sure Longitude Is Wrapped
-          if (evt.containsKey(MapboxEvent.KEY_LONGITUDE)) {
-            double lon = (double) evt.get(MapboxEvent.KEY_LONGITUDE);
-            if ((lon < GeoConstants.MIN_LONGITUDE) || (lon > GeoConstants.MAX_LONGITUDE)) {
-              lon = MathUtils.wrap(lon, GeoConstants.MIN_LONGITUDE, GeoConstants.MAX_LONGITUDE);
-            }
-            jsonObject.put(MapboxEvent.KEY_LONGITUDE, lon);
-          }
-
-          jsonObject.putOpt(MapboxEvent.KEY_ALTITUDE, evt.get(MapboxEvent.KEY_ALTITUDE));
-          jsonObject.putOpt(MapboxEvent.KEY_ZOOM, evt.get(MapboxEvent.KEY_ZOOM));
-          jsonObject.putOpt(MapboxEvent.ATTRIBUTE_OPERATING_SYSTEM, evt.get(MapboxEvent.ATTRIBUTE_OPERATING_SYSTEM));
-          jsonObject.putOpt(MapboxEvent.ATTRIBUTE_USERID, evt.get(MapboxEvent.ATTRIBUTE_USERID));
-          jsonObject.putOpt(MapboxEvent.ATTRIBUTE_MODEL, evt.get(MapboxEvent.ATTRIBUTE_MODEL));
-          jsonObject.putOpt(MapboxEvent.ATTRIBUTE_RESOLUTION, evt.get(MapboxEvent.ATTRIBUTE_RESOLUTION));
-          jsonObject.putOpt(MapboxEvent.ATTRIBUTE_ACCESSIBILITY_FONT_SCALE,
-            evt.get(MapboxEvent.ATTRIBUTE_ACCESSIBILITY_FONT_SCALE));
-          jsonObject.putOpt(MapboxEvent.ATTRIBUTE_BATTERY_LEVEL, evt.get(MapboxEvent.ATTRIBUTE_BATTERY_LEVEL));
-          jsonObject.putOpt(MapboxEvent.ATTRIBUTE_PLUGGED_IN, evt.get(MapboxEvent.ATTRIBUTE_PLUGGED_IN));
-          jsonObject.putOpt(MapboxEvent.ATTRIBUTE_WIFI, evt.get(MapboxEvent.ATTRIBUTE_WIFI));
-
-          // Special Cases where empty string is denoting null and therefore should not be sent at all
-          // This arises as thread safe Hashtable does not accept null values (nor keys)
-          if (evt.containsKey(MapboxEvent.ATTRIBUTE_ORIENTATION)) {
-            String orientation = (String) evt.get(MapboxEvent.ATTRIBUTE_ORIENTATION);
-            if (!TextUtils.isEmpty(orientation)) {
-              jsonObject.putOpt(MapboxEvent.ATTRIBUTE_ORIENTATION, orientation);
-            }
-          }
-          if (evt.containsKey(MapboxEvent.ATTRIBUTE_CARRIER)) {
-            String carrier = (String) evt.get(MapboxEvent.ATTRIBUTE_CARRIER);
-            if (!TextUtils.isEmpty(carrier)) {
-              jsonObject.putOpt(MapboxEvent.ATTRIBUTE_CARRIER, carrier);
-            }
-          }
-          if (evt.containsKey(MapboxEvent.ATTRIBUTE_APPLICATION_STATE)) {
-            String appState = (String) evt.get(MapboxEvent.ATTRIBUTE_APPLICATION_STATE);
-            if (!TextUtils.isEmpty(appState)) {
-              jsonObject.putOpt(MapboxEvent.ATTRIBUTE_APPLICATION_STATE,
-                evt.get(MapboxEvent.ATTRIBUTE_APPLICATION_STATE));
-            }
-          }
-
-          // Special Cases where null has to be passed if no value exists
-          // Requires using put() instead of putOpt()
-          String eventType = (String) evt.get(MapboxEvent.ATTRIBUTE_EVENT);
-          if (!TextUtils.isEmpty(eventType) && eventType.equalsIgnoreCase(MapboxEvent.TYPE_MAP_CLICK)) {
-            jsonObject.put(MapboxEvent.KEY_GESTURE_ID, evt.get(MapboxEvent.KEY_GESTURE_ID));
-          }
-          if (evt.containsKey(MapboxEvent.ATTRIBUTE_CELLULAR_NETWORK_TYPE)) {
-            String cellularNetworkType = (String) evt.get(MapboxEvent.ATTRIBUTE_CELLULAR_NETWORK_TYPE);
-            if (TextUtils.isEmpty(cellularNetworkType)) {
-              jsonObject.put(MapboxEvent.ATTRIBUTE_CELLULAR_NETWORK_TYPE, null);
-            } else {
-              jsonObject.put(MapboxEvent.ATTRIBUTE_CELLULAR_NETWORK_TYPE,
-                evt.get(MapboxEvent.ATTRIBUTE_CELLULAR_NETWORK_TYPE));
-            }
-          }
-
-          jsonArray.put(jsonObject);
-        }
+      // The events are written as JSON while the request is sent
+      sent = batch.isEmpty() || postEvents(client, new TelemetryRequestBody(batch));
 
-        // Based on http://square.github.io/okhttp/3.x/okhttp/okhttp3/CertificatePinner.html
-        CertificatePinner.Builder certificatePinnerBuilder = new CertificatePinner.Builder();
-        if (stagingEnv) {
-          // Staging - Geotrust
-          certificatePinnerBuilder
-            .add("cloudfront-staging.tilestream.net", "sha256/3euxrJOrEZI15R4104UsiAkDqe007EPyZ6eTL/XxdAY=")
-            .add("cloudfront-staging.tilestream.net", "sha256/5kJvNEMw0KjrCAu7eXY5HZdvyCS13BbA0VJG1RSP91w=")
-            .add("cloudfront-staging.tilestream.net", "sha256/r/mIkG3eEpVdm+u/ko/cwxzOMo1bk4TyHIlByibiA5E=");
-        } else {
-          certificatePinnerBuilder
-            // Prod - Geotrust
-            .add("events.mapbox.com", "sha256/BhynraKizavqoC5U26qgYuxLZst6pCu9J5stfL6RSYY=")
-            .add("events.mapbox.com", "sha256/owrR9U9FWDWtrFF+myoRIu75JwU4sJwzvhCNLZoY37g=")
-            .add("events.mapbox.com", "sha256/SQVGZiOrQXi+kqxcvWWE96HhfydlLVqFr4lQTqI5qqo=")
-            // Prod - DigiCert
-            .add("events.mapbox.com", "sha256/Tb0uHZ/KQjWh8N9+CZFLc4zx36LONQ55l6laDi1qtT4=")
-            .add("events.mapbox.com", "sha256/RRM1dGqnDFsCJXBTHky16vi1obOlCgFFn/yOhI/y+ho=")
-            .add("events.mapbox.com", "sha256/WoiWRyIOVNa9ihaBciRSC7XHjliYS9VwUGOIud4PB18=");
-        }
+    } catch (Exception exception) {
+      Timber.e("Flushing the events borked: ", exception);
+    } finally {
+      if (!sent) {
+        // Keep the events for the next flush
+        spool.append(batch);
+      }
+    }
 
-        OkHttpClient client = new OkHttpClient.Builder()
-          .certificatePinner(certificatePinnerBuilder.build())
-          .addInterceptor(new GzipRequestInterceptor())
-          .build();
-        RequestBody body = RequestBody.create(JSON, jsonArray.toString());
+    return sent ? TelemetryFlushScheduler.RESULT_SENT : TelemetryFlushScheduler.RESULT_FAILED;
+  }
 
-        String url = eventsURL + "/events/v2?access_token=" + accessToken;
+  /**
+   * Posts events to the server.
+   *
+   * @return true if the server took the events or rejected them for good, false if they should be sent again
+   */
+  private boolean postEvents(OkHttpClient client, RequestBody body) {
+    String url = eventsURL + "/events/v2?access_token=" + accessToken;
 
-        Request request = new Request.Builder()
-          .url(url)
-          .header("User-Agent", userAgent)
-          .post(body)
-          .build();
-        response = client.newCall(request).execute();
-        //Timber.d("response code = " + response.code() + " for events " + events.size());
+    Request request = new Request.Builder()
+      .url(url)
+      .header("User-Agent", userAgent)
+      .post(body)
+      .build();
 
-      } catch (Exception exception) {
-        Timber.e("FlushTheEventsTask borked: ", exception);
-      } finally {
-        if (response != null && response.body() != null) {
-          response.body().close();
-        }
-        // Reset Events
-        // ============
-        events.removeAllElements();
+    Response response = null;
+    try {
+      response = client.newCall(request).execute();
+      //Timber.d("response code = " + response.code());
+      // Server errors and rate limiting are temporary, other rejections would fail again
+      return response.code() < 500 && response.code() != 429;
+    } catch (IOException exception) {
+      Timber.e("Sending telemetry events failed: ", exception);
+      return false;
+    } finally {
+      if (response != null && response.body() != null) {
+        response.body().close();
       }
-
-      return null;
     }
-
   }
 
-
   /**
-   * TimerTask responsible for sending event data to server
+   * Returns the client posting events, created with the first flush and reused for all following ones so they share
+   * its connection pool.
+   *
+   * @return the client
    */
-  private class FlushEventsTimerTask extends TimerTask {
-    /**
-     * The task to run should be specified in the implementation of the {@code run()}
-     * method.
-     */
-    @Override
-    public void run() {
-      new FlushTheEventsTask().execute();
+  private OkHttpClient getClient() {
+    if (client == null) {
+      // Based on http://square.github.io/okhttp/3.x/okhttp/okhttp3/CertificatePinner.html
+      CertificatePinner.Builder certificatePinnerBuilder = new CertificatePinner.Builder();
+      if (stagingEnv) {
+        // Staging - Geotrust
+        certificatePinnerBuilder
+          .add("cloudfront-staging.tilestream.net", "sha256/3euxrJOrEZI15R4104UsiAkDqe007EPyZ6eTL/XxdAY=")
+          .add("cloudfront-staging.tilestream.net", "sha256/5kJvNEMw0KjrCAu7eXY5HZdvyCS13BbA0VJG1RSP91w=")
+          .add("cloudfront-staging.tilestream.net", "sha256/r/mIkG3eEpVdm+u/ko/cwxzOMo1bk4TyHIlByibiA5E=");
+      } else {
+        certificatePinnerBuilder
+          // Prod - Geotrust
+          .add("events.mapbox.com", "sha256/BhynraKizavqoC5U26qgYuxLZst6pCu9J5stfL6RSYY=")
+          .add("events.mapbox.com", "sha256/owrR9U9FWDWtrFF+myoRIu75JwU4sJwzvhCNLZoY37g=")
+          .add("events.mapbox.com", "sha256/SQVGZiOrQXi+kqxcvWWE96HhfydlLVqFr4lQTqI5qqo=")
+          // Prod - DigiCert
+          .add("events.mapbox.com", "sha256/Tb0uHZ/KQjWh8N9+CZFLc4zx36LONQ55l6laDi1qtT4=")
+          .add("events.mapbox.com", "sha256/RRM1dGqnDFsCJXBTHky16vi1obOlCgFFn/yOhI/y+ho=")
+          .add("events.mapbox.com", "sha256/WoiWRyIOVNa9ihaBciRSC7XHjliYS9VwUGOIud4PB18=");
+      }
+
+      client = new OkHttpClient.Builder()
+        .certificatePinner(certificatePinnerBuilder.build())
+        .addInterceptor(new GzipRequestInterceptor())
+        .build();
     }
+    return client;
   }
 
   private String getApplicationIdentifier() {
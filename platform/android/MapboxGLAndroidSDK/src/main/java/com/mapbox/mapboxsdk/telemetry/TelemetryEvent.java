@@ -0,0 +1,83 @@
+package com.mapbox.mapboxsdk.telemetry;
+
+import android.support.annotation.NonNull;
+
+import java.util.Map;
+
+/**
+ * A telemetry event waiting to be sent.
+ * <p>
+ * Attributes are stored in typed fields instead of a map of boxed values. Absent attributes are null, or NaN for
+ * coordinates, zoom and display attributes, or {@link #NO_BATTERY_LEVEL} for the battery level.
+ * </p>
+ */
+class TelemetryEvent {
+
+  static final int NO_BATTERY_LEVEL = Integer.MIN_VALUE;
+
+  final String type;
+  String created;
+  String userId;
+  String source;
+  String sessionId;
+  Boolean enabledTelemetry;
+  double latitude = Double.NaN;
+  double longitude = Double.NaN;
+  double altitude = Double.NaN;
+  double zoom = Double.NaN;
+  String gesture;
+  String operatingSystem;
+  String model;
+  float resolution = Float.NaN;
+  float accessibilityFontScale = Float.NaN;
+  String orientation;
+  int batteryLevel = NO_BATTERY_LEVEL;
+  Boolean pluggedIn;
+  String carrier;
+  String cellularNetworkType;
+  Boolean wifi;
+  String applicationState;
+
+  TelemetryEvent(@NonNull String type) {
+    this.type = type;
+  }
+
+  /**
+   * Creates an event from the attributes passed to {@link MapboxEventManager#pushEvent(java.util.Hashtable)}.
+   *
+   * @param attributes the attributes keyed by the MapboxEvent constants, containing at least the event type
+   * @return the event
+   */
+  static TelemetryEvent fromAttributes(@NonNull Map<String, Object> attributes) {
+    TelemetryEvent event = new TelemetryEvent((String) attributes.get(MapboxEvent.ATTRIBUTE_EVENT));
+    event.created = (String) attributes.get(MapboxEvent.ATTRIBUTE_CREATED);
+    event.userId = (String) attributes.get(MapboxEvent.ATTRIBUTE_USERID);
+    event.source = (String) attributes.get(MapboxEvent.ATTRIBUTE_SOURCE);
+    event.sessionId = (String) attributes.get(MapboxEvent.ATTRIBUTE_SESSION_ID);
+    event.enabledTelemetry = (Boolean) attributes.get(MapboxEvent.ATTRIBUTE_ENABLED_TELEMETRY);
+    event.latitude = doubleValue(attributes.get(MapboxEvent.KEY_LATITUDE));
+    event.longitude = doubleValue(attributes.get(MapboxEvent.KEY_LONGITUDE));
+    event.altitude = doubleValue(attributes.get(MapboxEvent.KEY_ALTITUDE));
+    event.zoom = doubleValue(attributes.get(MapboxEvent.KEY_ZOOM));
+    event.gesture = (String) attributes.get(MapboxEvent.KEY_GESTURE_ID);
+    event.operatingSystem = (String) attributes.get(MapboxEvent.ATTRIBUTE_OPERATING_SYSTEM);
+    event.model = (String) attributes.get(MapboxEvent.ATTRIBUTE_MODEL);
+    event.resolution = (float) doubleValue(attributes.get(MapboxEvent.ATTRIBUTE_RESOLUTION));
+    event.accessibilityFontScale = (float) doubleValue(attributes.get(MapboxEvent.ATTRIBUTE_ACCESSIBILITY_FONT_SCALE));
+    event.orientation = (String) attributes.get(MapboxEvent.ATTRIBUTE_ORIENTATION);
+    Object batteryLevel = attributes.get(MapboxEvent.ATTRIBUTE_BATTERY_LEVEL);
+    if (batteryLevel instanceof Number) {
+      event.batteryLevel = ((Number) batteryLevel).intValue();
+    }
+    event.pluggedIn = (Boolean) attributes.get(MapboxEvent.ATTRIBUTE_PLUGGED_IN);
+    event.carrier = (String) attributes.get(MapboxEvent.ATTRIBUTE_CARRIER);
+    event.cellularNetworkType = (String) attributes.get(MapboxEvent.ATTRIBUTE_CELLULAR_NETWORK_TYPE);
+    event.wifi = (Boolean) attributes.get(MapboxEvent.ATTRIBUTE_WIFI);
+    event.applicationState = (String) attributes.get(MapboxEvent.ATTRIBUTE_APPLICATION_STATE);
+    return event;
+  }
+
+  private static double doubleValue(Object value) {
+    return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+  }
+}
@@ -0,0 +1,147 @@
+package com.mapbox.mapboxsdk.telemetry;
+
+import android.support.annotation.NonNull;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded queue of telemetry events with many producers and a single consumer.
+ * <p>
+ * Events are stored in a ring of slots, each with a sequence number telling whether it's free or holds an event.
+ * Producers claim a slot with a compare-and-set on the tail and publish the event by advancing the sequence of the
+ * slot, they never block nor lock. The consumer takes published events in order and frees their slots.
+ * </p>
+ * <p>
+ * When the queue is full new events are rejected and counted by {@link #getDroppedCount()}, events already queued
+ * are kept. {@link #drain(Collection, int)} hands every event over exactly once: an event is either returned by a
+ * drain or still queued, events offered while a flush is sending are left for the next drain.
+ * </p>
+ */
+class TelemetryEventQueue {
+
+  private final int capacity;
+  private final int mask;
+  private final TelemetryEvent[] slots;
+  // slot i is free for position p when its sequence is p, and holds the event of position p when it's p + 1
+  private final AtomicLongArray sequences;
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  // only written by the consumer
+  private volatile long head;
+
+  /**
+   * Creates a queue.
+   *
+   * @param capacity the maximum amount of queued events, rounded up to a power of two
+   */
+  TelemetryEventQueue(int capacity) {
+    if (capacity < 1 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("capacity out of range: " + capacity);
+    }
+    int rounded = 1;
+    while (rounded < capacity) {
+      rounded <<= 1;
+    }
+    this.capacity = rounded;
+    mask = rounded - 1;
+    slots = new TelemetryEvent[this.capacity];
+    sequences = new AtomicLongArray(this.capacity);
+    for (int i = 0; i < this.capacity; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  /**
+   * Adds an event, safe to call from any thread.
+   *
+   * @param event the event to add
+   * @return true if the event was queued, false if the queue is full and the event was dropped
+   */
+  boolean offer(@NonNull TelemetryEvent event) {
+    while (true) {
+      long position = tail.get();
+      int index = (int) position & mask;
+      long available = sequences.get(index) - position;
+      if (available == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          slots[index] = event;
+          // publishes the event to the consumer
+          sequences.set(index, position + 1);
+          return true;
+        }
+      } else if (available < 0) {
+        // the slot still holds the event of the previous lap
+        dropped.incrementAndGet();
+        return false;
+      }
+      // another producer claimed the position, retry with the new tail
+    }
+  }
+
+  /**
+   * Moves queued events to a collection, in the order they were offered.
+   *
+   * @param destination the collection to add the events to
+   * @param maxEvents   the maximum amount of events to move
+   * @return the amount of events moved
+   */
+  int drain(@NonNull Collection<? super TelemetryEvent> destination, int maxEvents) {
+    return take(destination, maxEvents);
+  }
+
+  /**
+   * Removes every queued event.
+   *
+   * @return the amount of events removed
+   */
+  int clear() {
+    return take(null, Integer.MAX_VALUE);
+  }
+
+  // the lock only serializes consumers, producers never take it
+  private synchronized int take(Collection<? super TelemetryEvent> destination, int maxEvents) {
+    long position = head;
+    int count = 0;
+    while (count < maxEvents) {
+      int index = (int) position & mask;
+      if (sequences.get(index) != position + 1) {
+        // empty, or the producer of this position hasn't published its event yet
+        break;
+      }
+      if (destination != null) {
+        destination.add(slots[index]);
+      }
+      slots[index] = null;
+      // frees the slot for the next lap
+      sequences.set(index, position + capacity);
+      position++;
+      count++;
+    }
+    head = position;
+    return count;
+  }
+
+  /**
+   * Returns the amount of queued events, an estimate while events are being offered or drained.
+   *
+   * @return the amount of events
+   */
+  int size() {
+    long size = tail.get() - head;
+    return (int) Math.max(0, Math.min(capacity, size));
+  }
+
+  boolean isEmpty() {
+    return size() == 0;
+  }
+
+  int getCapacity() {
+    return capacity;
+  }
+
+  long getDroppedCount() {
+    return dropped.get();
+  }
+}
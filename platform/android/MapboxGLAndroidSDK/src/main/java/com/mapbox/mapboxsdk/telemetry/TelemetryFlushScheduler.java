@@ -0,0 +1,190 @@
+package com.mapbox.mapboxsdk.telemetry;
+
+import android.support.annotation.NonNull;
+
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import timber.log.Timber;
+
+/**
+ * Runs telemetry flushes on a single background thread.
+ * <p>
+ * Flushes are requested when events pile up and run periodically. Only one flush runs at a time, requests arriving
+ * while a flush is queued are merged into it and requests arriving while a flush runs are merged into a single
+ * follow-up flush.
+ * </p>
+ * <p>
+ * The periodic interval adapts to the outcome of the last flush: it's reset to the base interval when the events
+ * went out and doubles up to a maximum while flushes fail, so an offline device or a failing server isn't polled at
+ * full rate. Each delay is jittered so devices don't flush in lockstep.
+ * </p>
+ */
+class TelemetryFlushScheduler {
+
+  /**
+   * Events were sent.
+   */
+  static final int RESULT_SENT = 0;
+  /**
+   * There were no events to send.
+   */
+  static final int RESULT_IDLE = 1;
+  /**
+   * Events couldn't be sent and were kept for a later flush.
+   */
+  static final int RESULT_FAILED = 2;
+
+  /**
+   * Sends the queued events, called on the flush thread.
+   */
+  interface FlushTask {
+
+    /**
+     * @return one of {@link #RESULT_SENT}, {@link #RESULT_IDLE} or {@link #RESULT_FAILED}
+     */
+    int flush();
+  }
+
+  // each delay is moved by up to this fraction of the interval, earlier or later
+  private static final double JITTER = 0.2;
+
+  private final FlushTask task;
+  private final long baseIntervalMillis;
+  private final long maxIntervalMillis;
+  private final Random random = new Random();
+  private final AtomicBoolean flushQueued = new AtomicBoolean();
+  private final Runnable flushRunnable = new Runnable() {
+    @Override
+    public void run() {
+      runFlush();
+    }
+  };
+
+  private ScheduledThreadPoolExecutor executor;
+  private ScheduledFuture<?> periodicFlush;
+  private boolean started;
+  // reset by start, adapted after each flush
+  private volatile long intervalMillis;
+
+  /**
+   * Creates a scheduler, its thread is started with the first flush.
+   *
+   * @param task               the flush to run
+   * @param baseIntervalMillis the periodic interval while flushes succeed
+   * @param maxIntervalMillis  the longest periodic interval while flushes fail
+   */
+  TelemetryFlushScheduler(@NonNull FlushTask task, long baseIntervalMillis, long maxIntervalMillis) {
+    this.task = task;
+    this.baseIntervalMillis = baseIntervalMillis;
+    this.maxIntervalMillis = maxIntervalMillis;
+    this.intervalMillis = baseIntervalMillis;
+  }
+
+  /**
+   * Starts the periodic flushes.
+   *
+   * @param initialDelayMillis the delay of the first periodic flush
+   */
+  synchronized void start(long initialDelayMillis) {
+    started = true;
+    intervalMillis = baseIntervalMillis;
+    schedulePeriodicFlush(initialDelayMillis);
+  }
+
+  /**
+   * Stops the periodic flushes, flushes requested with {@link #requestFlush()} still run.
+   */
+  synchronized void stop() {
+    started = false;
+    if (periodicFlush != null) {
+      periodicFlush.cancel(false);
+      periodicFlush = null;
+    }
+  }
+
+  /**
+   * Requests a flush as soon as possible, merged with a flush that's already queued.
+   */
+  void requestFlush() {
+    if (flushQueued.compareAndSet(false, true)) {
+      getExecutor().execute(flushRunnable);
+    }
+  }
+
+  long getIntervalMillis() {
+    return intervalMillis;
+  }
+
+  /**
+   * Returns the interval moved by a random jitter.
+   *
+   * @param intervalMillis the interval
+   * @return the jittered interval
+   */
+  long jitter(long intervalMillis) {
+    double offset;
+    synchronized (random) {
+      offset = (random.nextDouble() * 2 - 1) * JITTER;
+    }
+    return Math.max(0, Math.round(intervalMillis * (1 + offset)));
+  }
+
+  // the periodic flush is queued like a requested one, so it merges with requests as well
+  private void runFlush() {
+    // requests from now on need another flush, they may have queued events this flush won't see
+    flushQueued.set(false);
+    int result;
+    try {
+      result = task.flush();
+    } catch (RuntimeException exception) {
+      Timber.e("Telemetry flush failed: ", exception);
+      result = RESULT_FAILED;
+    }
+
+    if (result == RESULT_FAILED) {
+      intervalMillis = Math.min(maxIntervalMillis, intervalMillis * 2);
+    } else {
+      intervalMillis = baseIntervalMillis;
+    }
+
+    synchronized (this) {
+      if (started) {
+        // the next periodic flush is counted from the last flush, whatever triggered it
+        schedulePeriodicFlush(jitter(intervalMillis));
+      }
+    }
+  }
+
+  private void schedulePeriodicFlush(long delayMillis) {
+    if (periodicFlush != null) {
+      periodicFlush.cancel(false);
+      // don't keep the cancelled flush queued until its delay passes
+      getExecutor().purge();
+    }
+    periodicFlush = getExecutor().schedule(new Runnable() {
+      @Override
+      public void run() {
+        requestFlush();
+      }
+    }, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private synchronized ScheduledThreadPoolExecutor getExecutor() {
+    if (executor == null) {
+      executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+          Thread thread = new Thread(runnable, "Mapbox Telemetry");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return executor;
+  }
+}
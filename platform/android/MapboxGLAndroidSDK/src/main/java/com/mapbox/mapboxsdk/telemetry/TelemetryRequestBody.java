@@ -0,0 +1,212 @@
+package com.mapbox.mapboxsdk.telemetry;
+
+import android.support.annotation.NonNull;
+
+import com.mapbox.mapboxsdk.constants.GeoConstants;
+import com.mapbox.mapboxsdk.utils.MathUtils;
+
+import java.io.IOException;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Request body posting a batch of telemetry events as a JSON array.
+ * <p>
+ * The JSON is written straight into the sink while the request is sent, no document nor string of the whole batch
+ * is built in memory. Combined with {@link GzipRequestInterceptor} the events are compressed segment by segment, so
+ * the memory needed to serialize a batch doesn't depend on its size.
+ * </p>
+ */
+class TelemetryRequestBody extends RequestBody {
+
+  private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+  private static final String HEX_DIGITS = "0123456789abcdef";
+
+  private final List<TelemetryEvent> events;
+
+  TelemetryRequestBody(@NonNull List<TelemetryEvent> events) {
+    this.events = events;
+  }
+
+  @Override
+  public MediaType contentType() {
+    return JSON;
+  }
+
+  @Override
+  public long contentLength() {
+    // unknown until written, the body is sent chunked
+    return -1;
+  }
+
+  @Override
+  public void writeTo(BufferedSink sink) throws IOException {
+    // may be called again when OkHttp retries the request, the events are kept until the body is discarded
+    sink.writeByte('[');
+    for (int i = 0; i < events.size(); i++) {
+      if (i > 0) {
+        sink.writeByte(',');
+      }
+      writeEvent(sink, events.get(i));
+    }
+    sink.writeByte(']');
+  }
+
+  /**
+   * Writes an event as a JSON object, attributes without a value are left out.
+   *
+   * @param sink  the sink to write to
+   * @param event the event to write
+   * @throws IOException if writing to the sink fails
+   */
+  static void writeEvent(BufferedSink sink, TelemetryEvent event) throws IOException {
+    sink.writeByte('{');
+    writeString(sink, MapboxEvent.ATTRIBUTE_EVENT, event.type, true);
+    writeString(sink, MapboxEvent.ATTRIBUTE_CREATED, event.created, false);
+    writeString(sink, MapboxEvent.ATTRIBUTE_USERID, event.userId, false);
+    writeBoolean(sink, MapboxEvent.ATTRIBUTE_ENABLED_TELEMETRY, event.enabledTelemetry);
+    writeString(sink, MapboxEvent.ATTRIBUTE_SOURCE, event.source, false);
+    writeString(sink, MapboxEvent.ATTRIBUTE_SESSION_ID, event.sessionId, false);
+    writeNumber(sink, MapboxEvent.KEY_LATITUDE, event.latitude);
+
+    // Make sure Longitude Is Wrapped
+    double longitude = event.longitude;
+    if ((longitude < GeoConstants.MIN_LONGITUDE) || (longitude > GeoConstants.MAX_LONGITUDE)) {
+      longitude = MathUtils.wrap(longitude, GeoConstants.MIN_LONGITUDE, GeoConstants.MAX_LONGITUDE);
+    }
+    writeNumber(sink, MapboxEvent.KEY_LONGITUDE, longitude);
+
+    writeNumber(sink, MapboxEvent.KEY_ALTITUDE, event.altitude);
+    writeNumber(sink, MapboxEvent.KEY_ZOOM, event.zoom);
+    writeString(sink, MapboxEvent.ATTRIBUTE_OPERATING_SYSTEM, event.operatingSystem, false);
+    writeString(sink, MapboxEvent.ATTRIBUTE_MODEL, event.model, false);
+    writeNumber(sink, MapboxEvent.ATTRIBUTE_RESOLUTION, event.resolution);
+    writeNumber(sink, MapboxEvent.ATTRIBUTE_ACCESSIBILITY_FONT_SCALE, event.accessibilityFontScale);
+    if (event.batteryLevel != TelemetryEvent.NO_BATTERY_LEVEL) {
+      writeName(sink, MapboxEvent.ATTRIBUTE_BATTERY_LEVEL);
+      sink.writeDecimalLong(event.batteryLevel);
+    }
+    writeBoolean(sink, MapboxEvent.ATTRIBUTE_PLUGGED_IN, event.pluggedIn);
+    writeBoolean(sink, MapboxEvent.ATTRIBUTE_WIFI, event.wifi);
+
+    // Empty strings denote a missing value and are not sent at all
+    writeNonEmptyString(sink, MapboxEvent.ATTRIBUTE_ORIENTATION, event.orientation);
+    writeNonEmptyString(sink, MapboxEvent.ATTRIBUTE_CARRIER, event.carrier);
+    writeNonEmptyString(sink, MapboxEvent.ATTRIBUTE_APPLICATION_STATE, event.applicationState);
+    if (MapboxEvent.TYPE_MAP_CLICK.equalsIgnoreCase(event.type)) {
+      writeString(sink, MapboxEvent.KEY_GESTURE_ID, event.gesture, false);
+    }
+    writeNonEmptyString(sink, MapboxEvent.ATTRIBUTE_CELLULAR_NETWORK_TYPE, event.cellularNetworkType);
+    sink.writeByte('}');
+  }
+
+  private static void writeName(BufferedSink sink, String name) throws IOException {
+    sink.writeByte(',');
+    writeQuoted(sink, name);
+    sink.writeByte(':');
+  }
+
+  private static void writeString(BufferedSink sink, String name, String value, boolean first) throws IOException {
+    if (value == null) {
+      return;
+    }
+    if (!first) {
+      sink.writeByte(',');
+    }
+    writeQuoted(sink, name);
+    sink.writeByte(':');
+    writeQuoted(sink, value);
+  }
+
+  private static void writeNonEmptyString(BufferedSink sink, String name, String value) throws IOException {
+    if (value != null && value.length() > 0) {
+      writeString(sink, name, value, false);
+    }
+  }
+
+  private static void writeBoolean(BufferedSink sink, String name, Boolean value) throws IOException {
+    if (value != null) {
+      writeName(sink, name);
+      sink.writeUtf8(value ? "true" : "false");
+    }
+  }
+
+  private static void writeNumber(BufferedSink sink, String name, double value) throws IOException {
+    // NaN marks a missing value, infinite values can't be represented in JSON
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      return;
+    }
+    writeName(sink, name);
+    long longValue = (long) value;
+    if (value == longValue) {
+      // whole numbers are written without a fraction, as org.json does
+      sink.writeDecimalLong(longValue);
+    } else {
+      sink.writeUtf8(Double.toString(value));
+    }
+  }
+
+  private static void writeNumber(BufferedSink sink, String name, float value) throws IOException {
+    if (Float.isNaN(value) || Float.isInfinite(value)) {
+      return;
+    }
+    writeName(sink, name);
+    long longValue = (long) value;
+    if (value == longValue) {
+      sink.writeDecimalLong(longValue);
+    } else {
+      // the shortest representation of the float, 1.1f is written as 1.1 and not 1.100000023841858
+      sink.writeUtf8(Float.toString(value));
+    }
+  }
+
+  private static void writeQuoted(BufferedSink sink, String value) throws IOException {
+    sink.writeByte('"');
+    int length = value.length();
+    int start = 0;
+    for (int i = 0; i < length; i++) {
+      char character = value.charAt(i);
+      // control characters and the line separators JavaScript doesn't allow in strings are escaped
+      if (character >= 0x20 && character != '"' && character != '\\' && character != '\u2028'
+        && character != '\u2029') {
+        continue;
+      }
+      // write the run of characters that need no escaping in one go
+      if (start < i) {
+        sink.writeUtf8(value, start, i);
+      }
+      start = i + 1;
+      switch (character) {
+        case '"':
+          sink.writeUtf8("\\\"");
+          break;
+        case '\\':
+          sink.writeUtf8("\\\\");
+          break;
+        case '\n':
+          sink.writeUtf8("\\n");
+          break;
+        case '\r':
+          sink.writeUtf8("\\r");
+          break;
+        case '\t':
+          sink.writeUtf8("\\t");
+          break;
+        default:
+          sink.writeUtf8("\\u");
+          sink.writeByte(HEX_DIGITS.charAt((character >> 12) & 0xf));
+          sink.writeByte(HEX_DIGITS.charAt((character >> 8) & 0xf));
+          sink.writeByte(HEX_DIGITS.charAt((character >> 4) & 0xf));
+          sink.writeByte(HEX_DIGITS.charAt(character & 0xf));
+          break;
+      }
+    }
+    if (start < length) {
+      sink.writeUtf8(value, start, length);
+    }
+    sink.writeByte('"');
+  }
+}
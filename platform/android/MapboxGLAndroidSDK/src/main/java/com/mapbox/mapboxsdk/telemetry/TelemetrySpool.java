@@ -0,0 +1,255 @@
+package com.mapbox.mapboxsdk.telemetry;
+
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+import timber.log.Timber;
+
+/**
+ * Append-only file spool of telemetry events that couldn't be sent yet.
+ * <p>
+ * Events are appended in batches as JSON lines to numbered segment files, a segment is closed once it reaches its
+ * size limit and a new one is started. When the spool grows over its byte cap the oldest segments are deleted.
+ * Segments are replayed oldest first, one request per segment, and deleted once the server took them.
+ * </p>
+ * <p>
+ * A process never appends to segments written by a previous one. A batch torn by a crash can only leave an
+ * unterminated line at the end of a segment, which is skipped on replay.
+ * </p>
+ */
+class TelemetrySpool {
+
+  private static final String SEGMENT_SUFFIX = ".events";
+  private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+  private final File directory;
+  private final long maxBytes;
+  private final long segmentBytes;
+
+  private long nextSegment;
+  private File currentSegment;
+  private long evictedBytes;
+
+  /**
+   * Creates a spool, picking up the segments left by previous processes.
+   *
+   * @param directory    the directory holding the segments, created when needed
+   * @param maxBytes     the maximum size of all segments together
+   * @param segmentBytes the size after which a segment is closed
+   */
+  TelemetrySpool(@NonNull File directory, long maxBytes, long segmentBytes) {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    this.segmentBytes = segmentBytes;
+    List<File> segments = listSegments();
+    nextSegment = segments.isEmpty() ? 0 : segmentNumber(segments.get(segments.size() - 1)) + 1;
+  }
+
+  /**
+   * Appends events to the current segment with a single sequential write.
+   *
+   * @param events the events to append
+   * @return true if the events were written
+   */
+  synchronized boolean append(@NonNull List<TelemetryEvent> events) {
+    if (events.isEmpty()) {
+      return true;
+    }
+    if (currentSegment == null || currentSegment.length() >= segmentBytes) {
+      if (!directory.isDirectory() && !directory.mkdirs()) {
+        Timber.e("Unable to create the telemetry spool in " + directory);
+        return false;
+      }
+      currentSegment = new File(directory, nextSegment++ + SEGMENT_SUFFIX);
+    }
+
+    FileOutputStream stream = null;
+    try {
+      stream = new FileOutputStream(currentSegment, true);
+      BufferedSink sink = Okio.buffer(Okio.sink(stream));
+      for (TelemetryEvent event : events) {
+        TelemetryRequestBody.writeEvent(sink, event);
+        sink.writeByte('\n');
+      }
+      sink.flush();
+      // the batch survives a power loss, not only the death of the process
+      stream.getFD().sync();
+    } catch (IOException exception) {
+      Timber.e("Unable to spool telemetry events: " + exception.getMessage());
+      // the segment may end with a partial line, don't append behind it
+      currentSegment = null;
+      return false;
+    } finally {
+      closeQuietly(stream);
+    }
+
+    evict();
+    return true;
+  }
+
+  /**
+   * Closes the current segment and returns all segments, oldest first. New events are appended to a new segment
+   * while the returned ones are replayed.
+   *
+   * @return the segments to replay
+   */
+  synchronized List<File> seal() {
+    currentSegment = null;
+    return listSegments();
+  }
+
+  /**
+   * Deletes a segment once it was replayed, or rejected by the server.
+   *
+   * @param segment the segment to delete
+   */
+  synchronized void delete(@NonNull File segment) {
+    if (segment.equals(currentSegment)) {
+      currentSegment = null;
+    }
+    if (segment.exists() && !segment.delete()) {
+      Timber.w("Unable to delete telemetry segment " + segment);
+    }
+  }
+
+  /**
+   * Deletes all spooled events.
+   */
+  synchronized void clear() {
+    currentSegment = null;
+    for (File segment : listSegments()) {
+      delete(segment);
+    }
+  }
+
+  synchronized boolean isEmpty() {
+    return listSegments().isEmpty();
+  }
+
+  synchronized long getSize() {
+    long size = 0;
+    for (File segment : listSegments()) {
+      size += segment.length();
+    }
+    return size;
+  }
+
+  /**
+   * Returns the amount of bytes deleted to keep the spool under its cap.
+   *
+   * @return the evicted bytes
+   */
+  synchronized long getEvictedBytes() {
+    return evictedBytes;
+  }
+
+  /**
+   * Creates a request body posting the events of a segment as a JSON array, streamed from the file.
+   *
+   * @param segment the segment to post
+   * @return the request body
+   */
+  static RequestBody createRequestBody(@NonNull final File segment) {
+    return new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return JSON;
+      }
+
+      @Override
+      public void writeTo(BufferedSink sink) throws IOException {
+        BufferedSource source = Okio.buffer(Okio.source(segment));
+        try {
+          sink.writeByte('[');
+          boolean first = true;
+          long newline;
+          while ((newline = source.indexOf((byte) '\n')) != -1) {
+            if (newline > 0) {
+              if (!first) {
+                sink.writeByte(',');
+              }
+              sink.write(source, newline);
+              first = false;
+            }
+            source.skip(1);
+          }
+          // an unterminated line is a batch torn by a crash
+          sink.writeByte(']');
+        } finally {
+          source.close();
+        }
+      }
+    };
+  }
+
+  private void evict() {
+    List<File> segments = listSegments();
+    long size = 0;
+    for (File segment : segments) {
+      size += segment.length();
+    }
+    // the current segment is the newest one and is always kept
+    for (int i = 0; size > maxBytes && i < segments.size() - 1; i++) {
+      File oldest = segments.get(i);
+      long length = oldest.length();
+      delete(oldest);
+      size -= length;
+      evictedBytes += length;
+    }
+  }
+
+  private List<File> listSegments() {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return Collections.emptyList();
+    }
+    List<File> segments = new ArrayList<>(files.length);
+    for (File file : files) {
+      if (segmentNumber(file) >= 0) {
+        segments.add(file);
+      }
+    }
+    Collections.sort(segments, new Comparator<File>() {
+      @Override
+      public int compare(File first, File second) {
+        long difference = segmentNumber(first) - segmentNumber(second);
+        return difference < 0 ? -1 : (difference == 0 ? 0 : 1);
+      }
+    });
+    return segments;
+  }
+
+  private static long segmentNumber(File file) {
+    String name = file.getName();
+    if (!name.endsWith(SEGMENT_SUFFIX)) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    } catch (NumberFormatException exception) {
+      return -1;
+    }
+  }
+
+  private static void closeQuietly(FileOutputStream stream) {
+    if (stream != null) {
+      try {
+        stream.close();
+      } catch (IOException ignored) {
+        // nothing left to write
+      }
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MarkerViewIndexTest {
+
+  private MarkerViewIndex index;
+  private List<MarkerView> result;
+  private long nextId;
+
+  @Before
+  public void beforeTest() {
+    index = new MarkerViewIndex();
+    result = new ArrayList<>();
+  }
+
+  @Test
+  public void testQuery() {
+    MarkerView inside = addMarkerView(52.37, 4.89);
+    addMarkerView(48.85, 2.35);
+
+    query(53, 4, 52, 5);
+    assertEquals(1, result.size());
+    assertEquals(inside, result.get(0));
+  }
+
+  @Test
+  public void testMove() {
+    MarkerView marker = addMarkerView(52.37, 4.89);
+    marker.setPosition(new LatLng(48.85, 2.35));
+    index.update(marker);
+
+    query(53, 4, 52, 5);
+    assertTrue(result.isEmpty());
+    query(49, 2, 48, 3);
+    assertEquals(1, result.size());
+    assertEquals(1, index.size());
+  }
+
+  @Test
+  public void testUpdateIgnoresUnindexed() {
+    MarkerView marker = new MarkerViewOptions().position(new LatLng(1, 1)).getMarker();
+    index.update(marker);
+    assertEquals(0, index.size());
+    assertFalse(index.contains(marker));
+  }
+
+  @Test
+  public void testRemove() {
+    MarkerView marker = addMarkerView(52.37, 4.89);
+    index.remove(marker);
+    assertFalse(index.contains(marker));
+    query(53, 4, 52, 5);
+    assertTrue(result.isEmpty());
+  }
+
+  @Test
+  public void testAntimeridian() {
+    MarkerView east = addMarkerView(0, 179.5);
+    MarkerView west = addMarkerView(0, -179.5);
+    addMarkerView(0, 0);
+
+    query(1, 179, -1, -179);
+    assertEquals(2, result.size());
+    assertTrue(result.contains(east));
+    assertTrue(result.contains(west));
+  }
+
+  @Test
+  public void testRotatedViewport() {
+    MarkerView center = addMarkerView(0, 0);
+    MarkerView corner = addMarkerView(0.9, 0.9);
+
+    // viewport rotated by 45 degrees, the bounding box contains both markers
+    index.query(new LatLng(), new LatLng(1, 0), new LatLng(0, 1), new LatLng(-1, 0), new LatLng(0, -1), result);
+    assertEquals(1, result.size());
+    assertEquals(center, result.get(0));
+    assertFalse(result.contains(corner));
+  }
+
+  @Test
+  public void testWorldViewport() {
+    for (int i = 0; i < 100; i++) {
+      addMarkerView(-80 + i * 1.6, -179 + i * 3.5);
+    }
+    query(85, -180, -85, 179.999);
+    assertEquals(100, result.size());
+  }
+
+  @Test
+  public void testWrappedWorldViewport() {
+    addMarkerView(10, 0);
+    addMarkerView(10, 180);
+    addMarkerView(-50, 90);
+
+    // viewport 400 degrees wide, the corners wrap to the opposite side of the center
+    result.clear();
+    index.query(new LatLng(), new LatLng(20, 160), new LatLng(20, -160), new LatLng(-20, -160), new LatLng(-20, 160),
+      result);
+    assertEquals(2, result.size());
+  }
+
+  @Test
+  public void testQueryMatchesFullScan() {
+    Random random = new Random(42);
+    List<MarkerView> markers = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      markers.add(addMarkerView(-60 + random.nextDouble() * 120, -180 + random.nextDouble() * 360));
+    }
+
+    query(52.5, 4.5, 52, 5);
+    int scanHits = 0;
+    for (MarkerView marker : markers) {
+      LatLng position = marker.getPosition();
+      if (position.getLatitude() <= 52.5 && position.getLatitude() >= 52
+        && position.getLongitude() >= 4.5 && position.getLongitude() <= 5) {
+        assertTrue(result.contains(marker));
+        scanHits++;
+      }
+    }
+    assertEquals(scanHits, result.size());
+  }
+
+  private void query(double north, double west, double south, double east) {
+    double centerLongitude = west <= east ? (west + east) / 2 : (west + east + 360) / 2;
+    result.clear();
+    index.query(new LatLng((north + south) / 2, centerLongitude), new LatLng(north, west), new LatLng(north, east),
+      new LatLng(south, east), new LatLng(south, west), result);
+  }
+
+  private MarkerView addMarkerView(double latitude, double longitude) {
+    MarkerView marker = new MarkerViewOptions().position(new LatLng(latitude, longitude)).getMarker();
+    // annotations are equal by id, each marker view gets its own
+    marker.setId(nextId++);
+    index.put(marker);
+    return marker;
+  }
+}
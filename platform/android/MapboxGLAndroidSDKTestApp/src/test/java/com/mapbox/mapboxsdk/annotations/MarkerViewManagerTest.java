@@ -0,0 +1,178 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.content.Context;
+import android.graphics.PointF;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.mapbox.mapboxsdk.camera.CameraPosition;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+import com.mapbox.mapboxsdk.maps.Projection;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyFloat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MarkerViewManagerTest {
+
+  @Mock
+  private ViewGroup container;
+
+  @Mock
+  private MapboxMap mapboxMap;
+
+  @Mock
+  private Projection projection;
+
+  private MarkerViewManager markerViewManager;
+  private final Map<MarkerView, View> views = new HashMap<>();
+  private long nextId;
+
+  @Before
+  public void beforeTest() {
+    MockitoAnnotations.initMocks(this);
+    when(container.getContext()).thenReturn(mock(Context.class));
+    when(mapboxMap.getProjection()).thenReturn(projection);
+    when(mapboxMap.getCameraPosition()).thenReturn(CameraPosition.DEFAULT);
+
+    // the viewport spans from 10 degrees south west to 10 degrees north east
+    final LatLng[] viewport = new LatLng[] {new LatLng(), new LatLng(10, -10), new LatLng(10, 10),
+      new LatLng(-10, 10), new LatLng(-10, -10)};
+    when(projection.fromScreenLocation(any(PointF.class))).thenAnswer(new Answer<LatLng>() {
+      private int corner;
+
+      @Override
+      public LatLng answer(InvocationOnMock invocation) throws Throwable {
+        return viewport[corner++ % viewport.length];
+      }
+    });
+
+    // ten screen pixels per degree
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        double[] coordinates = (double[]) invocation.getArguments()[0];
+        float[] screenLocations = (float[]) invocation.getArguments()[1];
+        int count = (int) invocation.getArguments()[2];
+        for (int i = 0; i < count; i++) {
+          screenLocations[2 * i] = (float) (coordinates[2 * i + 1] * 10);
+          screenLocations[2 * i + 1] = (float) (coordinates[2 * i] * 10);
+        }
+        return null;
+      }
+    }).when(projection).toScreenLocations(any(double[].class), any(float[].class), anyInt());
+
+    markerViewManager = new MarkerViewManager(container);
+    markerViewManager.bind(mapboxMap);
+  }
+
+  @Test
+  public void testPositionsProjectedInOneCall() {
+    TestMarkerView first = addMarkerView(1, 2, false);
+    TestMarkerView second = addMarkerView(3, 4, false);
+    TestMarkerView outside = addMarkerView(50, 50, false);
+    markerViewManager.addMarkerViewAdapter(new TestMarkerViewAdapter(mock(Context.class)));
+    reset(views.get(first), views.get(second));
+
+    markerViewManager.updateMarkerViewsPosition();
+
+    // once when the views were added and once now, for both shown marker views at a time
+    verify(projection, times(2)).toScreenLocations(any(double[].class), any(float[].class), eq(2));
+    // measured 20 by 40 pixels, anchored at the bottom center
+    verify(views.get(first)).setX(20 - 10);
+    verify(views.get(first)).setY(10 - 40);
+    verify(views.get(second)).setX(40 - 10);
+    verify(views.get(second)).setY(30 - 40);
+    verify(views.get(outside), never()).setX(anyFloat());
+  }
+
+  @Test
+  public void testMovedMarkerViewIsPositioned() {
+    TestMarkerView marker = addMarkerView(1, 2, false);
+    markerViewManager.addMarkerViewAdapter(new TestMarkerViewAdapter(mock(Context.class)));
+
+    marker.setPosition(new LatLng(5, 6));
+    markerViewManager.updateMarkerViewsPosition();
+    verify(views.get(marker)).setX(60 - 10);
+    verify(views.get(marker)).setY(50 - 40);
+  }
+
+  @Test
+  public void testRemovedMarkerViewIsNotPositioned() {
+    TestMarkerView first = addMarkerView(1, 2, false);
+    TestMarkerView second = addMarkerView(3, 4, false);
+    markerViewManager.addMarkerViewAdapter(new TestMarkerViewAdapter(mock(Context.class)));
+
+    markerViewManager.removeMarkerView(first);
+    reset(views.get(first));
+    markerViewManager.updateMarkerViewsPosition();
+
+    verify(projection, times(1)).toScreenLocations(any(double[].class), any(float[].class), eq(1));
+    verify(views.get(first), never()).setX(anyFloat());
+    verify(views.get(second), times(2)).setX(40 - 10);
+  }
+
+  @Test
+  public void testTiltAppliedToFlatMarkerViews() {
+    TestMarkerView flat = addMarkerView(1, 2, true);
+    TestMarkerView upright = addMarkerView(3, 4, false);
+    markerViewManager.addMarkerViewAdapter(new TestMarkerViewAdapter(mock(Context.class)));
+
+    markerViewManager.setTilt(30);
+    verify(views.get(flat)).setRotationX(30);
+    verify(views.get(upright), never()).setRotationX(30);
+  }
+
+  private TestMarkerView addMarkerView(double latitude, double longitude, boolean flat) {
+    TestMarkerView marker = new TestMarkerView(
+      new MarkerViewOptions().position(new LatLng(latitude, longitude)).flat(flat));
+    marker.setId(nextId++);
+    View view = mock(View.class);
+    when(view.getMeasuredWidth()).thenReturn(20);
+    when(view.getMeasuredHeight()).thenReturn(40);
+    views.put(marker, view);
+    markerViewManager.addMarkerView(marker);
+    return marker;
+  }
+
+  private static class TestMarkerView extends MarkerView {
+
+    TestMarkerView(BaseMarkerViewOptions options) {
+      super(options);
+    }
+  }
+
+  private class TestMarkerViewAdapter extends MapboxMap.MarkerViewAdapter<TestMarkerView> {
+
+    TestMarkerViewAdapter(Context context) {
+      super(context);
+    }
+
+    @Nullable
+    @Override
+    public View getView(@NonNull TestMarkerView marker, @Nullable View convertView, @NonNull ViewGroup parent) {
+      return views.get(marker);
+    }
+  }
+}
@@ -7,6 +7,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
@@ -58,6 +59,20 @@ public class PolygonTest {
     assertEquals(new LatLng(0, 0), polygon.getPoints().get(0));
   }
 
+  @Test
+  public void testAddAllCoordinates() {
+    Polygon polygon = new PolygonOptions().addAll(new double[] {1, 2, 3, 4}).getPolygon();
+    assertEquals(2, polygon.getPointCount());
+    assertEquals(new LatLng(1, 2), polygon.getPoints().get(0));
+    assertEquals(new LatLng(3, 4), polygon.getPoints().get(1));
+    assertArrayEquals(new double[] {1, 2, 3, 4}, polygon.getCoordinates(), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddAllCoordinatesOddLength() {
+    new PolygonOptions().addAll(new double[] {1, 2, 3});
+  }
+
   @Test
   public void testBuilder() {
     PolylineOptions polylineOptions = new PolylineOptions();
@@ -1,14 +1,20 @@
 package com.mapbox.mapboxsdk.annotations;
 
 import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
 
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 public class PolylineTest {
 
@@ -58,6 +64,53 @@ public class PolylineTest {
     assertEquals(new LatLng(0, 0), polyline.getPoints().get(0));
   }
 
+  @Test
+  public void testAddAllCoordinates() {
+    Polyline polyline = new PolylineOptions().addAll(new double[] {1, 2, 3, 4}).getPolyline();
+    assertEquals(2, polyline.getPointCount());
+    assertEquals(new LatLng(1, 2), polyline.getPoints().get(0));
+    assertEquals(new LatLng(3, 4), polyline.getPoints().get(1));
+    assertArrayEquals(new double[] {1, 2, 3, 4}, polyline.getCoordinates(), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddAllCoordinatesOddLength() {
+    new PolylineOptions().addAll(new double[] {1, 2, 3});
+  }
+
+  @Test
+  public void testAddPointAppends() {
+    MapboxMap mapboxMap = mock(MapboxMap.class);
+    Polyline polyline = new PolylineOptions().add(new LatLng(0, 0), new LatLng(1, 1)).getPolyline();
+    polyline.setMapboxMap(mapboxMap);
+
+    polyline.addPoint(new LatLng(2, 2));
+    verify(mapboxMap).appendPolylinePoints(polyline);
+    verify(mapboxMap, never()).updatePolyline(any(Polyline.class));
+    assertEquals(3, polyline.getPointCount());
+    assertEquals(2, polyline.getFirstUnsentPoint());
+
+    // points added before the transfer are sent along from the first unsent point
+    polyline.addPoint(new LatLng(3, 3));
+    assertEquals(2, polyline.getFirstUnsentPoint());
+    polyline.onPointsSent();
+    polyline.addPoint(new LatLng(4, 4));
+    assertEquals(4, polyline.getFirstUnsentPoint());
+  }
+
+  @Test
+  public void testAddPointsAppends() {
+    MapboxMap mapboxMap = mock(MapboxMap.class);
+    Polyline polyline = new PolylineOptions().add(new LatLng(0, 0)).getPolyline();
+    polyline.setMapboxMap(mapboxMap);
+
+    polyline.addPoints(new double[] {1, 1, 2, 2});
+    verify(mapboxMap).appendPolylinePoints(polyline);
+    assertEquals(1, polyline.getFirstUnsentPoint());
+    verify(mapboxMap, never()).updatePolyline(any(Polyline.class));
+    assertArrayEquals(new double[] {0, 0, 1, 1, 2, 2}, polyline.getCoordinates(), 0);
+  }
+
   @Test
   public void testBuilder() {
     PolylineOptions polylineOptions = new PolylineOptions();
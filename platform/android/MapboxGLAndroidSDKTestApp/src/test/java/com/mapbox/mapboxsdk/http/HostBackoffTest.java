@@ -0,0 +1,152 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HostBackoffTest {
+
+  private static final String HOST = "api.mapbox.com";
+  private static final long NOW = 1000000;
+
+  private HostBackoff hostBackoff;
+
+  @Before
+  public void beforeTest() {
+    hostBackoff = new HostBackoff();
+  }
+
+  @After
+  public void afterTest() {
+    HTTPRequest.getHostBackoff().clear();
+  }
+
+  @Test
+  public void testUnknownHost() {
+    assertEquals(0, hostBackoff.acquire(HOST, NOW));
+  }
+
+  @Test
+  public void testRateLimitedUntilRetryAt() {
+    hostBackoff.onRateLimited(HOST, NOW + 30000, NOW);
+    assertEquals(30000, hostBackoff.acquire(HOST, NOW));
+    assertEquals(0, hostBackoff.acquire("other.example.com", NOW));
+  }
+
+  @Test
+  public void testRateLimitedWithoutHeaders() {
+    hostBackoff.onRateLimited(HOST, 0, NOW);
+    assertEquals(HostBackoff.MIN_BACKOFF_MILLIS, hostBackoff.acquire(HOST, NOW));
+    hostBackoff.onRateLimited(HOST, 0, NOW);
+    assertEquals(HostBackoff.MIN_BACKOFF_MILLIS * 2, hostBackoff.acquire(HOST, NOW));
+  }
+
+  @Test
+  public void testSingleProbeAfterPause() {
+    hostBackoff.onRateLimited(HOST, NOW + 1000, NOW);
+    long later = NOW + 1000;
+    assertEquals(0, hostBackoff.acquire(HOST, later));
+    assertTrue(hostBackoff.acquire(HOST, later) > 0);
+
+    hostBackoff.onSuccess(HOST);
+    assertEquals(0, hostBackoff.acquire(HOST, later));
+    assertEquals(0, hostBackoff.acquire(HOST, later));
+  }
+
+  @Test
+  public void testReleasedProbe() {
+    hostBackoff.onRateLimited(HOST, NOW + 1000, NOW);
+    assertEquals(0, hostBackoff.acquire(HOST, NOW + 1000));
+    hostBackoff.release(HOST);
+    assertEquals(0, hostBackoff.acquire(HOST, NOW + 1000));
+  }
+
+  @Test
+  public void testCircuitOpensAfterServerErrors() {
+    for (int i = 0; i < HostBackoff.FAILURE_THRESHOLD - 1; i++) {
+      hostBackoff.onServerError(HOST, NOW);
+      assertEquals(0, hostBackoff.acquire(HOST, NOW));
+    }
+    hostBackoff.onServerError(HOST, NOW);
+    assertEquals(HostBackoff.MIN_BACKOFF_MILLIS, hostBackoff.acquire(HOST, NOW));
+
+    // failed probe doubles the pause
+    long later = NOW + HostBackoff.MIN_BACKOFF_MILLIS;
+    assertEquals(0, hostBackoff.acquire(HOST, later));
+    hostBackoff.onServerError(HOST, later);
+    assertEquals(HostBackoff.MIN_BACKOFF_MILLIS * 2, hostBackoff.acquire(HOST, later));
+  }
+
+  @Test
+  public void testMaxBackoff() {
+    for (int i = 0; i < 100; i++) {
+      hostBackoff.onServerError(HOST, NOW);
+    }
+    assertEquals(HostBackoff.MAX_BACKOFF_MILLIS, hostBackoff.acquire(HOST, NOW));
+  }
+
+  @Test
+  public void testRetryAt() {
+    assertEquals(NOW + 120000, HostBackoff.retryAt("120", null, NOW));
+    assertEquals(1500000000000L, HostBackoff.retryAt(null, "1500000000", NOW));
+    assertEquals(784111777000L, HostBackoff.retryAt("Sun, 06 Nov 1994 08:49:37 GMT", null, NOW));
+    assertEquals(NOW + 5000, HostBackoff.retryAt("5", "1500000000", NOW));
+    assertEquals(0, HostBackoff.retryAt("soon", "never", NOW));
+    assertEquals(0, HostBackoff.retryAt(null, null, NOW));
+  }
+
+  @Test
+  public void testRateLimitedServer() throws Exception {
+    MockWebServer server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        return new MockResponse().setResponseCode(429).setHeader("Retry-After", "60");
+      }
+    });
+    server.start();
+
+    int tileCount = 200;
+    final CountDownLatch latch = new CountDownLatch(tileCount);
+    final AtomicInteger rateLimited = new AtomicInteger();
+    try {
+      for (int i = 0; i < tileCount; i++) {
+        String url = server.url("/v4/mapbox.streets/14/" + i + "/0.pbf").toString();
+        InFlightRequest.join(new InFlightRequest.Waiter() {
+          @Override
+          public void onResponse(HttpTransport.Response response, ResponseBuffer body) {
+            if (response.getCode() == 429 && response.header("Retry-After") != null) {
+              rateLimited.incrementAndGet();
+            }
+            latch.countDown();
+          }
+
+          @Override
+          public void onFailure(Exception exception) {
+            latch.countDown();
+          }
+        }, url + "\n\n", new HttpTransport.Request(HttpUrl.parse(url)), RequestScheduler.PRIORITY_REQUIRED);
+      }
+      assertTrue(latch.await(30, TimeUnit.SECONDS));
+    } finally {
+      server.shutdown();
+    }
+
+    // every request is answered as rate limited, only the ones in flight before the first 429 reach the server
+    assertEquals(tileCount, rateLimited.get());
+    assertTrue(server.getRequestCount() <= HTTPRequest.getScheduler().getMaxActiveRequestsPerHost());
+  }
+}
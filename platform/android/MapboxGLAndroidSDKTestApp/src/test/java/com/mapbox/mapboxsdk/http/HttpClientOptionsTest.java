@@ -0,0 +1,206 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class HttpClientOptionsTest {
+
+  private MockWebServer server;
+
+  @Before
+  public void beforeTest() throws IOException {
+    server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        // simulate the latency of a tile server
+        return new MockResponse()
+          .setBody("tile")
+          .setBodyDelay(20, TimeUnit.MILLISECONDS);
+      }
+    });
+    server.start();
+  }
+
+  @After
+  public void afterTest() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void testDefaults() {
+    OkHttpClient client = new HttpClientOptions().createClient();
+    assertEquals(HttpClientOptions.DEFAULT_MAX_REQUESTS, client.dispatcher().getMaxRequests());
+    assertEquals(HttpClientOptions.DEFAULT_MAX_REQUESTS_PER_HOST, client.dispatcher().getMaxRequestsPerHost());
+    assertEquals(HttpClientOptions.DEFAULT_CONNECT_TIMEOUT_MILLIS, client.connectTimeoutMillis());
+    assertEquals(HttpClientOptions.DEFAULT_READ_TIMEOUT_MILLIS, client.readTimeoutMillis());
+    assertEquals(HttpClientOptions.DEFAULT_WRITE_TIMEOUT_MILLIS, client.writeTimeoutMillis());
+    assertTrue(client.protocols().contains(Protocol.HTTP_2));
+  }
+
+  @Test
+  public void testOptions() {
+    OkHttpClient client = new HttpClientOptions()
+      .maxRequests(32)
+      .maxRequestsPerHost(8)
+      .connectionPool(4, 1, TimeUnit.MINUTES)
+      .http2Enabled(false)
+      .timeouts(1, 2, 3, TimeUnit.SECONDS)
+      .createClient();
+    assertEquals(32, client.dispatcher().getMaxRequests());
+    assertEquals(8, client.dispatcher().getMaxRequestsPerHost());
+    assertEquals(1000, client.connectTimeoutMillis());
+    assertEquals(2000, client.readTimeoutMillis());
+    assertEquals(3000, client.writeTimeoutMillis());
+    assertEquals(1, client.protocols().size());
+    assertFalse(client.protocols().contains(Protocol.HTTP_2));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMaxRequestsPerHost() {
+    new HttpClientOptions().maxRequestsPerHost(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidTimeouts() {
+    new HttpClientOptions().timeouts(-1, 0, 0, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testSetClientOptions() {
+    HttpTransport original = HttpRequestUtil.getTransport();
+    try {
+      HttpRequestUtil.setClientOptions(new HttpClientOptions().maxRequests(48).maxRequestsPerHost(12));
+      OkHttpTransport transport = (OkHttpTransport) HttpRequestUtil.getTransport();
+      assertEquals(12, transport.getClient().dispatcher().getMaxRequestsPerHost());
+      assertEquals(48, HTTPRequest.getScheduler().getMaxActiveRequests());
+      assertEquals(12, HTTPRequest.getScheduler().getMaxActiveRequestsPerHost());
+    } finally {
+      HttpRequestUtil.setTransport(original);
+    }
+  }
+
+  @Test
+  public void testDispatcher() {
+    OkHttpClient client = new HttpClientOptions().maxRequests(48).maxRequestsPerHost(24).createClient();
+    // the dispatcher is owned by the client, not shared with other clients
+    assertNotSame(new OkHttpClient().dispatcher(), client.dispatcher());
+    assertEquals(48, client.dispatcher().getMaxRequests());
+    assertEquals(24, client.dispatcher().getMaxRequestsPerHost());
+  }
+
+  @Test
+  public void testConnectionReused() throws Exception {
+    OkHttpClient client = new HttpClientOptions().createClient();
+    fetchTiles(client, 0, 3);
+
+    // sequential requests go over a single kept alive connection
+    for (int i = 0; i < 3; i++) {
+      assertEquals(i, server.takeRequest().getSequenceNumber());
+    }
+    assertEquals(1, client.connectionPool().idleConnectionCount());
+  }
+
+  @Test
+  public void testConnectionPoolMaxIdle() throws Exception {
+    OkHttpClient client = new HttpClientOptions().connectionPool(1, 5, TimeUnit.MINUTES).createClient();
+    fetchTilesConcurrently(client, 4);
+    awaitIdleConnectionCount(client, 1);
+  }
+
+  @Test
+  public void testConnectionPoolKeepAlive() throws Exception {
+    OkHttpClient client = new HttpClientOptions().connectionPool(4, 100, TimeUnit.MILLISECONDS).createClient();
+    fetchTiles(client, 0, 1);
+    awaitIdleConnectionCount(client, 0);
+  }
+
+  @Test
+  @Ignore("benchmark, run manually")
+  public void testThroughputBenchmark() throws Exception {
+    int requestCount = 200;
+    long defaultNanos = timeConcurrentFetch(new OkHttpClient(), requestCount);
+    long tunedNanos = timeConcurrentFetch(new HttpClientOptions().createClient(), requestCount);
+    assertTrue(String.format(Locale.US, "%d tiles: default client %d ms, tuned client %d ms", requestCount,
+      TimeUnit.NANOSECONDS.toMillis(defaultNanos), TimeUnit.NANOSECONDS.toMillis(tunedNanos)),
+      tunedNanos < defaultNanos);
+  }
+
+  private long timeConcurrentFetch(OkHttpClient client, int count) throws InterruptedException {
+    long start = System.nanoTime();
+    fetchTilesConcurrently(client, count);
+    long nanos = System.nanoTime() - start;
+    client.dispatcher().executorService().shutdown();
+    client.connectionPool().evictAll();
+    return nanos;
+  }
+
+  private void fetchTiles(OkHttpClient client, int first, int count) throws IOException {
+    for (int i = first; i < first + count; i++) {
+      Response response = client.newCall(tileRequest(i)).execute();
+      assertTrue(response.isSuccessful());
+      response.body().close();
+    }
+  }
+
+  private void fetchTilesConcurrently(OkHttpClient client, int count) throws InterruptedException {
+    final CountDownLatch latch = new CountDownLatch(count);
+    final AtomicInteger successCount = new AtomicInteger();
+    for (int i = 0; i < count; i++) {
+      client.newCall(tileRequest(i)).enqueue(new Callback() {
+        @Override
+        public void onFailure(Call call, IOException exception) {
+          latch.countDown();
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) throws IOException {
+          response.body().close();
+          if (response.isSuccessful()) {
+            successCount.incrementAndGet();
+          }
+          latch.countDown();
+        }
+      });
+    }
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    assertEquals(count, successCount.get());
+  }
+
+  private Request tileRequest(int index) {
+    return new Request.Builder().url(server.url("/v4/mapbox.satellite/14/" + index + "/0.png")).build();
+  }
+
+  // idle connections are evicted by the pool's cleanup thread
+  private static void awaitIdleConnectionCount(OkHttpClient client, int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (client.connectionPool().idleConnectionCount() > count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(count, client.connectionPool().idleConnectionCount());
+  }
+}
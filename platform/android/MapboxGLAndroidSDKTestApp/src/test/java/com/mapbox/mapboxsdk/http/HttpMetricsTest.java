@@ -0,0 +1,176 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class HttpMetricsTest {
+
+  private final List<RequestMetrics> reported = new ArrayList<>();
+
+  @Before
+  public void beforeTest() {
+    HttpRequestUtil.resetMetrics();
+    HttpRequestUtil.setMetricsListener(new HttpMetricsListener() {
+      @Override
+      public void onRequestMetrics(RequestMetrics metrics) {
+        synchronized (reported) {
+          reported.add(metrics);
+        }
+      }
+    });
+  }
+
+  @After
+  public void afterTest() {
+    HttpRequestUtil.setMetricsListener(null);
+    HttpRequestUtil.resetMetrics();
+    HTTPRequest.getHostBackoff().clear();
+  }
+
+  @Test
+  public void testHistogramBuckets() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(0);
+    histogram.record(1);
+    histogram.record(3);
+    histogram.record(100);
+    histogram.record(Long.MAX_VALUE);
+
+    assertEquals(5, histogram.getCount());
+    assertEquals(1, histogram.getBucketCount(0));
+    assertEquals(1, histogram.getBucketCount(1));
+    assertEquals(1, histogram.getBucketCount(2));
+    assertEquals(1, histogram.getBucketCount(7));
+    assertEquals(1, histogram.getBucketCount(LatencyHistogram.BUCKET_COUNT - 1));
+    assertEquals(1, histogram.getPercentile(20));
+    assertEquals(4, histogram.getPercentile(60));
+    assertEquals(128, histogram.getPercentile(80));
+    assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+    assertEquals(0, new LatencyHistogram().getPercentile(50));
+  }
+
+  @Test
+  public void testHostMetrics() {
+    HostMetrics hostMetrics = new HostMetrics("api.mapbox.com");
+    hostMetrics.record(new RequestMetrics("api.mapbox.com", 200, RequestMetrics.ERROR_NONE, 10, 50, 80, 5, 145,
+      2048, false, true));
+    hostMetrics.record(new RequestMetrics("api.mapbox.com", 304, RequestMetrics.ERROR_NONE, 0, 0, 40, 0, 40, 0,
+      true, true));
+    hostMetrics.record(new RequestMetrics("api.mapbox.com", 0, RequestMetrics.ERROR_CONNECTION, 10, 0, 0, 0, 15, 0,
+      false, false));
+
+    HostMetrics snapshot = new HostMetrics(hostMetrics);
+    hostMetrics.record(new RequestMetrics("api.mapbox.com", 200, RequestMetrics.ERROR_NONE, 0, 0, 0, 0, 0, 0, true,
+      true));
+
+    assertEquals(3, snapshot.getRequestCount());
+    assertEquals(1, snapshot.getNotModifiedCount());
+    assertEquals(1.0 / 3, snapshot.getRevalidationRate(), 0.0001);
+    assertEquals(1, snapshot.getReusedConnectionCount());
+    assertEquals(2048, snapshot.getBytes());
+    assertEquals(2, snapshot.getErrorCount(RequestMetrics.ERROR_NONE));
+    assertEquals(1, snapshot.getErrorCount(RequestMetrics.ERROR_CONNECTION));
+    assertEquals(2, snapshot.getDns().getCount());
+    assertEquals(2, snapshot.getFirstByte().getCount());
+    assertEquals(3, snapshot.getTotal().getCount());
+  }
+
+  @Test
+  public void testRequestMetrics() throws Exception {
+    MockWebServer server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        if (request.getPath().endsWith("modified.pbf")) {
+          return new MockResponse().setResponseCode(304);
+        } else if (request.getPath().endsWith("error.pbf")) {
+          return new MockResponse().setResponseCode(503);
+        }
+        Thread.sleep(100);
+        return new MockResponse().setBody("tile data");
+      }
+    });
+    server.start();
+    String tile = server.url("/tile.pbf").toString();
+    String modified = server.url("/modified.pbf").toString();
+    String error = server.url("/error.pbf").toString();
+    String host = server.url("/").host();
+    try {
+      // one at a time, so the later requests reuse the connection of the first
+      fetch(tile);
+      fetch(modified);
+      fetch(error);
+    } finally {
+      server.shutdown();
+    }
+
+    HostMetrics hostMetrics = HttpRequestUtil.getHostMetrics().get(host);
+    assertNotNull(hostMetrics);
+    assertEquals(3, hostMetrics.getRequestCount());
+    assertEquals(1, hostMetrics.getNotModifiedCount());
+    assertEquals(1, hostMetrics.getErrorCount(RequestMetrics.ERROR_SERVER));
+    assertEquals(2, hostMetrics.getReusedConnectionCount());
+    assertEquals("tile data".length(), hostMetrics.getBytes());
+    assertEquals(3, hostMetrics.getFirstByte().getCount());
+
+    assertEquals(3, reported.size());
+    RequestMetrics first = reported.get(0);
+    assertEquals(200, first.getStatusCode());
+    assertEquals(RequestMetrics.ERROR_NONE, first.getErrorClass());
+    assertFalse(first.isConnectionReused());
+    assertFalse(first.isSecure());
+    assertTrue(first.getFirstByteMillis() >= 100);
+    assertTrue(first.getTotalMillis() >= first.getFirstByteMillis() + first.getTransferMillis());
+    assertTrue(reported.get(1).isNotModified());
+    assertEquals(0, reported.get(1).getConnectMillis());
+  }
+
+  @Test
+  public void testConnectionFailure() throws Exception {
+    MockWebServer server = new MockWebServer();
+    server.start();
+    String url = server.url("/tile.pbf").toString();
+    String host = server.url("/").host();
+    server.shutdown();
+
+    fetch(url);
+
+    assertEquals(1, reported.size());
+    assertEquals(0, reported.get(0).getStatusCode());
+    assertEquals(RequestMetrics.ERROR_CONNECTION, reported.get(0).getErrorClass());
+    assertEquals(1, HttpRequestUtil.getHostMetrics().get(host).getErrorCount(RequestMetrics.ERROR_CONNECTION));
+  }
+
+  private static void fetch(String url) throws InterruptedException {
+    final CountDownLatch latch = new CountDownLatch(1);
+    InFlightRequest.join(new InFlightRequest.Waiter() {
+      @Override
+      public void onResponse(HttpTransport.Response response, ResponseBuffer body) {
+        latch.countDown();
+      }
+
+      @Override
+      public void onFailure(Exception exception) {
+        latch.countDown();
+      }
+    }, url + "\n\n", new HttpTransport.Request(HttpUrl.parse(url)), RequestScheduler.PRIORITY_REQUIRED);
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+  }
+}
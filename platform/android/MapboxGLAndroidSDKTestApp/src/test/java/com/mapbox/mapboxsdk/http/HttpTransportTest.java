@@ -0,0 +1,268 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.HttpUrl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HttpTransportTest {
+
+  private static final String TILE_URL = "https://tiles.example.com/v4/tiles/14/%d/0.pbf";
+
+  private HttpTransport original;
+  private LocalTileTransport transport;
+
+  @Before
+  public void beforeTest() {
+    original = HttpRequestUtil.getTransport();
+    transport = new LocalTileTransport();
+    HttpRequestUtil.setTransport(transport);
+  }
+
+  @After
+  public void afterTest() throws InterruptedException {
+    HttpRequestUtil.setTransport(original);
+    transport.shutdown();
+  }
+
+  @Test
+  public void testLocalTransport() throws Exception {
+    transport.putTile(String.format(TILE_URL, 1), new byte[] {1, 2, 3});
+
+    final int[] codes = new int[2];
+    final long[] lengths = new long[2];
+    final CountDownLatch latch = new CountDownLatch(2);
+    for (int i = 0; i < 2; i++) {
+      final int index = i;
+      String url = String.format(TILE_URL, i + 1);
+      InFlightRequest.join(new InFlightRequest.Waiter() {
+        @Override
+        public void onResponse(HttpTransport.Response response, ResponseBuffer body) {
+          codes[index] = response.getCode();
+          lengths[index] = body.getLength();
+          latch.countDown();
+        }
+
+        @Override
+        public void onFailure(Exception exception) {
+          latch.countDown();
+        }
+      }, url + "\n\n", new HttpTransport.Request(HttpUrl.parse(url)), RequestScheduler.PRIORITY_REQUIRED);
+    }
+
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertEquals(200, codes[0]);
+    assertEquals(3, lengths[0]);
+    assertEquals(404, codes[1]);
+    assertEquals(2, transport.getRequestCount());
+  }
+
+  @Test
+  public void testSchedulerLimits() {
+    // the scheduler hands the transport no more requests than it reports
+    assertEquals(4, HTTPRequest.getScheduler().getMaxActiveRequests());
+    assertEquals(4, HTTPRequest.getScheduler().getMaxActiveRequestsPerHost());
+
+    HttpRequestUtil.setTransport(original);
+    assertEquals(HttpClientOptions.DEFAULT_MAX_REQUESTS, HTTPRequest.getScheduler().getMaxActiveRequests());
+    assertEquals(HttpClientOptions.DEFAULT_MAX_REQUESTS_PER_HOST,
+      HTTPRequest.getScheduler().getMaxActiveRequestsPerHost());
+  }
+
+  @Test
+  public void testCancelledRequest() throws Exception {
+    final AtomicInteger delivered = new AtomicInteger();
+    String url = String.format(TILE_URL, 1);
+    transport.putTile(url, new byte[] {1});
+    transport.pause();
+
+    InFlightRequest.Waiter waiter = new InFlightRequest.Waiter() {
+      @Override
+      public void onResponse(HttpTransport.Response response, ResponseBuffer body) {
+        delivered.incrementAndGet();
+      }
+
+      @Override
+      public void onFailure(Exception exception) {
+        delivered.incrementAndGet();
+      }
+    };
+    InFlightRequest fetch = InFlightRequest.join(waiter, url + "\n\n", new HttpTransport.Request(HttpUrl.parse(url)),
+      RequestScheduler.PRIORITY_REQUIRED);
+    fetch.leave(waiter);
+    transport.resume();
+    transport.shutdown();
+
+    assertEquals(1, transport.getCancelledCount());
+    assertEquals(0, delivered.get());
+  }
+
+  @Test
+  public void testMetricsRecorded() throws Exception {
+    final List<RequestMetrics> reported = new ArrayList<>();
+    HttpRequestUtil.resetMetrics();
+    HttpRequestUtil.setMetricsListener(new HttpMetricsListener() {
+      @Override
+      public void onRequestMetrics(RequestMetrics metrics) {
+        synchronized (reported) {
+          reported.add(metrics);
+        }
+      }
+    });
+    try {
+      String url = String.format(TILE_URL, 1);
+      transport.putTile(url, new byte[] {1, 2, 3});
+      final CountDownLatch latch = new CountDownLatch(1);
+      InFlightRequest.join(new InFlightRequest.Waiter() {
+        @Override
+        public void onResponse(HttpTransport.Response response, ResponseBuffer body) {
+          latch.countDown();
+        }
+
+        @Override
+        public void onFailure(Exception exception) {
+          latch.countDown();
+        }
+      }, url + "\n\n", new HttpTransport.Request(HttpUrl.parse(url)), RequestScheduler.PRIORITY_REQUIRED);
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+      // a custom transport reports the outcome and total time, the connection phases aren't measured
+      synchronized (reported) {
+        assertEquals(1, reported.size());
+        RequestMetrics metrics = reported.get(0);
+        assertEquals("tiles.example.com", metrics.getHost());
+        assertEquals(200, metrics.getStatusCode());
+        assertEquals(3, metrics.getBytes());
+        assertEquals(0, metrics.getFirstByteMillis());
+      }
+    } finally {
+      HttpRequestUtil.setMetricsListener(null);
+      HttpRequestUtil.resetMetrics();
+    }
+  }
+
+  /**
+   * Serves tiles from memory on a small thread pool, a stand-in for the network.
+   */
+  private static class LocalTileTransport implements HttpTransport {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final Map<String, byte[]> tiles = new HashMap<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger cancelledCount = new AtomicInteger();
+    private final Object pauseLock = new Object();
+    private boolean paused;
+
+    synchronized void putTile(String url, byte[] tile) {
+      tiles.put(url, tile);
+    }
+
+    private synchronized byte[] getTile(String url) {
+      return tiles.get(url);
+    }
+
+    int getRequestCount() {
+      return requestCount.get();
+    }
+
+    int getCancelledCount() {
+      return cancelledCount.get();
+    }
+
+    void pause() {
+      synchronized (pauseLock) {
+        paused = true;
+      }
+    }
+
+    void resume() {
+      synchronized (pauseLock) {
+        paused = false;
+        pauseLock.notifyAll();
+      }
+    }
+
+    void shutdown() throws InterruptedException {
+      executor.shutdown();
+      executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public boolean isConnected() {
+      return true;
+    }
+
+    @Override
+    public int getMaxRequests() {
+      return 4;
+    }
+
+    @Override
+    public int getMaxRequestsPerHost() {
+      return 4;
+    }
+
+    @NonNull
+    @Override
+    public Cancelable enqueue(@NonNull final Request request, @NonNull final Callback callback) {
+      requestCount.incrementAndGet();
+      final AtomicInteger state = new AtomicInteger();
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          synchronized (pauseLock) {
+            while (paused) {
+              try {
+                pauseLock.wait();
+              } catch (InterruptedException exception) {
+                return;
+              }
+            }
+          }
+          if (!state.compareAndSet(0, 1)) {
+            return;
+          }
+
+          byte[] tile = getTile(request.getUrl());
+          Response response = new Response.Builder()
+            .request(request)
+            .code(tile != null ? 200 : 404)
+            .message(tile != null ? "OK" : "Not Found")
+            .header("Content-Type", "application/x-protobuf")
+            .body(tile != null ? tile : new byte[0])
+            .build();
+          try {
+            callback.onResponse(response);
+          } catch (IOException exception) {
+            callback.onFailure(exception);
+          }
+        }
+      });
+      return new Cancelable() {
+        @Override
+        public void cancel() {
+          if (state.compareAndSet(0, 2)) {
+            cancelledCount.incrementAndGet();
+          }
+        }
+      };
+    }
+  }
+}
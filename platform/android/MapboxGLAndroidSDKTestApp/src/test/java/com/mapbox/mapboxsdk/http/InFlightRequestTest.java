@@ -0,0 +1,163 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class InFlightRequestTest {
+
+  private MockWebServer server;
+
+  @Before
+  public void beforeTest() throws IOException {
+    server = new MockWebServer();
+    server.start();
+  }
+
+  @After
+  public void afterTest() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void testCoalesce() throws Exception {
+    server.enqueue(new MockResponse().setBody("tile").setBodyDelay(200, TimeUnit.MILLISECONDS));
+    String url = server.url("/coalesce.pbf").toString();
+    CountDownLatch latch = new CountDownLatch(3);
+    FakeWaiter first = new FakeWaiter(latch);
+    FakeWaiter second = new FakeWaiter(latch);
+    FakeWaiter third = new FakeWaiter(latch);
+
+    InFlightRequest fetch = join(first, url);
+    assertSame(fetch, join(second, url));
+    assertSame(fetch, join(third, url));
+    assertEquals(3, fetch.getWaiterCount());
+
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    assertEquals(1, server.getRequestCount());
+    assertEquals("tile", first.body);
+    assertEquals("tile", second.body);
+    assertEquals("tile", third.body);
+  }
+
+  @Test
+  public void testLeaveKeepsSharedFetch() throws Exception {
+    server.enqueue(new MockResponse().setBody("tile").setBodyDelay(200, TimeUnit.MILLISECONDS));
+    String url = server.url("/leave.pbf").toString();
+    CountDownLatch latch = new CountDownLatch(1);
+    FakeWaiter leaving = new FakeWaiter(new CountDownLatch(1));
+    FakeWaiter staying = new FakeWaiter(latch);
+
+    InFlightRequest fetch = join(leaving, url);
+    join(staying, url);
+    fetch.leave(leaving);
+
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    assertEquals("tile", staying.body);
+    assertNull(staying.failure);
+    assertNull(leaving.body);
+  }
+
+  @Test
+  public void testLastLeaveCancels() throws Exception {
+    // the server never answers, only cancelling the call completes it
+    server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+    String url = server.url("/cancel.pbf").toString();
+    FakeWaiter first = new FakeWaiter(new CountDownLatch(1));
+    FakeWaiter second = new FakeWaiter(new CountDownLatch(1));
+
+    InFlightRequest fetch = join(first, url);
+    join(second, url);
+    fetch.leave(first);
+    assertEquals(1, InFlightRequest.getInFlightCount());
+    fetch.leave(second);
+    assertEquals(0, InFlightRequest.getInFlightCount());
+
+    RequestScheduler scheduler = HTTPRequest.getScheduler();
+    long deadline = System.currentTimeMillis() + 10000;
+    while (scheduler.getActiveCount() > 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, scheduler.getActiveCount());
+    assertEquals(1, first.latch.getCount());
+    assertEquals(1, second.latch.getCount());
+  }
+
+  @Test
+  public void testDifferentValidatorsNotCoalesced() throws Exception {
+    server.enqueue(new MockResponse().setBody("tile"));
+    server.enqueue(new MockResponse().setResponseCode(304));
+    CountDownLatch latch = new CountDownLatch(2);
+
+    String url = server.url("/validators.pbf").toString();
+    InFlightRequest fetch = join(new FakeWaiter(latch), url);
+    InFlightRequest conditional = InFlightRequest.join(new FakeWaiter(latch), url + "\netag\n",
+      new HttpTransport.Request(HttpUrl.parse(url), "If-None-Match", "etag"), RequestScheduler.PRIORITY_REQUIRED);
+
+    assertNotSame(fetch, conditional);
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    assertEquals(2, server.getRequestCount());
+  }
+
+  @Test
+  public void testFailureDeliveredToAllWaiters() throws Exception {
+    server.enqueue(new MockResponse().setBody("tile").setBodyDelay(200, TimeUnit.MILLISECONDS)
+      .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+    String url = server.url("/failure.pbf").toString();
+    CountDownLatch latch = new CountDownLatch(2);
+    FakeWaiter first = new FakeWaiter(latch);
+    FakeWaiter second = new FakeWaiter(latch);
+
+    InFlightRequest fetch = join(first, url);
+    assertSame(fetch, join(second, url));
+
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    assertTrue(first.failure instanceof IOException);
+    assertTrue(second.failure instanceof IOException);
+  }
+
+  private InFlightRequest join(FakeWaiter waiter, String url) {
+    return InFlightRequest.join(waiter, url + "\n\n", new HttpTransport.Request(HttpUrl.parse(url)),
+      RequestScheduler.PRIORITY_REQUIRED);
+  }
+
+  private static class FakeWaiter implements InFlightRequest.Waiter {
+
+    private final CountDownLatch latch;
+    private volatile String body;
+    private volatile Exception failure;
+
+    FakeWaiter(CountDownLatch latch) {
+      this.latch = latch;
+    }
+
+    @Override
+    public void onResponse(HttpTransport.Response response, ResponseBuffer responseBuffer) {
+      byte[] bytes = new byte[responseBuffer.getLength()];
+      responseBuffer.getBuffer().duplicate().get(bytes);
+      body = new String(bytes);
+      latch.countDown();
+    }
+
+    @Override
+    public void onFailure(Exception exception) {
+      failure = exception;
+      latch.countDown();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.Test;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NativeCallbackGuardTest {
+
+  private static final long NATIVE_PTR = 0x7f000000L;
+
+  @Test
+  public void testSingleCallback() {
+    NativeCallbackGuard guard = new NativeCallbackGuard(NATIVE_PTR);
+    assertTrue(guard.beginCallback());
+    guard.endCallback();
+    assertFalse(guard.beginCallback());
+  }
+
+  @Test
+  public void testNoCallbackAfterCancel() {
+    NativeCallbackGuard guard = new NativeCallbackGuard(NATIVE_PTR);
+    guard.cancel();
+    assertFalse(guard.beginCallback());
+  }
+
+  @Test
+  public void testCancelAfterCallback() {
+    NativeCallbackGuard guard = new NativeCallbackGuard(NATIVE_PTR);
+    assertTrue(guard.beginCallback());
+    guard.endCallback();
+    guard.cancel();
+    assertFalse(guard.beginCallback());
+  }
+
+  @Test
+  public void testConcurrentCallbacks() {
+    NativeCallbackGuard guard = new NativeCallbackGuard(NATIVE_PTR);
+    assertTrue(guard.beginCallback());
+    assertFalse(guard.beginCallback());
+  }
+
+  @Test
+  public void testCancelStress() throws Exception {
+    final int iterations = 20000;
+    final AtomicInteger violations = new AtomicInteger();
+    final CyclicBarrier barrier = new CyclicBarrier(2);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    try {
+      for (int i = 0; i < iterations; i++) {
+        final NativeCallbackGuard guard = new NativeCallbackGuard(NATIVE_PTR);
+        // stands in for the native peer, destroyed as soon as cancel returns
+        final AtomicInteger peer = new AtomicInteger(1);
+
+        Future<?> callback = executor.submit(new Runnable() {
+          @Override
+          public void run() {
+            await(barrier);
+            if (guard.beginCallback()) {
+              try {
+                for (int spin = 0; spin < 100; spin++) {
+                  if (peer.get() == 0) {
+                    violations.incrementAndGet();
+                  }
+                }
+              } finally {
+                guard.endCallback();
+              }
+            }
+          }
+        });
+        Future<?> cancel = executor.submit(new Runnable() {
+          @Override
+          public void run() {
+            await(barrier);
+            guard.cancel();
+            peer.set(0);
+          }
+        });
+        callback.get(10, TimeUnit.SECONDS);
+        cancel.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(0, violations.get());
+  }
+
+  private static void await(CyclicBarrier barrier) {
+    try {
+      barrier.await();
+    } catch (Exception exception) {
+      throw new RuntimeException(exception);
+    }
+  }
+}
@@ -0,0 +1,212 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RequestSchedulerTest {
+
+  private RequestScheduler scheduler;
+  private List<FakeTask> executed;
+
+  @Before
+  public void beforeTest() {
+    scheduler = new RequestScheduler(2, 2);
+    executed = new ArrayList<>();
+  }
+
+  @Test
+  public void testExecuteUpToMaxActive() {
+    schedule("a", RequestScheduler.PRIORITY_REQUIRED);
+    schedule("b", RequestScheduler.PRIORITY_REQUIRED);
+    schedule("c", RequestScheduler.PRIORITY_REQUIRED);
+    assertEquals(2, executed.size());
+    assertEquals(2, scheduler.getActiveCount());
+    assertEquals(1, scheduler.getQueuedCount());
+  }
+
+  @Test
+  public void testPriorityOrder() {
+    FakeTask first = schedule("offline-1", RequestScheduler.PRIORITY_LOW);
+    FakeTask second = schedule("offline-2", RequestScheduler.PRIORITY_LOW);
+    schedule("offline-3", RequestScheduler.PRIORITY_LOW);
+    schedule("glyphs", RequestScheduler.PRIORITY_RESOURCE);
+    schedule("tile-1", RequestScheduler.PRIORITY_REQUIRED);
+    schedule("tile-2", RequestScheduler.PRIORITY_REQUIRED);
+
+    scheduler.finished(first);
+    scheduler.finished(second);
+    assertEquals("tile-1", executed.get(2).name);
+    assertEquals("tile-2", executed.get(3).name);
+
+    scheduler.finished(executed.get(2));
+    assertEquals("glyphs", executed.get(4).name);
+    scheduler.finished(executed.get(3));
+    assertEquals("offline-3", executed.get(5).name);
+  }
+
+  @Test
+  public void testCancelQueued() {
+    FakeTask first = schedule("tile-1", RequestScheduler.PRIORITY_REQUIRED);
+    schedule("tile-2", RequestScheduler.PRIORITY_REQUIRED);
+    FakeTask left = schedule("tile-3", RequestScheduler.PRIORITY_REQUIRED);
+    schedule("tile-4", RequestScheduler.PRIORITY_REQUIRED);
+
+    assertTrue(scheduler.cancel(left));
+    assertFalse(scheduler.cancel(first));
+    scheduler.finished(first);
+    assertEquals("tile-4", executed.get(2).name);
+    assertEquals(0, scheduler.getQueuedCount());
+  }
+
+  @Test
+  public void testFinishedTwice() {
+    FakeTask first = schedule("tile-1", RequestScheduler.PRIORITY_REQUIRED);
+    schedule("tile-2", RequestScheduler.PRIORITY_REQUIRED);
+    schedule("tile-3", RequestScheduler.PRIORITY_REQUIRED);
+    schedule("tile-4", RequestScheduler.PRIORITY_REQUIRED);
+
+    scheduler.finished(first);
+    scheduler.finished(first);
+    assertEquals(3, executed.size());
+    assertEquals(2, scheduler.getActiveCount());
+  }
+
+  @Test
+  public void testRaiseMaxActive() {
+    for (int i = 0; i < 5; i++) {
+      schedule("tile-" + i, RequestScheduler.PRIORITY_REQUIRED);
+    }
+    scheduler.setMaxActiveRequests(4);
+    assertEquals(2, executed.size());
+    scheduler.setMaxActiveRequestsPerHost(4);
+    assertEquals(4, executed.size());
+  }
+
+  @Test
+  public void testExecuteUpToMaxActivePerHost() {
+    scheduler = new RequestScheduler(4, 2);
+    schedule("a-1", "a.tiles.mapbox.com", RequestScheduler.PRIORITY_REQUIRED);
+    schedule("a-2", "a.tiles.mapbox.com", RequestScheduler.PRIORITY_REQUIRED);
+    schedule("a-3", "a.tiles.mapbox.com", RequestScheduler.PRIORITY_REQUIRED);
+    schedule("b-1", "b.tiles.mapbox.com", RequestScheduler.PRIORITY_REQUIRED);
+
+    assertEquals(3, executed.size());
+    assertEquals("b-1", executed.get(2).name);
+    assertEquals(2, scheduler.getActiveCount("a.tiles.mapbox.com"));
+    assertEquals(1, scheduler.getActiveCount("b.tiles.mapbox.com"));
+    assertEquals(1, scheduler.getQueuedCount());
+  }
+
+  @Test
+  public void testBusyHostDoesNotBlockOtherHosts() {
+    scheduler = new RequestScheduler(4, 1);
+    FakeTask first = schedule("tile-1", "a.tiles.mapbox.com", RequestScheduler.PRIORITY_REQUIRED);
+    schedule("tile-2", "a.tiles.mapbox.com", RequestScheduler.PRIORITY_REQUIRED);
+    schedule("glyphs", "api.mapbox.com", RequestScheduler.PRIORITY_RESOURCE);
+    assertEquals("glyphs", executed.get(1).name);
+
+    // lower priority requests for other hosts go ahead, the waiting tile runs once its host has a slot again
+    schedule("offline", "b.tiles.mapbox.com", RequestScheduler.PRIORITY_LOW);
+    assertEquals("offline", executed.get(2).name);
+    scheduler.finished(first);
+    assertEquals("tile-2", executed.get(3).name);
+    assertEquals(0, scheduler.getQueuedCount());
+  }
+
+  @Test
+  public void testMaxActiveAcrossHosts() {
+    scheduler = new RequestScheduler(2, 2);
+    FakeTask first = schedule("a-1", "a.tiles.mapbox.com", RequestScheduler.PRIORITY_REQUIRED);
+    schedule("b-1", "b.tiles.mapbox.com", RequestScheduler.PRIORITY_REQUIRED);
+    schedule("c-1", "c.tiles.mapbox.com", RequestScheduler.PRIORITY_REQUIRED);
+    assertEquals(2, executed.size());
+
+    scheduler.finished(first);
+    assertEquals("c-1", executed.get(2).name);
+    assertEquals(0, scheduler.getActiveCount("a.tiles.mapbox.com"));
+    assertEquals(2, scheduler.getActiveCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMaxActive() {
+    scheduler.setMaxActiveRequests(0);
+  }
+
+  @Test
+  public void testViewportLoadedBeforeOfflineRequests() {
+    int offlineCount = 500;
+    int viewportCount = 30;
+    int maxActive = HttpClientOptions.DEFAULT_MAX_REQUESTS_PER_HOST;
+
+    // only the offline requests already running are ahead of the viewport
+    assertEquals(3, roundsUntilViewportLoaded(true, offlineCount, viewportCount, maxActive));
+    // arrival order, as done by handing every request to OkHttp directly, waits for all offline requests
+    assertEquals(27, roundsUntilViewportLoaded(false, offlineCount, viewportCount, maxActive));
+  }
+
+  private int roundsUntilViewportLoaded(boolean prioritized, int offlineCount, int viewportCount, int maxActive) {
+    scheduler = new RequestScheduler(HttpClientOptions.DEFAULT_MAX_REQUESTS, maxActive);
+    executed = new ArrayList<>();
+    for (int i = 0; i < offlineCount; i++) {
+      schedule("offline", RequestScheduler.PRIORITY_LOW);
+    }
+    for (int i = 0; i < viewportCount; i++) {
+      schedule("tile", prioritized ? RequestScheduler.PRIORITY_REQUIRED : RequestScheduler.PRIORITY_LOW);
+    }
+
+    // every round trip completes all active requests
+    int rounds = 0;
+    int loaded = 0;
+    int completed = 0;
+    while (loaded < viewportCount) {
+      rounds++;
+      List<FakeTask> active = new ArrayList<>(executed.subList(completed, executed.size()));
+      completed = executed.size();
+      for (FakeTask task : active) {
+        if (task.name.equals("tile")) {
+          loaded++;
+        }
+        scheduler.finished(task);
+      }
+    }
+    return rounds;
+  }
+
+  private FakeTask schedule(String name, int priority) {
+    return schedule(name, "a.tiles.mapbox.com", priority);
+  }
+
+  private FakeTask schedule(String name, String host, int priority) {
+    FakeTask task = new FakeTask(name, host);
+    scheduler.schedule(task, priority);
+    return task;
+  }
+
+  private class FakeTask implements RequestScheduler.Task {
+
+    private final String name;
+    private final String host;
+
+    FakeTask(String name, String host) {
+      this.name = name;
+      this.host = host;
+    }
+
+    @Override
+    public String getHost() {
+      return host;
+    }
+
+    @Override
+    public void execute() {
+      executed.add(this);
+    }
+  }
+}
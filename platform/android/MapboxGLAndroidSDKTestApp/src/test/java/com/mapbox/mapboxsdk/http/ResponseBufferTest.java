@@ -0,0 +1,142 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseBufferTest {
+
+  @Test
+  public void testRead() throws IOException {
+    byte[] body = body(1000);
+    ResponseBuffer responseBuffer = new ResponseBuffer();
+    responseBuffer.read(new ByteArrayInputStream(body), body.length);
+
+    ByteBuffer buffer = responseBuffer.getBuffer();
+    assertTrue(buffer.isDirect());
+    assertEquals(body.length, responseBuffer.getLength());
+    for (int i = 0; i < body.length; i++) {
+      assertEquals(body[i], buffer.get(i));
+    }
+  }
+
+  @Test
+  public void testGrowWithUnknownLength() throws IOException {
+    byte[] body = body(ResponseBuffer.MIN_CAPACITY * 5 + 3);
+    ResponseBuffer responseBuffer = new ResponseBuffer();
+    responseBuffer.read(new ByteArrayInputStream(body), -1);
+
+    ByteBuffer buffer = responseBuffer.getBuffer();
+    assertEquals(body.length, responseBuffer.getLength());
+    assertEquals(ResponseBuffer.MIN_CAPACITY * 8, buffer.capacity());
+    for (int i = 0; i < body.length; i++) {
+      assertEquals(body[i], buffer.get(i));
+    }
+  }
+
+  @Test
+  public void testEmptyBody() throws IOException {
+    ResponseBuffer responseBuffer = new ResponseBuffer();
+    responseBuffer.read(new ByteArrayInputStream(new byte[0]), 0);
+    assertEquals(0, responseBuffer.getLength());
+  }
+
+  @Test
+  public void testReuse() throws IOException {
+    ResponseBuffer responseBuffer = new ResponseBuffer();
+    responseBuffer.read(new ByteArrayInputStream(body(20000)), 20000);
+    ByteBuffer buffer = responseBuffer.getBuffer();
+    // grown once past the minimum capacity
+    assertEquals(2, responseBuffer.getAllocationCount());
+    responseBuffer.read(new ByteArrayInputStream(body(500)), 500);
+    responseBuffer.read(new ByteArrayInputStream(body(20000)), 20000);
+    assertSame(buffer, responseBuffer.getBuffer());
+    assertEquals(20000, responseBuffer.getLength());
+    assertEquals(2, responseBuffer.getAllocationCount());
+  }
+
+  @Test
+  public void testContentLengthDoesNotReserve() throws IOException {
+    ResponseBuffer responseBuffer = new ResponseBuffer();
+    responseBuffer.read(new ByteArrayInputStream(body(1000)), 64 * 1024 * 1024);
+    assertEquals(1000, responseBuffer.getLength());
+    assertEquals(ResponseBuffer.MIN_CAPACITY, responseBuffer.getBuffer().capacity());
+  }
+
+  @Test(expected = IOException.class)
+  public void testContentLengthTooLarge() throws IOException {
+    new ResponseBuffer().read(new ByteArrayInputStream(body(10)), Integer.MAX_VALUE + 1L);
+  }
+
+  @Test
+  public void testPoolRecycles() throws IOException {
+    ResponseBuffer.releasePool();
+    ResponseBuffer responseBuffer = ResponseBuffer.obtain();
+    responseBuffer.read(new ByteArrayInputStream(body(1000)), 1000);
+    responseBuffer.recycle();
+    assertEquals(ResponseBuffer.MIN_CAPACITY, ResponseBuffer.getPoolBytes());
+
+    assertSame(responseBuffer, ResponseBuffer.obtain());
+    assertEquals(0, ResponseBuffer.getPoolBytes());
+  }
+
+  @Test
+  public void testPoolBytesCapped() throws IOException {
+    ResponseBuffer.releasePool();
+    // the largest buffers still pooled one by one, fewer than the pool size fit together
+    int bodyLength = ResponseBuffer.MAX_POOLED_CAPACITY;
+    int fitting = ResponseBuffer.MAX_POOL_BYTES / bodyLength;
+    assertTrue(fitting < ResponseBuffer.MAX_POOL_SIZE);
+
+    List<ResponseBuffer> buffers = new ArrayList<>();
+    for (int i = 0; i < fitting + 1; i++) {
+      ResponseBuffer responseBuffer = ResponseBuffer.obtain();
+      responseBuffer.read(new ByteArrayInputStream(body(bodyLength)), bodyLength);
+      buffers.add(responseBuffer);
+    }
+    for (ResponseBuffer responseBuffer : buffers) {
+      responseBuffer.recycle();
+    }
+    assertEquals(fitting * bodyLength, ResponseBuffer.getPoolBytes());
+    assertTrue(ResponseBuffer.getPoolBytes() <= ResponseBuffer.MAX_POOL_BYTES);
+    ResponseBuffer.releasePool();
+  }
+
+  @Test
+  public void testLargeBufferNotPooled() throws IOException {
+    ResponseBuffer.releasePool();
+    int bodyLength = ResponseBuffer.MAX_POOLED_CAPACITY + 1;
+    ResponseBuffer responseBuffer = ResponseBuffer.obtain();
+    responseBuffer.read(new ByteArrayInputStream(body(bodyLength)), bodyLength);
+    responseBuffer.recycle();
+    assertEquals(0, ResponseBuffer.getPoolBytes());
+    ResponseBuffer.releasePool();
+  }
+
+  @Test
+  public void testReleasePool() throws IOException {
+    ResponseBuffer responseBuffer = ResponseBuffer.obtain();
+    responseBuffer.read(new ByteArrayInputStream(body(1000)), 1000);
+    responseBuffer.recycle();
+    ResponseBuffer.releasePool();
+    assertEquals(0, ResponseBuffer.getPoolBytes());
+    assertNotSame(responseBuffer, ResponseBuffer.obtain());
+  }
+
+  private static byte[] body(int length) {
+    byte[] body = new byte[length];
+    for (int i = 0; i < length; i++) {
+      body[i] = (byte) (i * 31);
+    }
+    return body;
+  }
+}
@@ -0,0 +1,185 @@
+package com.mapbox.mapboxsdk.maps;
+
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MarkerOptions;
+import com.mapbox.mapboxsdk.annotations.MarkerViewManager;
+import com.mapbox.mapboxsdk.annotations.Polyline;
+import com.mapbox.mapboxsdk.annotations.PolylineOptions;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AnnotationManagerTest {
+
+  @Mock
+  private NativeMap nativeMapView;
+
+  @Mock
+  private MapView mapView;
+
+  @Mock
+  private IconManager iconManager;
+
+  @Mock
+  private MarkerViewManager markerViewManager;
+
+  @Mock
+  private MapboxMap mapboxMap;
+
+  private AnnotationManager annotationManager;
+
+  @Before
+  public void beforeTest() {
+    MockitoAnnotations.initMocks(this);
+    annotationManager = new AnnotationManager(nativeMapView, mapView, iconManager, markerViewManager);
+  }
+
+  @Test
+  public void testAppendedPointsAreCoalesced() {
+    Polyline polyline = addPolyline(7);
+
+    polyline.addPoint(new LatLng(2, 2));
+    annotationManager.appendPolylinePoints(polyline);
+    polyline.addPoint(new LatLng(3, 3));
+    annotationManager.appendPolylinePoints(polyline);
+    verify(nativeMapView, never()).appendPolylinePoints(any(Polyline.class), anyInt());
+
+    // both additions go out in a single transfer, starting at the first added point
+    annotationManager.flushAppendedPolylinePoints();
+    verify(nativeMapView, times(1)).appendPolylinePoints(polyline, 2);
+    verify(nativeMapView, never()).updatePolyline(any(Polyline.class));
+
+    annotationManager.flushAppendedPolylinePoints();
+    verify(nativeMapView, times(1)).appendPolylinePoints(any(Polyline.class), anyInt());
+  }
+
+  @Test
+  public void testUpdateDropsAppendedPoints() {
+    Polyline polyline = addPolyline(7);
+
+    polyline.addPoint(new LatLng(2, 2));
+    annotationManager.appendPolylinePoints(polyline);
+    annotationManager.updatePolyline(polyline);
+    annotationManager.flushAppendedPolylinePoints();
+
+    verify(nativeMapView, times(1)).updatePolyline(polyline);
+    verify(nativeMapView, never()).appendPolylinePoints(any(Polyline.class), anyInt());
+  }
+
+  @Test
+  public void testRemovedPolylineIsNotAppended() {
+    Polyline polyline = addPolyline(7);
+
+    polyline.addPoint(new LatLng(2, 2));
+    annotationManager.appendPolylinePoints(polyline);
+    annotationManager.removeAnnotation(polyline);
+    annotationManager.flushAppendedPolylinePoints();
+
+    verify(nativeMapView, never()).appendPolylinePoints(any(Polyline.class), anyInt());
+  }
+
+  @Test
+  public void testUpdateMarkersPacksArrays() {
+    Icon first = icon("first");
+    Icon second = icon("second");
+    annotationManager.updateMarkers(Arrays.asList(marker(1, 10, 20, first), marker(2, 30, 40, second)), mapboxMap);
+
+    UpdateMarkersCaptor captor = new UpdateMarkersCaptor();
+    assertArrayEquals(new long[] {1, 2}, captor.ids.getValue());
+    assertArrayEquals(new double[] {10, 20, 30, 40}, captor.positions.getValue(), 0);
+    assertArrayEquals(new int[] {0, 1}, captor.iconIndices.getValue());
+    assertArrayEquals(new String[] {"first", "second"}, captor.iconIds.getValue());
+  }
+
+  @Test
+  public void testUpdateMarkersSkipsMarkersNotAdded() {
+    Icon icon = icon("icon");
+    Marker notAdded = new MarkerOptions().position(new LatLng(50, 60)).icon(icon).getMarker();
+    annotationManager.updateMarkers(Arrays.asList(marker(1, 10, 20, icon), null, notAdded, marker(3, 30, 40, icon)),
+      mapboxMap);
+
+    UpdateMarkersCaptor captor = new UpdateMarkersCaptor();
+    assertArrayEquals(new long[] {1, 3}, captor.ids.getValue());
+    assertArrayEquals(new double[] {10, 20, 30, 40}, captor.positions.getValue(), 0);
+    assertArrayEquals(new int[] {0, 0}, captor.iconIndices.getValue());
+    assertArrayEquals(new String[] {"icon"}, captor.iconIds.getValue());
+  }
+
+  @Test
+  public void testUpdateMarkersWithoutAddedMarkers() {
+    Marker notAdded = new MarkerOptions().position(new LatLng(50, 60)).getMarker();
+    annotationManager.updateMarkers(Arrays.asList(notAdded, null), mapboxMap);
+    verify(nativeMapView, never()).updateMarkers(any(long[].class), any(double[].class), any(int[].class),
+      any(String[].class));
+  }
+
+  @Test
+  public void testUpdateMarkersDeduplicatesIcons() {
+    Icon first = icon("first");
+    Icon second = icon("second");
+    Marker firstMarker = marker(1, 0, 0, first);
+    Marker secondMarker = marker(2, 0, 0, second);
+    Marker thirdMarker = marker(3, 0, 0, first);
+    Marker fourthMarker = marker(4, 0, 0, first);
+    annotationManager.updateMarkers(Arrays.asList(firstMarker, secondMarker, thirdMarker, fourthMarker), mapboxMap);
+
+    UpdateMarkersCaptor captor = new UpdateMarkersCaptor();
+    assertArrayEquals(new int[] {0, 1, 0, 0}, captor.iconIndices.getValue());
+    assertArrayEquals(new String[] {"first", "second"}, captor.iconIds.getValue());
+
+    // icons are loaded once per distinct icon, markers sharing an icon only check their offset
+    verify(iconManager, times(2)).ensureIconLoaded(any(Marker.class), any(MapboxMap.class));
+    verify(iconManager).ensureIconLoaded(firstMarker, mapboxMap);
+    verify(iconManager).ensureIconLoaded(secondMarker, mapboxMap);
+    verify(iconManager).updateTopOffsetPixels(thirdMarker, first, mapboxMap);
+    verify(iconManager).updateTopOffsetPixels(fourthMarker, first, mapboxMap);
+    verify(iconManager, times(1)).getSpriteId(first);
+  }
+
+  private Icon icon(String spriteId) {
+    Icon icon = mock(Icon.class);
+    when(iconManager.getSpriteId(icon)).thenReturn(spriteId);
+    return icon;
+  }
+
+  private static Marker marker(long id, double latitude, double longitude, Icon icon) {
+    Marker marker = new MarkerOptions().position(new LatLng(latitude, longitude)).icon(icon).getMarker();
+    marker.setId(id);
+    return marker;
+  }
+
+  private class UpdateMarkersCaptor {
+
+    private final ArgumentCaptor<long[]> ids = ArgumentCaptor.forClass(long[].class);
+    private final ArgumentCaptor<double[]> positions = ArgumentCaptor.forClass(double[].class);
+    private final ArgumentCaptor<int[]> iconIndices = ArgumentCaptor.forClass(int[].class);
+    private final ArgumentCaptor<String[]> iconIds = ArgumentCaptor.forClass(String[].class);
+
+    UpdateMarkersCaptor() {
+      verify(nativeMapView, times(1)).updateMarkers(ids.capture(), positions.capture(), iconIndices.capture(),
+        iconIds.capture());
+    }
+  }
+
+  private Polyline addPolyline(long id) {
+    PolylineOptions options = new PolylineOptions().add(new LatLng(0, 0), new LatLng(1, 1));
+    when(nativeMapView.addPolyline(options.getPolyline())).thenReturn(id);
+    return annotationManager.addPolyline(options, mapboxMap);
+  }
+}
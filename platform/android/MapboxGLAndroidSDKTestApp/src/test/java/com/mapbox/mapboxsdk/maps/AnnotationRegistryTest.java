@@ -0,0 +1,244 @@
+package com.mapbox.mapboxsdk.maps;
+
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MarkerOptions;
+import com.mapbox.mapboxsdk.annotations.Polygon;
+import com.mapbox.mapboxsdk.annotations.PolygonOptions;
+import com.mapbox.mapboxsdk.annotations.Polyline;
+import com.mapbox.mapboxsdk.annotations.PolylineOptions;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AnnotationRegistryTest {
+
+  private AnnotationRegistry registry;
+
+  @Before
+  public void beforeTest() {
+    registry = new AnnotationRegistry();
+  }
+
+  @Test
+  public void testPartitionByType() {
+    Marker marker = addMarker(1);
+    Polygon polygon = addPolygon(2);
+    Polyline polyline = addPolyline(3);
+
+    assertEquals(3, registry.getAnnotations().size());
+    assertEquals(1, registry.getMarkers().size());
+    assertEquals(marker, registry.getMarkers().get(0));
+    assertEquals(1, registry.getPolygons().size());
+    assertEquals(polygon, registry.getPolygons().get(0));
+    assertEquals(1, registry.getPolylines().size());
+    assertEquals(polyline, registry.getPolylines().get(0));
+  }
+
+  @Test
+  public void testLiveViews() {
+    List<Marker> markers = registry.getMarkers();
+    assertTrue(markers.isEmpty());
+
+    Marker marker = addMarker(1);
+    assertEquals(1, markers.size());
+    assertTrue(markers.contains(marker));
+
+    registry.remove(1);
+    assertTrue(markers.isEmpty());
+    assertFalse(markers.contains(marker));
+  }
+
+  @Test
+  public void testRemove() {
+    Polygon polygon = addPolygon(5);
+    assertEquals(polygon, registry.remove(5));
+    assertNull(registry.remove(5));
+    assertNull(registry.get(5));
+    assertTrue(registry.getAnnotations().isEmpty());
+    assertTrue(registry.getPolygons().isEmpty());
+  }
+
+  @Test
+  public void testReplace() {
+    addMarker(1);
+    Marker replacement = new MarkerOptions().position(new LatLng(1, 1)).getMarker();
+    replacement.setId(1);
+    registry.put(1, replacement);
+
+    assertEquals(1, registry.getMarkers().size());
+    assertEquals(replacement, registry.getMarker(1));
+  }
+
+  @Test
+  public void testClear() {
+    addMarker(1);
+    addPolygon(2);
+    addPolyline(3);
+    registry.clear();
+
+    assertEquals(0, registry.size());
+    assertTrue(registry.getMarkers().isEmpty());
+    assertTrue(registry.getPolygons().isEmpty());
+    assertTrue(registry.getPolylines().isEmpty());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testReadOnly() {
+    registry.getMarkers().add(new MarkerOptions().position(new LatLng()).getMarker());
+  }
+
+  @Test(expected = ConcurrentModificationException.class)
+  public void testFailFastIteration() {
+    addMarker(1);
+    addMarker(2);
+    Iterator<Marker> iterator = registry.getMarkers().iterator();
+    iterator.next();
+    registry.remove(2);
+    iterator.next();
+  }
+
+  @Test
+  public void testResolveMarkerIds() {
+    Marker first = addMarker(1);
+    addPolygon(2);
+    Marker third = addMarker(3);
+
+    List<Marker> markers = registry.getMarkers(new long[] {3, 2, 1, 3, 42});
+    assertEquals(2, markers.size());
+    assertEquals(first, markers.get(0));
+    assertEquals(third, markers.get(1));
+    assertTrue(registry.getMarkerViews(new long[] {1, 3}).isEmpty());
+  }
+
+  @Test
+  public void testTypedViewsAtScale() {
+    assertTypedViews(10000);
+    assertTypedViews(100000);
+  }
+
+  private void assertTypedViews(int count) {
+    registry.clear();
+    for (int i = 0; i < count; i++) {
+      switch (i % 3) {
+        case 0:
+          addMarker(i);
+          break;
+        case 1:
+          addPolygon(i);
+          break;
+        default:
+          addPolyline(i);
+          break;
+      }
+    }
+
+    // the getters hand out the same live views, nothing is copied per call
+    List<Marker> markers = registry.getMarkers();
+    assertSame(markers, registry.getMarkers());
+    assertSame(registry.getPolygons(), registry.getPolygons());
+    assertSame(registry.getPolylines(), registry.getPolylines());
+    assertSame(registry.getAnnotations(), registry.getAnnotations());
+
+    // reference: a full scan of every annotation with an instanceof check
+    int scanCount = 0;
+    for (int i = 0; i < registry.size(); i++) {
+      if (registry.valueAt(i) instanceof Marker) {
+        assertSame(registry.valueAt(i), markers.get(scanCount++));
+      }
+    }
+    assertEquals(scanCount, markers.size());
+    assertEquals((count + 2) / 3, markers.size());
+    assertEquals(count / 3, registry.getPolygons().size());
+    assertEquals(count, registry.getAnnotations().size());
+  }
+
+  @Test
+  public void testResolveMarkerIdsAtScale() {
+    int count = 100000;
+    int visible = 500;
+    AtomicInteger touched = new AtomicInteger();
+    for (int i = 0; i < count; i++) {
+      CountingMarker marker = new CountingMarker(touched);
+      marker.setId(i);
+      registry.put(i, marker);
+    }
+
+    long[] ids = new long[visible];
+    for (int i = 0; i < visible; i++) {
+      ids[i] = (long) i * (count / visible);
+    }
+    touched.set(0);
+    List<Marker> markers = registry.getMarkers(ids);
+
+    // every id is looked up in the store, no marker is compared against the ids
+    assertEquals(visible, markers.size());
+    assertEquals(0, touched.get());
+    for (int i = 0; i < visible; i++) {
+      assertEquals(ids[i], markers.get(i).getId());
+    }
+  }
+
+  private Marker addMarker(long id) {
+    Marker marker = new MarkerOptions().position(new LatLng()).getMarker();
+    marker.setId(id);
+    registry.put(id, marker);
+    return marker;
+  }
+
+  private Polygon addPolygon(long id) {
+    Polygon polygon = new PolygonOptions().getPolygon();
+    polygon.setId(id);
+    registry.put(id, polygon);
+    return polygon;
+  }
+
+  private Polyline addPolyline(long id) {
+    Polyline polyline = new PolylineOptions().getPolyline();
+    polyline.setId(id);
+    registry.put(id, polyline);
+    return polyline;
+  }
+
+  /**
+   * Counts the calls that a scan comparing markers against the queried ids would make.
+   */
+  private static class CountingMarker extends Marker {
+
+    private final AtomicInteger touched;
+
+    CountingMarker(AtomicInteger touched) {
+      super(new MarkerOptions().position(new LatLng()));
+      this.touched = touched;
+    }
+
+    @Override
+    public long getId() {
+      touched.incrementAndGet();
+      return super.getId();
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      touched.incrementAndGet();
+      return super.equals(object);
+    }
+
+    @Override
+    public int hashCode() {
+      touched.incrementAndGet();
+      return super.hashCode();
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.graphics.Bitmap;
+
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.IconFactory;
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MarkerOptions;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyFloat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IconManagerTest {
+
+  @Mock
+  private NativeMap nativeMapView;
+
+  @Mock
+  private PixelBuffer pixelBuffer;
+
+  @Mock
+  private MapboxMap mapboxMap;
+
+  // pixels of each mocked bitmap
+  private final Map<Bitmap, byte[]> pixels = new IdentityHashMap<>();
+
+  private IconManager iconManager;
+
+  @Before
+  public void beforeTest() {
+    MockitoAnnotations.initMocks(this);
+    when(nativeMapView.getPixelBuffer()).thenReturn(pixelBuffer);
+    when(pixelBuffer.put(any(Bitmap.class))).thenAnswer(new Answer<ByteBuffer>() {
+      @Override
+      public ByteBuffer answer(InvocationOnMock invocation) throws Throwable {
+        return ByteBuffer.wrap(pixels.get(invocation.getArguments()[0]));
+      }
+    });
+    iconManager = new IconManager(nativeMapView, IconFactory.recreate(IconFactory.ICON_MARKERVIEW_ID, bitmap(0)));
+  }
+
+  @Test
+  public void testMarkerViewIconIsUploaded() {
+    Icon markerViewIcon = IconFactory.recreate(IconFactory.ICON_MARKERVIEW_ID, bitmap(0));
+    verify(nativeMapView).addAnnotationIcon(eq(iconManager.getSpriteId(markerViewIcon)), eq(1), eq(1), eq(1.0f),
+      any(ByteBuffer.class));
+  }
+
+  @Test
+  public void testIdenticalPixelsShareSprite() {
+    Icon first = IconFactory.recreate("first", bitmap(1));
+    Icon second = IconFactory.recreate("second", bitmap(1));
+    load(first);
+    load(second);
+
+    assertEquals(iconManager.getSpriteId(first), iconManager.getSpriteId(second));
+    verifyUploadCount(2);
+  }
+
+  @Test
+  public void testDifferentPixelsGetOwnSprite() {
+    Icon first = IconFactory.recreate("first", bitmap(1));
+    Icon second = IconFactory.recreate("second", bitmap(2));
+    load(first);
+    load(second);
+
+    assertNotEquals(iconManager.getSpriteId(first), iconManager.getSpriteId(second));
+    verifyUploadCount(3);
+  }
+
+  @Test
+  public void testFingerprintCollision() {
+    // same fingerprint, the pixel by pixel comparison tells the bitmaps apart
+    Icon first = IconFactory.recreate("first", bitmap(1));
+    Icon second = IconFactory.recreate("second", bitmap(1));
+    when(first.getBitmap().sameAs(second.getBitmap())).thenReturn(false);
+    load(first);
+    load(second);
+
+    assertNotEquals(iconManager.getSpriteId(first), iconManager.getSpriteId(second));
+    verifyUploadCount(3);
+  }
+
+  @Test
+  public void testReregisteredIdKeepsSharedSprite() {
+    Icon first = IconFactory.recreate("first", bitmap(1));
+    Icon second = IconFactory.recreate("second", bitmap(1));
+    load(first);
+    load(second);
+    String spriteId = iconManager.getSpriteId(second);
+
+    // the first id comes back with other pixels, the second icon still draws the former ones
+    Icon changed = IconFactory.recreate("first", bitmap(2));
+    load(changed);
+
+    assertEquals(spriteId, iconManager.getSpriteId(second));
+    assertNotEquals(spriteId, iconManager.getSpriteId(changed));
+    verify(nativeMapView, times(1)).addAnnotationIcon(eq(spriteId), anyInt(), anyInt(), anyFloat(),
+      any(ByteBuffer.class));
+    verifyUploadCount(3);
+
+    // back to the former pixels, nothing is uploaded
+    load(IconFactory.recreate("first", bitmap(1)));
+    assertEquals(spriteId, iconManager.getSpriteId(first));
+    verifyUploadCount(3);
+  }
+
+  @Test
+  public void testSameIconIsLoadedOnce() {
+    Icon icon = IconFactory.recreate("icon", bitmap(1));
+    load(icon);
+    load(icon);
+    load(IconFactory.recreate("icon", icon.getBitmap()));
+    verifyUploadCount(2);
+  }
+
+  @Test
+  public void testReloadIcons() {
+    load(IconFactory.recreate("first", bitmap(1)));
+    load(IconFactory.recreate("second", bitmap(1)));
+    load(IconFactory.recreate("first", bitmap(2)));
+    verifyUploadCount(3);
+
+    // every sprite is uploaded again once
+    iconManager.reloadIcons();
+    verifyUploadCount(6);
+  }
+
+  private void load(Icon icon) {
+    Marker marker = new MarkerOptions().position(new LatLng(0, 0)).icon(icon).getMarker();
+    iconManager.ensureIconLoaded(marker, mapboxMap);
+  }
+
+  private void verifyUploadCount(int count) {
+    verify(nativeMapView, times(count)).addAnnotationIcon(anyString(), anyInt(), anyInt(), anyFloat(),
+      any(ByteBuffer.class));
+  }
+
+  // a 1x1 bitmap filled with the given value, equal to the other bitmaps with the same value
+  private Bitmap bitmap(int value) {
+    final byte[] bytes = new byte[] {(byte) value, (byte) value, (byte) value, (byte) value};
+    final Bitmap bitmap = mock(Bitmap.class);
+    when(bitmap.getConfig()).thenReturn(Bitmap.Config.ARGB_8888);
+    when(bitmap.getWidth()).thenReturn(1);
+    when(bitmap.getHeight()).thenReturn(1);
+    when(bitmap.getDensity()).thenReturn(Bitmap.DENSITY_NONE);
+    when(bitmap.sameAs(any(Bitmap.class))).thenAnswer(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) throws Throwable {
+        byte[] other = pixels.get(invocation.getArguments()[0]);
+        return other != null && Arrays.equals(bytes, other);
+      }
+    });
+    pixels.put(bitmap, bytes);
+    return bitmap;
+  }
+}
@@ -0,0 +1,82 @@
+package com.mapbox.mapboxsdk.maps;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PixelBufferTest {
+
+  private PixelBuffer pixelBuffer;
+
+  @Before
+  public void beforeTest() {
+    pixelBuffer = new PixelBuffer();
+  }
+
+  @Test
+  public void testDirect() {
+    ByteBuffer buffer = pixelBuffer.obtain(16);
+    assertTrue(buffer.isDirect());
+    assertEquals(0, buffer.position());
+    assertEquals(16, buffer.remaining());
+    assertEquals(PixelBuffer.MIN_CAPACITY, buffer.capacity());
+  }
+
+  @Test
+  public void testReuse() {
+    ByteBuffer first = pixelBuffer.obtain(32 * 32 * 4);
+    first.put((byte) 1);
+    ByteBuffer second = pixelBuffer.obtain(48 * 48 * 4);
+    assertSame(first, second);
+    assertEquals(0, second.position());
+    assertEquals(48 * 48 * 4, second.limit());
+    assertEquals(1, pixelBuffer.getAllocationCount());
+  }
+
+  @Test
+  public void testGrowToPowerOfTwo() {
+    pixelBuffer.obtain(64 * 64 * 4);
+    ByteBuffer buffer = pixelBuffer.obtain(100 * 100 * 4);
+    assertEquals(Integer.highestOneBit(100 * 100 * 4) << 1, buffer.capacity());
+    assertEquals(2, pixelBuffer.getAllocationCount());
+  }
+
+  @Test
+  public void testLargeBufferSeparate() {
+    ByteBuffer small = pixelBuffer.obtain(16);
+    ByteBuffer large = pixelBuffer.obtain(PixelBuffer.MAX_POOLED_CAPACITY + 4);
+    assertNotSame(small, large);
+    assertTrue(large.isDirect());
+    assertEquals(0, large.position());
+    assertEquals(PixelBuffer.MAX_POOLED_CAPACITY + 4, large.remaining());
+    assertEquals(PixelBuffer.MAX_POOLED_CAPACITY + 4, large.capacity());
+    assertSame(small, pixelBuffer.obtain(16));
+    assertEquals(PixelBuffer.MIN_CAPACITY, small.capacity());
+  }
+
+  @Test
+  public void testLargeBufferNotRetained() {
+    ByteBuffer large = pixelBuffer.obtain(PixelBuffer.MAX_POOLED_CAPACITY + 4);
+    assertNotSame(large, pixelBuffer.obtain(PixelBuffer.MAX_POOLED_CAPACITY + 4));
+    assertEquals(2, pixelBuffer.getAllocationCount());
+
+    // a large upload doesn't grow the retained buffer
+    ByteBuffer small = pixelBuffer.obtain(PixelBuffer.MAX_POOLED_CAPACITY);
+    assertEquals(PixelBuffer.MAX_POOLED_CAPACITY, small.capacity());
+    assertSame(small, pixelBuffer.obtain(16));
+  }
+
+  @Test
+  public void testRelease() {
+    ByteBuffer buffer = pixelBuffer.obtain(16);
+    pixelBuffer.release();
+    assertNotSame(buffer, pixelBuffer.obtain(16));
+    assertEquals(2, pixelBuffer.getAllocationCount());
+  }
+}
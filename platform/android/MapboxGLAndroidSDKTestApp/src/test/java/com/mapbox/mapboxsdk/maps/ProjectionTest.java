@@ -0,0 +1,45 @@
+package com.mapbox.mapboxsdk.maps;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.mockito.Mockito.verify;
+
+public class ProjectionTest {
+
+  @Mock
+  private NativeMap nativeMapView;
+
+  private Projection projection;
+
+  @Before
+  public void beforeTest() {
+    MockitoAnnotations.initMocks(this);
+    projection = new Projection(nativeMapView);
+  }
+
+  @Test
+  public void testToScreenLocations() {
+    double[] coordinates = new double[] {1, 2, 3, 4, 5, 6};
+    float[] screenLocations = new float[4];
+    projection.toScreenLocations(coordinates, screenLocations, 2);
+    verify(nativeMapView).pixelsForLatLngs(coordinates, screenLocations, 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testToScreenLocationsCoordinatesTooSmall() {
+    projection.toScreenLocations(new double[3], new float[4], 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testToScreenLocationsScreenLocationsTooSmall() {
+    projection.toScreenLocations(new double[4], new float[3], 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testToScreenLocationsNegativeCount() {
+    projection.toScreenLocations(new double[4], new float[4], -1);
+  }
+}
@@ -0,0 +1,192 @@
+package com.mapbox.mapboxsdk.telemetry;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DeviceContextCacheTest {
+
+  private static final Executor DIRECT_EXECUTOR = new Executor() {
+    @Override
+    public void execute(@NonNull Runnable command) {
+      command.run();
+    }
+  };
+
+  @Test
+  public void testSnapshotIsCached() {
+    CountingSampler sampler = new CountingSampler();
+    DeviceContextCache cache = new DeviceContextCache(sampler, DIRECT_EXECUTOR, 60000);
+    cache.refreshNow();
+    assertEquals(1, sampler.count.get());
+
+    DeviceContextCache.Snapshot snapshot = cache.get();
+    for (int i = 0; i < 1000; i++) {
+      assertSame(snapshot, cache.get());
+    }
+    assertEquals(1, sampler.count.get());
+    assertEquals("Portrait", snapshot.orientation);
+    assertEquals(TelemetryEvent.NO_BATTERY_LEVEL, cache.getBatteryLevel());
+  }
+
+  @Test
+  public void testExpiredSnapshotIsSampledInBackground() throws InterruptedException {
+    CountingSampler sampler = new CountingSampler();
+    QueueExecutor executor = new QueueExecutor();
+    DeviceContextCache cache = new DeviceContextCache(sampler, executor, 10);
+
+    // nothing sampled yet, the empty snapshot is returned and a sample is queued once
+    DeviceContextCache.Snapshot empty = cache.get();
+    assertEquals("", empty.orientation);
+    cache.get();
+    cache.refresh();
+    assertEquals(1, executor.tasks.size());
+    assertEquals(0, sampler.count.get());
+
+    executor.runAll();
+    assertEquals(1, sampler.count.get());
+    DeviceContextCache.Snapshot sampled = cache.get();
+    assertEquals("Portrait", sampled.orientation);
+    assertEquals(0, executor.tasks.size());
+
+    Thread.sleep(20);
+    assertSame(sampled, cache.get());
+    executor.runAll();
+    assertEquals(2, sampler.count.get());
+  }
+
+  @Test
+  public void testBroadcastRefresh() {
+    CountingSampler sampler = new CountingSampler();
+    QueueExecutor executor = new QueueExecutor();
+    DeviceContextCache cache = new DeviceContextCache(sampler, executor, 60000);
+    cache.refreshNow();
+
+    // a connectivity or configuration broadcast samples again, whatever the age of the snapshot
+    cache.onReceive(null, new android.content.Intent());
+    executor.runAll();
+    assertEquals(2, sampler.count.get());
+  }
+
+  @Test
+  public void testFailedSampleKeepsSnapshot() {
+    final AtomicInteger count = new AtomicInteger();
+    DeviceContextCache cache = new DeviceContextCache(new DeviceContextCache.Sampler() {
+      @NonNull
+      @Override
+      public DeviceContextCache.Snapshot sample() {
+        if (count.incrementAndGet() > 1) {
+          throw new SecurityException("READ_PHONE_STATE");
+        }
+        DeviceContextCache.Snapshot snapshot = new DeviceContextCache.Snapshot();
+        snapshot.carrier = "Carrier";
+        return snapshot;
+      }
+    }, DIRECT_EXECUTOR, 60000);
+    cache.refreshNow();
+    cache.refreshNow();
+    assertEquals("Carrier", cache.get().carrier);
+  }
+
+  @Test
+  public void testCachedEnrichmentSkipsSampling() {
+    int eventCount = 5000;
+    // stands in for the five system service queries of a sample, binder calls of several microseconds each
+    CountingSampler sampler = new CountingSampler(20000);
+    DeviceContextCache cache = new DeviceContextCache(sampler, DIRECT_EXECUTOR, 30000);
+    cache.refreshNow();
+
+    TelemetryEvent event = new TelemetryEvent(MapboxEvent.TYPE_MAP_CLICK);
+    for (int i = 0; i < eventCount; i++) {
+      enrich(event, sampler.sample(), cache);
+      enrich(event, cache.get(), cache);
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < eventCount; i++) {
+      enrich(event, sampler.sample(), cache);
+    }
+    long sampledNanos = System.nanoTime() - start;
+
+    sampler.count.set(0);
+    start = System.nanoTime();
+    for (int i = 0; i < eventCount; i++) {
+      enrich(event, cache.get(), cache);
+    }
+    long cachedNanos = System.nanoTime() - start;
+
+    // the snapshot is fresh, no event paid for a sample
+    assertEquals(0, sampler.count.get());
+    assertTrue(String.format(Locale.US, "sampled %d ns, cached %d ns", sampledNanos, cachedNanos),
+      cachedNanos < sampledNanos);
+    assertEquals("Portrait", event.orientation);
+  }
+
+  private static void enrich(TelemetryEvent event, DeviceContextCache.Snapshot state, DeviceContextCache cache) {
+    event.orientation = state.orientation;
+    event.batteryLevel = cache.getBatteryLevel();
+    event.pluggedIn = cache.isPluggedIn();
+    event.carrier = state.carrier;
+    event.cellularNetworkType = state.cellularNetworkType;
+    event.wifi = state.wifi;
+    event.applicationState = state.applicationState;
+  }
+
+  private static class CountingSampler implements DeviceContextCache.Sampler {
+
+    private final AtomicInteger count = new AtomicInteger();
+    private final long costNanos;
+
+    CountingSampler() {
+      this(0);
+    }
+
+    CountingSampler(long costNanos) {
+      this.costNanos = costNanos;
+    }
+
+    @NonNull
+    @Override
+    public DeviceContextCache.Snapshot sample() {
+      count.incrementAndGet();
+      long end = System.nanoTime() + costNanos;
+      while (System.nanoTime() < end) {
+        // the calling thread waits for the replies of the binder calls
+      }
+      DeviceContextCache.Snapshot snapshot = new DeviceContextCache.Snapshot();
+      snapshot.orientation = "Portrait";
+      snapshot.carrier = "Carrier";
+      snapshot.cellularNetworkType = "LTE";
+      snapshot.wifi = true;
+      snapshot.applicationState = "Foreground";
+      return snapshot;
+    }
+  }
+
+  private static class QueueExecutor implements Executor {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+      tasks.add(command);
+    }
+
+    void runAll() {
+      Runnable task;
+      while ((task = tasks.poll()) != null) {
+        task.run();
+      }
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package com.mapbox.mapboxsdk.telemetry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TelemetryEventQueueTest {
+
+  @Test
+  public void testCapacityRoundedToPowerOfTwo() {
+    assertEquals(1, new TelemetryEventQueue(1).getCapacity());
+    assertEquals(1024, new TelemetryEventQueue(1000).getCapacity());
+    assertEquals(2048, new TelemetryEventQueue(2048).getCapacity());
+  }
+
+  @Test
+  public void testOfferAndDrainInOrder() {
+    TelemetryEventQueue queue = new TelemetryEventQueue(8);
+    TelemetryEvent first = new TelemetryEvent(MapboxEvent.TYPE_MAP_CLICK);
+    TelemetryEvent second = new TelemetryEvent(MapboxEvent.TYPE_MAP_DRAGEND);
+    assertTrue(queue.offer(first));
+    assertTrue(queue.offer(second));
+    assertEquals(2, queue.size());
+
+    List<TelemetryEvent> batch = new ArrayList<>();
+    assertEquals(1, queue.drain(batch, 1));
+    assertSame(first, batch.get(0));
+    assertEquals(1, queue.drain(batch, 10));
+    assertSame(second, batch.get(1));
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  public void testOverflowDropsNewest() {
+    TelemetryEventQueue queue = new TelemetryEventQueue(4);
+    for (int i = 0; i < 4; i++) {
+      assertTrue(queue.offer(event(0, i)));
+    }
+    assertFalse(queue.offer(event(0, 4)));
+    assertEquals(1, queue.getDroppedCount());
+
+    List<TelemetryEvent> batch = new ArrayList<>();
+    queue.drain(batch, 1);
+    assertTrue(queue.offer(event(0, 5)));
+    queue.drain(batch, 10);
+    assertEquals(5, batch.size());
+    assertEquals(0, (int) batch.get(0).zoom);
+    assertEquals(5, (int) batch.get(4).zoom);
+  }
+
+  @Test
+  public void testClear() {
+    TelemetryEventQueue queue = new TelemetryEventQueue(4);
+    queue.offer(event(0, 0));
+    queue.offer(event(0, 1));
+    assertEquals(2, queue.clear());
+    assertTrue(queue.isEmpty());
+    for (int i = 0; i < 4; i++) {
+      assertTrue(queue.offer(event(0, i)));
+    }
+  }
+
+  @Test
+  public void testFromAttributes() {
+    Hashtable<String, Object> attributes = new Hashtable<>();
+    attributes.put(MapboxEvent.ATTRIBUTE_EVENT, MapboxEvent.TYPE_MAP_CLICK);
+    attributes.put(MapboxEvent.ATTRIBUTE_CREATED, "2017-01-01T00:00:00.000+0000");
+    attributes.put(MapboxEvent.KEY_GESTURE_ID, MapboxEvent.GESTURE_SINGLETAP);
+    attributes.put(MapboxEvent.KEY_LATITUDE, 52.5);
+    attributes.put(MapboxEvent.KEY_LONGITUDE, 13.4);
+    attributes.put(MapboxEvent.KEY_ZOOM, 14.0);
+    attributes.put(MapboxEvent.ATTRIBUTE_BATTERY_LEVEL, 80);
+
+    TelemetryEvent event = TelemetryEvent.fromAttributes(attributes);
+    assertEquals(MapboxEvent.TYPE_MAP_CLICK, event.type);
+    assertEquals(MapboxEvent.GESTURE_SINGLETAP, event.gesture);
+    assertEquals(52.5, event.latitude, 0);
+    assertEquals(14.0, event.zoom, 0);
+    assertEquals(80, event.batteryLevel);
+    assertTrue(Double.isNaN(event.altitude));
+    assertTrue(Float.isNaN(event.resolution));
+    assertNull(event.carrier);
+  }
+
+  @Test
+  public void testConcurrentProducersStress() throws Exception {
+    final int producerCount = 8;
+    final int eventsPerProducer = 100000;
+    final TelemetryEventQueue queue = new TelemetryEventQueue(1024);
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicInteger accepted = new AtomicInteger();
+    final AtomicBoolean producing = new AtomicBoolean(true);
+    final boolean[][] seen = new boolean[producerCount][eventsPerProducer];
+    final int[] lastSequence = new int[producerCount];
+    final AtomicInteger errors = new AtomicInteger();
+
+    Thread[] producers = new Thread[producerCount];
+    for (int p = 0; p < producerCount; p++) {
+      final int producer = p;
+      producers[p] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          awaitQuietly(start);
+          for (int i = 0; i < eventsPerProducer; i++) {
+            // retry rejected events, so the queue runs full most of the time
+            while (!queue.offer(event(producer, i))) {
+              Thread.yield();
+            }
+            accepted.incrementAndGet();
+          }
+        }
+      });
+      producers[p].start();
+    }
+
+    // a single consumer drains in batches while the producers run, as flushes do
+    Thread consumer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < producerCount; i++) {
+          lastSequence[i] = -1;
+        }
+        List<TelemetryEvent> batch = new ArrayList<>();
+        awaitQuietly(start);
+        while (true) {
+          boolean done = !producing.get();
+          batch.clear();
+          queue.drain(batch, 256);
+          for (TelemetryEvent event : batch) {
+            int producer = (int) event.latitude;
+            int sequence = (int) event.zoom;
+            if (seen[producer][sequence] || sequence <= lastSequence[producer]) {
+              // delivered twice or out of order
+              errors.incrementAndGet();
+            }
+            seen[producer][sequence] = true;
+            lastSequence[producer] = sequence;
+          }
+          if (done && batch.isEmpty()) {
+            return;
+          }
+        }
+      }
+    });
+    consumer.start();
+
+    start.countDown();
+    for (Thread producer : producers) {
+      producer.join();
+    }
+    producing.set(false);
+    consumer.join();
+
+    int delivered = 0;
+    for (boolean[] producerSeen : seen) {
+      for (boolean value : producerSeen) {
+        if (value) {
+          delivered++;
+        }
+      }
+    }
+    assertEquals(0, errors.get());
+    assertEquals(producerCount * eventsPerProducer, accepted.get());
+    assertEquals(accepted.get(), delivered);
+    assertTrue(queue.isEmpty());
+  }
+
+  private static TelemetryEvent event(int producer, int sequence) {
+    TelemetryEvent event = new TelemetryEvent(MapboxEvent.TYPE_MAP_CLICK);
+    event.latitude = producer;
+    event.zoom = sequence;
+    return event;
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
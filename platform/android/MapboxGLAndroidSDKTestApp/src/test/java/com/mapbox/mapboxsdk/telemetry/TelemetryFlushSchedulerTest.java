@@ -0,0 +1,175 @@
+package com.mapbox.mapboxsdk.telemetry;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TelemetryFlushSchedulerTest {
+
+  @Test
+  public void testRequestsMergeWhileFlushing() throws Exception {
+    final CountDownLatch flushing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger flushes = new AtomicInteger();
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    TelemetryFlushScheduler scheduler = new TelemetryFlushScheduler(new TelemetryFlushScheduler.FlushTask() {
+      @Override
+      public int flush() {
+        int concurrent = running.incrementAndGet();
+        maxRunning.set(Math.max(maxRunning.get(), concurrent));
+        flushes.incrementAndGet();
+        flushing.countDown();
+        awaitQuietly(release);
+        running.decrementAndGet();
+        return TelemetryFlushScheduler.RESULT_SENT;
+      }
+    }, 60000, 600000);
+
+    scheduler.requestFlush();
+    assertTrue(flushing.await(5, TimeUnit.SECONDS));
+    // every request while the first flush runs is merged into a single follow-up flush
+    for (int i = 0; i < 100; i++) {
+      scheduler.requestFlush();
+    }
+    release.countDown();
+
+    awaitFlushes(flushes, 2);
+    Thread.sleep(100);
+    assertEquals(2, flushes.get());
+    assertEquals(1, maxRunning.get());
+  }
+
+  @Test
+  public void testConcurrentRequests() throws Exception {
+    final AtomicInteger flushes = new AtomicInteger();
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger overlaps = new AtomicInteger();
+    final TelemetryFlushScheduler scheduler = new TelemetryFlushScheduler(new TelemetryFlushScheduler.FlushTask() {
+      @Override
+      public int flush() {
+        if (running.incrementAndGet() > 1) {
+          overlaps.incrementAndGet();
+        }
+        flushes.incrementAndGet();
+        running.decrementAndGet();
+        return TelemetryFlushScheduler.RESULT_SENT;
+      }
+    }, 60000, 600000);
+
+    int threadCount = 8;
+    final int requestsPerThread = 10000;
+    Thread[] threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      threads[i] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < requestsPerThread; j++) {
+            scheduler.requestFlush();
+          }
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    awaitFlushes(flushes, 1);
+    Thread.sleep(100);
+
+    assertEquals(0, overlaps.get());
+    assertTrue(flushes.get() >= 1);
+    assertTrue(flushes.get() < threadCount * requestsPerThread);
+  }
+
+  @Test
+  public void testPeriodicFlush() throws Exception {
+    final CountDownLatch flushed = new CountDownLatch(3);
+    TelemetryFlushScheduler scheduler = new TelemetryFlushScheduler(new TelemetryFlushScheduler.FlushTask() {
+      @Override
+      public int flush() {
+        flushed.countDown();
+        return TelemetryFlushScheduler.RESULT_IDLE;
+      }
+    }, 20, 100);
+
+    scheduler.start(0);
+    assertTrue(flushed.await(5, TimeUnit.SECONDS));
+    scheduler.stop();
+  }
+
+  @Test
+  public void testIntervalBacksOffWhileFailing() throws Exception {
+    final AtomicInteger result = new AtomicInteger(TelemetryFlushScheduler.RESULT_FAILED);
+    final AtomicInteger flushes = new AtomicInteger();
+    TelemetryFlushScheduler scheduler = new TelemetryFlushScheduler(new TelemetryFlushScheduler.FlushTask() {
+      @Override
+      public int flush() {
+        flushes.incrementAndGet();
+        return result.get();
+      }
+    }, 60000, 300000);
+
+    int[] expected = new int[] {120000, 240000, 300000, 300000};
+    for (int i = 0; i < expected.length; i++) {
+      scheduler.requestFlush();
+      awaitFlushes(flushes, i + 1);
+      awaitInterval(scheduler, expected[i]);
+    }
+
+    result.set(TelemetryFlushScheduler.RESULT_SENT);
+    scheduler.requestFlush();
+    awaitFlushes(flushes, expected.length + 1);
+    awaitInterval(scheduler, 60000);
+  }
+
+  @Test
+  public void testJitter() {
+    TelemetryFlushScheduler scheduler = new TelemetryFlushScheduler(new TelemetryFlushScheduler.FlushTask() {
+      @Override
+      public int flush() {
+        return TelemetryFlushScheduler.RESULT_IDLE;
+      }
+    }, 60000, 600000);
+
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    for (int i = 0; i < 10000; i++) {
+      long delay = scheduler.jitter(100000);
+      min = Math.min(min, delay);
+      max = Math.max(max, delay);
+    }
+    assertTrue(min >= 80000 && min < 85000);
+    assertTrue(max <= 120000 && max > 115000);
+  }
+
+  private static void awaitFlushes(AtomicInteger flushes, int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (flushes.get() < count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertTrue(flushes.get() >= count);
+  }
+
+  // the interval is adapted right after the flush task returns
+  private static void awaitInterval(TelemetryFlushScheduler scheduler, long interval) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (scheduler.getIntervalMillis() != interval && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertEquals(interval, scheduler.getIntervalMillis());
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
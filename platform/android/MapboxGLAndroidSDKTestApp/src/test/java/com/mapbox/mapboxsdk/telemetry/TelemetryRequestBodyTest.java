@@ -0,0 +1,208 @@
+package com.mapbox.mapboxsdk.telemetry;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.GzipSource;
+import okio.Okio;
+import okio.Sink;
+import okio.Timeout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class TelemetryRequestBodyTest {
+
+  @Test
+  public void testWriteClickEvent() throws IOException {
+    TelemetryEvent event = new TelemetryEvent(MapboxEvent.TYPE_MAP_CLICK);
+    event.created = "2017-01-01T00:00:00.000+0000";
+    event.gesture = MapboxEvent.GESTURE_SINGLETAP;
+    event.latitude = 52.5;
+    event.longitude = 193.25;
+    event.zoom = 14;
+    event.orientation = "Portrait";
+    event.batteryLevel = 80;
+    event.pluggedIn = false;
+    event.carrier = "";
+    event.cellularNetworkType = "LTE";
+    event.wifi = true;
+
+    assertEquals("{\"event\":\"map.click\",\"created\":\"2017-01-01T00:00:00.000+0000\",\"lat\":52.5,"
+        + "\"lng\":-166.75,\"zoom\":14,\"batteryLevel\":80,\"pluggedIn\":false,\"wifi\":true,"
+        + "\"orientation\":\"Portrait\",\"gesture\":\"SingleTap\",\"cellularNetworkType\":\"LTE\"}",
+      write(event));
+  }
+
+  @Test
+  public void testWriteLoadEvent() throws IOException {
+    TelemetryEvent event = new TelemetryEvent(MapboxEvent.TYPE_MAP_LOAD);
+    event.userId = "user";
+    event.model = "Pixel \"XL\"\n";
+    event.resolution = 2.625f;
+    event.accessibilityFontScale = 1.1f;
+    event.gesture = MapboxEvent.GESTURE_SINGLETAP;
+    event.latitude = Double.POSITIVE_INFINITY;
+
+    assertEquals("{\"event\":\"map.load\",\"userId\":\"user\",\"model\":\"Pixel \\\"XL\\\"\\n\","
+      + "\"resolution\":2.625,\"accessibilityFontScale\":1.1}", write(event));
+  }
+
+  @Test
+  public void testEscaping() throws IOException {
+    TelemetryEvent event = new TelemetryEvent(MapboxEvent.TYPE_TURNSTILE);
+    event.userId = "a\\b\u0001c\u2028d\u00e9\ud83d\uddfa";
+    assertEquals("{\"event\":\"appUserTurnstile\",\"userId\":\"a\\\\b\\u0001c\\u2028d\u00e9\ud83d\uddfa\"}",
+      write(event));
+  }
+
+  @Test
+  public void testGzippedPost() throws Exception {
+    MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse());
+    server.start();
+    try {
+      List<TelemetryEvent> events = events(500);
+      OkHttpClient client = new OkHttpClient.Builder().addInterceptor(new GzipRequestInterceptor()).build();
+      Response response = client.newCall(new Request.Builder()
+        .url(server.url("/events/v2"))
+        .post(new TelemetryRequestBody(events))
+        .build()).execute();
+      response.body().close();
+
+      RecordedRequest request = server.takeRequest();
+      assertEquals("gzip", request.getHeader("Content-Encoding"));
+      assertEquals("chunked", request.getHeader("Transfer-Encoding"));
+      assertEquals("application/json; charset=utf-8", request.getHeader("Content-Type"));
+
+      Buffer expected = new Buffer();
+      new TelemetryRequestBody(events).writeTo(expected);
+      Buffer received = new Buffer();
+      received.writeAll(new GzipSource(request.getBody()));
+      assertEquals(expected.readUtf8(), received.readUtf8());
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  @Test
+  public void testAllocationPerEvent() throws IOException {
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threadBean;
+    assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+    long threadId = Thread.currentThread().getId();
+
+    List<TelemetryEvent> warmUp = events(1000);
+    for (int i = 0; i < 50; i++) {
+      writeStreamed(warmUp);
+      writeBuffered(warmUp);
+    }
+
+    int[] batchSizes = new int[] {100, 1000, 10000};
+    long[] streamedPerEvent = new long[batchSizes.length];
+    long[] bufferedPerEvent = new long[batchSizes.length];
+    for (int i = 0; i < batchSizes.length; i++) {
+      List<TelemetryEvent> batch = events(batchSizes[i]);
+
+      long before = allocations.getThreadAllocatedBytes(threadId);
+      writeStreamed(batch);
+      streamedPerEvent[i] = (allocations.getThreadAllocatedBytes(threadId) - before) / batch.size();
+
+      before = allocations.getThreadAllocatedBytes(threadId);
+      writeBuffered(batch);
+      bufferedPerEvent[i] = (allocations.getThreadAllocatedBytes(threadId) - before) / batch.size();
+    }
+
+    // a streamed batch allocates per event, not per batch: the cost per event doesn't grow with the batch
+    String allocated = Arrays.toString(streamedPerEvent) + " bytes per event streamed, "
+      + Arrays.toString(bufferedPerEvent) + " buffered";
+    assertTrue(allocated, streamedPerEvent[2] <= streamedPerEvent[0] * 2);
+    assertTrue(allocated, streamedPerEvent[2] < bufferedPerEvent[2]);
+  }
+
+  private static String write(TelemetryEvent event) throws IOException {
+    Buffer buffer = new Buffer();
+    TelemetryRequestBody.writeEvent(buffer, event);
+    return buffer.readUtf8();
+  }
+
+  private static List<TelemetryEvent> events(int count) {
+    List<TelemetryEvent> events = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      TelemetryEvent event = new TelemetryEvent(i % 2 == 0 ? MapboxEvent.TYPE_MAP_CLICK : MapboxEvent.TYPE_LOCATION);
+      event.created = "2017-01-01T00:00:" + (10 + i % 50) + ".000+0000";
+      event.source = MapboxEvent.SOURCE_MAPBOX;
+      event.sessionId = "c2Vzc2lvbklk";
+      event.latitude = 52.5 + i * 0.0001;
+      event.longitude = 13.4 + i * 0.0001;
+      event.zoom = 14.5;
+      event.gesture = MapboxEvent.GESTURE_SINGLETAP;
+      event.operatingSystem = "Android - 7.1.1";
+      event.orientation = "Portrait";
+      event.batteryLevel = 80;
+      event.pluggedIn = true;
+      event.carrier = "Carrier";
+      event.cellularNetworkType = "LTE";
+      event.wifi = false;
+      event.applicationState = "Foreground";
+      events.add(event);
+    }
+    return Collections.unmodifiableList(events);
+  }
+
+  // gzips the body into a sink that discards the compressed bytes, as the socket does
+  private static void writeStreamed(List<TelemetryEvent> batch) throws IOException {
+    BufferedSink gzipSink = Okio.buffer(new GzipSink(new DiscardingSink()));
+    new TelemetryRequestBody(batch).writeTo(gzipSink);
+    gzipSink.close();
+  }
+
+  // the previous approach: the whole document as a string, then its bytes, then gzipped
+  private static void writeBuffered(List<TelemetryEvent> batch) throws IOException {
+    Buffer buffer = new Buffer();
+    new TelemetryRequestBody(batch).writeTo(buffer);
+    byte[] bytes = buffer.readUtf8().getBytes("UTF-8");
+    BufferedSink gzipSink = Okio.buffer(new GzipSink(new DiscardingSink()));
+    gzipSink.write(bytes);
+    gzipSink.close();
+  }
+
+  private static class DiscardingSink implements Sink {
+
+    @Override
+    public void write(Buffer source, long byteCount) throws IOException {
+      source.skip(byteCount);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public Timeout timeout() {
+      return Timeout.NONE;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
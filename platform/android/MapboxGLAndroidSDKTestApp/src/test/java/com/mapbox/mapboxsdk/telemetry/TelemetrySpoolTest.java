@@ -0,0 +1,141 @@
+package com.mapbox.mapboxsdk.telemetry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Okio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TelemetrySpoolTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File directory;
+
+  @Before
+  public void beforeTest() {
+    directory = new File(folder.getRoot(), "spool");
+  }
+
+  @Test
+  public void testAppendAndReplay() throws IOException {
+    TelemetrySpool spool = new TelemetrySpool(directory, 1024 * 1024, 64 * 1024);
+    assertTrue(spool.isEmpty());
+    assertTrue(spool.append(events(0, 2)));
+    assertTrue(spool.append(events(2, 1)));
+
+    List<File> segments = spool.seal();
+    assertEquals(1, segments.size());
+    assertEquals("[" + json(0) + "," + json(1) + "," + json(2) + "]", replay(segments.get(0)));
+
+    // events spooled while replaying go to a new segment
+    spool.append(events(3, 1));
+    assertEquals(2, spool.seal().size());
+    spool.delete(segments.get(0));
+    segments = spool.seal();
+    assertEquals(1, segments.size());
+    assertEquals("[" + json(3) + "]", replay(segments.get(0)));
+  }
+
+  @Test
+  public void testSegmentsRollOver() throws IOException {
+    TelemetrySpool spool = new TelemetrySpool(directory, 1024 * 1024, 256);
+    for (int i = 0; i < 20; i++) {
+      spool.append(events(i, 1));
+    }
+    List<File> segments = spool.seal();
+    assertTrue(segments.size() > 1);
+
+    // replaying every segment in order gives every event in order
+    int next = 0;
+    for (File segment : segments) {
+      String json = replay(segment);
+      while (json.contains(json(next))) {
+        next++;
+      }
+    }
+    assertEquals(20, next);
+  }
+
+  @Test
+  public void testEvictsOldestFirst() throws IOException {
+    long segmentBytes = json(0).length() * 2;
+    TelemetrySpool spool = new TelemetrySpool(directory, segmentBytes * 3, segmentBytes);
+    for (int i = 0; i < 50; i++) {
+      spool.append(events(i * 2, 2));
+    }
+    assertTrue(spool.getSize() <= segmentBytes * 3 + json(0).length() * 2);
+    assertTrue(spool.getEvictedBytes() > 0);
+
+    List<File> segments = spool.seal();
+    String newest = replay(segments.get(segments.size() - 1));
+    assertTrue(newest.contains(json(99)));
+    assertFalse(replay(segments.get(0)).contains(json(0)));
+  }
+
+  @Test
+  public void testRestartDoesNotAppendToOldSegments() throws IOException {
+    TelemetrySpool spool = new TelemetrySpool(directory, 1024 * 1024, 64 * 1024);
+    spool.append(events(0, 2));
+    File segment = spool.seal().get(0);
+
+    // a crash in the middle of a batch leaves an unterminated line
+    BufferedSink sink = Okio.buffer(Okio.appendingSink(segment));
+    sink.writeUtf8("{\"event\":\"map.cli");
+    sink.close();
+
+    TelemetrySpool restarted = new TelemetrySpool(directory, 1024 * 1024, 64 * 1024);
+    restarted.append(events(2, 1));
+    List<File> segments = restarted.seal();
+    assertEquals(2, segments.size());
+    assertEquals("[" + json(0) + "," + json(1) + "]", replay(segments.get(0)));
+    assertEquals("[" + json(2) + "]", replay(segments.get(1)));
+  }
+
+  @Test
+  public void testClear() {
+    TelemetrySpool spool = new TelemetrySpool(directory, 1024 * 1024, 64 * 1024);
+    spool.append(events(0, 10));
+    assertFalse(spool.isEmpty());
+    spool.clear();
+    assertTrue(spool.isEmpty());
+    assertEquals(0, spool.getSize());
+    assertTrue(spool.append(Collections.<TelemetryEvent>emptyList()));
+    assertTrue(spool.isEmpty());
+  }
+
+  private static List<TelemetryEvent> events(int first, int count) {
+    List<TelemetryEvent> events = new ArrayList<>(count);
+    for (int i = first; i < first + count; i++) {
+      TelemetryEvent event = new TelemetryEvent(MapboxEvent.TYPE_MAP_CLICK);
+      event.created = "2017-01-01T00:00:00.000+0000";
+      event.zoom = i;
+      events.add(event);
+    }
+    return events;
+  }
+
+  private static String json(int index) {
+    return "{\"event\":\"map.click\",\"created\":\"2017-01-01T00:00:00.000+0000\",\"zoom\":" + index + "}";
+  }
+
+  private static String replay(File segment) throws IOException {
+    Buffer buffer = new Buffer();
+    TelemetrySpool.createRequestBody(segment).writeTo(buffer);
+    return buffer.readUtf8();
+  }
+}
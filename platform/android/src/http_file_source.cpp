@@ -18,6 +18,8 @@ public:
     android::UniqueEnv env { android::AttachEnv() };
 };
 
+struct ByteBufferTag { static constexpr auto Name() { return "java/nio/ByteBuffer"; } };
+
 class HTTPRequest : public AsyncRequest {
 public:
     static constexpr auto Name() { return "com/mapbox/mapboxsdk/http/HTTPRequest"; };
@@ -30,7 +32,7 @@ public:
                     jni::String etag, jni::String modified,
                     jni::String cacheControl, jni::String expires,
                     jni::String retryAfter, jni::String xRateLimitReset,
-                    jni::Array<jni::jbyte> body);
+                    jni::Object<ByteBufferTag> body, jni::jint bodyLength);
 
     static jni::Class<HTTPRequest> javaClass;
     jni::UniqueObject<HTTPRequest> javaRequest;
@@ -47,9 +49,16 @@ private:
         callback_(response_);
     } };
 
+    static jni::jint priority(const Resource&);
+
     static const int connectionError = 0;
     static const int temporaryError = 1;
     static const int permanentError = 2;
+
+    // Must match the priorities of com.mapbox.mapboxsdk.http.RequestScheduler
+    static const jni::jint priorityRequired = 0;
+    static const jni::jint priorityResource = 1;
+    static const jni::jint priorityLow = 2;
 };
 
 jni::Class<HTTPRequest> HTTPRequest::javaClass;
@@ -83,13 +92,30 @@ HTTPRequest::HTTPRequest(jni::JNIEnv& env, const Resource& resource_, FileSource
     jni::UniqueLocalFrame frame = jni::PushLocalFrame(env, 10);
 
     static auto constructor =
-        javaClass.GetConstructor<jni::jlong, jni::String, jni::String, jni::String>(env);
+        javaClass.GetConstructor<jni::jlong, jni::String, jni::String, jni::String, jni::jint>(env);
 
     javaRequest = javaClass.New(env, constructor,
         reinterpret_cast<jlong>(this),
         jni::Make<jni::String>(env, resource.url),
         jni::Make<jni::String>(env, etagStr),
-        jni::Make<jni::String>(env, modifiedStr)).NewGlobalRef(env);
+        jni::Make<jni::String>(env, modifiedStr),
+        priority(resource)).NewGlobalRef(env);
+}
+
+jni::jint HTTPRequest::priority(const Resource& resource) {
+    if (resource.priority == Resource::Priority::Low) {
+        return priorityLow;
+    }
+
+    switch (resource.kind) {
+        case Resource::Kind::Glyphs:
+        case Resource::Kind::SpriteImage:
+        case Resource::Kind::SpriteJSON:
+            return priorityResource;
+        default:
+            // Styles, sources and tiles block rendering the visible map
+            return priorityRequired;
+    }
 }
 
 HTTPRequest::~HTTPRequest() {
@@ -104,7 +130,7 @@ void HTTPRequest::onResponse(jni::JNIEnv& env, int code,
                              jni::String etag, jni::String modified,
                              jni::String cacheControl, jni::String expires,
                              jni::String jRetryAfter, jni::String jXRateLimitReset,
-                             jni::Array<jni::jbyte> body) {
+                             jni::Object<ByteBufferTag> body, jni::jint bodyLength) {
 
     using Error = Response::Error;
 
@@ -125,10 +151,10 @@ void HTTPRequest::onResponse(jni::JNIEnv& env, int code,
     }
 
     if (code == 200) {
-        if (body) {
-            auto data = std::make_shared<std::string>(body.Length(env), char());
-            jni::GetArrayRegion(env, *body, 0, data->size(), reinterpret_cast<jbyte*>(&(*data)[0]));
-            response.data = data;
+        // The body is read from the start of a direct buffer owned by a Java side pool, copy it before returning
+        auto* address = body ? reinterpret_cast<const char*>(env.GetDirectBufferAddress(jni::Unwrap(body.Get()))) : nullptr;
+        if (address && bodyLength > 0 && bodyLength <= env.GetDirectBufferCapacity(jni::Unwrap(body.Get()))) {
+            response.data = std::make_shared<std::string>(address, static_cast<std::size_t>(bodyLength));
         } else {
             response.data = std::make_shared<std::string>();
         }
@@ -187,7 +213,8 @@ std::unique_ptr<AsyncRequest> HTTPFileSource::request(const Resource& resource,
 }
 
 uint32_t HTTPFileSource::maximumConcurrentRequests() {
-    return 20;
+    // Requests are ordered by priority and throttled by the Java side RequestScheduler
+    return 64;
 }
 
 } // namespace mbgl
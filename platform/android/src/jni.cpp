@@ -1,7 +1,10 @@
 #include <cstdint>
 #include <cinttypes>
+#include <cstring>
 #include <cassert>
+#include <exception>
 #include <string>
+#include <map>
 #include <array>
 #include <vector>
 
@@ -80,16 +83,21 @@ jni::jclass* polylineClass = nullptr;
 jni::jfieldID* polylineAlphaId = nullptr;
 jni::jfieldID* polylineColorId = nullptr;
 jni::jfieldID* polylineWidthId = nullptr;
-jni::jfieldID* polylinePointsId = nullptr;
+jni::jfieldID* polylineCoordinatesId = nullptr;
+jni::jfieldID* polylinePointCountId = nullptr;
 
 jni::jclass* polygonClass = nullptr;
 jni::jfieldID* polygonAlphaId = nullptr;
 jni::jfieldID* polygonFillColorId = nullptr;
 jni::jfieldID* polygonStrokeColorId = nullptr;
-jni::jfieldID* polygonPointsId = nullptr;
+jni::jfieldID* polygonCoordinatesId = nullptr;
+jni::jfieldID* polygonPointCountId = nullptr;
 
 jni::jmethodID* listToArrayId = nullptr;
 
+jni::jmethodID* bufferPositionId = nullptr;
+jni::jmethodID* bufferRemainingId = nullptr;
+
 jni::jclass* arrayListClass = nullptr;
 jni::jmethodID* arrayListConstructorId = nullptr;
 jni::jmethodID* arrayListAddId = nullptr;
@@ -647,12 +655,63 @@ void nativeUpdateMarker(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr,
     nativeMapView->getMap().updateAnnotation(markerId, mbgl::SymbolAnnotation { mbgl::Point<double>(lon, lat), iconId });
 }
 
-jni::jarray<jlong>* nativeAddMarkers(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jni::jobject>* jarray) {
+void nativeUpdateMarkers(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jlong>* jids,
+        jni::jarray<jdouble>* jpositions, jni::jarray<jint>* jiconIndices, jni::jarray<jni::jobject>* jiconIds) {
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    NullCheck(*env, jids);
+    NullCheck(*env, jpositions);
+    NullCheck(*env, jiconIndices);
+    NullCheck(*env, jiconIds);
+
+    // Distinct icon ids are converted once for the whole batch
+    std::size_t iconCount = jni::GetArrayLength(*env, *jiconIds);
+    std::vector<std::string> iconIds;
+    iconIds.reserve(iconCount);
+    for (std::size_t i = 0; i < iconCount; i++) {
+        jni::jstring* jid = reinterpret_cast<jni::jstring*>(jni::GetObjectArrayElement(*env, *jiconIds, i));
+        iconIds.push_back(std_string_from_jstring(env, jid));
+        jni::DeleteLocalRef(*env, jid);
+    }
+
+    std::size_t len = jni::GetArrayLength(*env, *jids);
+    if (2 * len != jni::GetArrayLength(*env, *jpositions) || len != jni::GetArrayLength(*env, *jiconIndices)) {
+        throw std::runtime_error("Marker update array length mismatch");
+    }
+
+    std::vector<jlong> ids(len);
+    std::vector<jdouble> positions(2 * len);
+    std::vector<jint> iconIndices(len);
+    jni::GetArrayRegion(*env, *jids, 0, len, ids.data());
+    jni::GetArrayRegion(*env, *jpositions, 0, 2 * len, positions.data());
+    jni::GetArrayRegion(*env, *jiconIndices, 0, len, iconIndices.data());
+
+    for (std::size_t i = 0; i < len; i++) {
+        if (ids[i] == -1) {
+            continue;
+        }
+        if (iconIndices[i] < 0 || std::size_t(iconIndices[i]) >= iconCount) {
+            throw std::runtime_error("Marker update icon index out of range");
+        }
+        nativeMapView->getMap().updateAnnotation(ids[i], mbgl::SymbolAnnotation {
+            mbgl::Point<double>(positions[2 * i + 1], positions[2 * i]),
+            iconIds[iconIndices[i]]
+        });
+    }
+}
+
+jni::jarray<jlong>* nativeAddMarkers(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jni::jobject>* jarray,
+        jni::jarray<jni::jobject>* jiconIds) {
     assert(nativeMapViewPtr != 0);
     NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
 
     NullCheck(*env, jarray);
+    NullCheck(*env, jiconIds);
     std::size_t len = jni::GetArrayLength(*env, *jarray);
+    if (len != jni::GetArrayLength(*env, *jiconIds)) {
+        throw std::runtime_error("Marker icon id count mismatch");
+    }
 
     mbgl::AnnotationIDs ids;
     ids.reserve(len);
@@ -660,8 +719,8 @@ jni::jarray<jlong>* nativeAddMarkers(JNIEnv *env, jni::jobject* obj, jlong nativ
     for (std::size_t i = 0; i < len; i++) {
         jni::jobject* marker = jni::GetObjectArrayElement(*env, *jarray, i);
         jni::jobject* position = jni::GetField<jni::jobject*>(*env, marker, *markerPositionId);
-        jni::jobject* icon = jni::GetField<jni::jobject*>(*env, marker, *markerIconId);
-        jni::jstring* jid = reinterpret_cast<jni::jstring*>(jni::GetField<jni::jobject*>(*env, icon, *iconIdId));
+        // The icon id is resolved on the Java side, icons with identical pixels share a sprite
+        jni::jstring* jid = reinterpret_cast<jni::jstring*>(jni::GetObjectArrayElement(*env, *jiconIds, i));
 
         jdouble latitude = jni::GetField<jdouble>(*env, position, *latLngLatitudeId);
         jdouble longitude = jni::GetField<jdouble>(*env, position, *latLngLongitudeId);
@@ -673,7 +732,6 @@ jni::jarray<jlong>* nativeAddMarkers(JNIEnv *env, jni::jobject* obj, jlong nativ
 
         jni::DeleteLocalRef(*env, position);
         jni::DeleteLocalRef(*env, jid);
-        jni::DeleteLocalRef(*env, icon);
         jni::DeleteLocalRef(*env, marker);
     }
 
@@ -689,30 +747,43 @@ static mbgl::Color toColor(jint color) {
 }
 
 template <class Geometry>
-Geometry toGeometry(JNIEnv *env, jni::jobject* jlist) {
-    NullCheck(*env, jlist);
-    jni::jarray<jni::jobject>* jarray =
-        reinterpret_cast<jni::jarray<jni::jobject>*>(jni::CallMethod<jni::jobject*>(*env, jlist, *listToArrayId));
-    NullCheck(*env, jarray);
-
-    std::size_t size = jni::GetArrayLength(*env, *jarray);
+Geometry toGeometry(JNIEnv *env, jni::jobject* multiPoint, jni::jfieldID& coordinatesId, jni::jfieldID& pointCountId,
+                    std::size_t start = 0) {
+    // MultiPoint stores its geometry as interleaved latitude, longitude pairs
+    jni::jarray<jdouble>* jcoordinates =
+        reinterpret_cast<jni::jarray<jdouble>*>(jni::GetField<jni::jobject*>(*env, multiPoint, coordinatesId));
+    NullCheck(*env, jcoordinates);
+
+    std::size_t size = jni::GetField<jint>(*env, multiPoint, pointCountId);
+    if (2 * size > jni::GetArrayLength(*env, *jcoordinates)) {
+        throw std::runtime_error("MultiPoint coordinate count mismatch");
+    }
 
     Geometry geometry;
-    geometry.reserve(size);
 
-    for (std::size_t i = 0; i < size; i++) {
-        jni::jobject* latLng = reinterpret_cast<jni::jobject*>(jni::GetObjectArrayElement(*env, *jarray, i));
-        NullCheck(*env, latLng);
+    if (start == 0) {
+        geometry.reserve(size);
+
+        // Pinned when supported by the VM, the only copy is the conversion into the geometry
+        auto elements = jni::GetArrayElements(*env, *jcoordinates);
+        const jdouble* coordinates = std::get<0>(elements).get();
+
+        for (std::size_t i = 0; i < size; i++) {
+            geometry.push_back(mbgl::Point<double>(coordinates[2 * i + 1], coordinates[2 * i]));
+        }
+    } else if (size > start) {
+        geometry.reserve(size - start);
 
-        geometry.push_back(mbgl::Point<double>(
-            jni::GetField<jdouble>(*env, latLng, *latLngLongitudeId),
-            jni::GetField<jdouble>(*env, latLng, *latLngLatitudeId)));
+        // Only copy the points from start on
+        std::vector<jdouble> coordinates(2 * (size - start));
+        jni::GetArrayRegion(*env, *jcoordinates, 2 * start, coordinates.size(), coordinates.data());
 
-        jni::DeleteLocalRef(*env, latLng);
+        for (std::size_t i = 0; i < size - start; i++) {
+            geometry.push_back(mbgl::Point<double>(coordinates[2 * i + 1], coordinates[2 * i]));
+        }
     }
 
-    jni::DeleteLocalRef(*env, jarray);
-    jni::DeleteLocalRef(*env, jlist);
+    jni::DeleteLocalRef(*env, jcoordinates);
 
     return geometry;
 }
@@ -729,9 +800,8 @@ jni::jarray<jlong>* nativeAddPolylines(JNIEnv *env, jni::jobject* obj, jlong nat
 
     for (std::size_t i = 0; i < len; i++) {
         jni::jobject* polyline = jni::GetObjectArrayElement(*env, *jarray, i);
-        jni::jobject* points = jni::GetField<jni::jobject*>(*env, polyline, *polylinePointsId);
 
-        mbgl::LineAnnotation annotation { toGeometry<mbgl::LineString<double>>(env, points) };
+        mbgl::LineAnnotation annotation { toGeometry<mbgl::LineString<double>>(env, polyline, *polylineCoordinatesId, *polylinePointCountId) };
         annotation.opacity = { jni::GetField<jfloat>(*env, polyline, *polylineAlphaId) };
         annotation.color = { toColor(jni::GetField<jint>(*env, polyline, *polylineColorId)) };
         annotation.width = { jni::GetField<jfloat>(*env, polyline, *polylineWidthId) };
@@ -755,9 +825,8 @@ jni::jarray<jlong>* nativeAddPolygons(JNIEnv *env, jni::jobject* obj, jlong nati
 
     for (std::size_t i = 0; i < len; i++) {
         jni::jobject* polygon = jni::GetObjectArrayElement(*env, *jarray, i);
-        jni::jobject* points = jni::GetField<jni::jobject*>(*env, polygon, *polygonPointsId);
 
-        mbgl::FillAnnotation annotation { mbgl::Polygon<double> { toGeometry<mbgl::LinearRing<double>>(env, points) } };
+        mbgl::FillAnnotation annotation { mbgl::Polygon<double> { toGeometry<mbgl::LinearRing<double>>(env, polygon, *polygonCoordinatesId, *polygonPointCountId) } };
         annotation.opacity = { jni::GetField<jfloat>(*env, polygon, *polygonAlphaId) };
         annotation.outlineColor = { toColor(jni::GetField<jint>(*env, polygon, *polygonStrokeColorId)) };
         annotation.color = { toColor(jni::GetField<jint>(*env, polygon, *polygonFillColorId)) };
@@ -772,9 +841,7 @@ jni::jarray<jlong>* nativeAddPolygons(JNIEnv *env, jni::jobject* obj, jlong nati
 void nativeUpdatePolygon(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jlong polygonId, jni::jobject* polygon) {
     assert(nativeMapViewPtr != 0);
     NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
-    jni::jobject* points = jni::GetField<jni::jobject*>(*env, polygon, *polygonPointsId);
-
-    mbgl::FillAnnotation annotation { mbgl::Polygon<double> { toGeometry<mbgl::LinearRing<double>>(env, points) } };
+    mbgl::FillAnnotation annotation { mbgl::Polygon<double> { toGeometry<mbgl::LinearRing<double>>(env, polygon, *polygonCoordinatesId, *polygonPointCountId) } };
     annotation.opacity = { jni::GetField<jfloat>(*env, polygon, *polygonAlphaId) };
     annotation.outlineColor = { toColor(jni::GetField<jint>(*env, polygon, *polygonStrokeColorId)) };
     annotation.color = { toColor(jni::GetField<jint>(*env, polygon, *polygonFillColorId)) };
@@ -784,15 +851,22 @@ void nativeUpdatePolygon(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr,
 void nativeUpdatePolyline(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jlong polylineId, jni::jobject* polyline) {
     assert(nativeMapViewPtr != 0);
     NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
-    jni::jobject* points = jni::GetField<jni::jobject*>(*env, polyline, *polylinePointsId);
-
-    mbgl::LineAnnotation annotation { toGeometry<mbgl::LineString<double>>(env, points) };
+    mbgl::LineAnnotation annotation { toGeometry<mbgl::LineString<double>>(env, polyline, *polylineCoordinatesId, *polylinePointCountId) };
     annotation.opacity = { jni::GetField<jfloat>(*env, polyline, *polylineAlphaId) };
     annotation.color = { toColor(jni::GetField<jint>(*env, polyline, *polylineColorId)) };
     annotation.width = { jni::GetField<jfloat>(*env, polyline, *polylineWidthId) };
     nativeMapView->getMap().updateAnnotation(polylineId, annotation);
 }
 
+void nativeAppendPolylinePoints(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jlong polylineId, jni::jobject* polyline, jint start) {
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    // The map already holds the points before start, they are extended in place
+    mbgl::LineString<double> points = toGeometry<mbgl::LineString<double>>(env, polyline, *polylineCoordinatesId, *polylinePointCountId, start);
+    nativeMapView->getMap().appendAnnotationPoints(polylineId, points);
+}
+
 void nativeRemoveAnnotations(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jlong>* jarray) {
     assert(nativeMapViewPtr != 0);
     NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
@@ -829,23 +903,38 @@ jni::jarray<jlong>* nativeQueryPointAnnotations(JNIEnv *env, jni::jobject* obj,
     return std_vector_uint_to_jobject(env, ids);
 }
 
-void nativeAddAnnotationIcon(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr,
-        jni::jstring* symbol, jint width, jint height, jfloat scale, jni::jarray<jbyte>* jpixels) {
-    assert(nativeMapViewPtr != 0);
-    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+// Copies the remaining bytes of a direct java.nio.ByteBuffer into a premultiplied image,
+// this is the only copy made of the pixels between the Bitmap and the renderer
+static mbgl::PremultipliedImage premultiplied_image_from_buffer(JNIEnv *env, jni::jobject* jbuffer,
+        jint width, jint height) {
+    NullCheck(*env, jbuffer);
+    auto* address = reinterpret_cast<const uint8_t*>(env->GetDirectBufferAddress(jni::Unwrap(jbuffer)));
+    if (address == nullptr) {
+        throw mbgl::util::SpriteImageException("Sprite image pixels should be passed as a direct buffer");
+    }
 
-    const std::string symbolName = std_string_from_jstring(env, symbol);
+    jint position = jni::CallMethod<jint>(*env, jbuffer, *bufferPositionId);
+    jint remaining = jni::CallMethod<jint>(*env, jbuffer, *bufferRemainingId);
 
-    NullCheck(*env, jpixels);
-    std::size_t size = jni::GetArrayLength(*env, *jpixels);
     mbgl::PremultipliedImage premultipliedImage(
         { static_cast<uint32_t>(width), static_cast<uint32_t>(height) });
 
-    if (premultipliedImage.bytes() != uint32_t(size)) {
+    if (premultipliedImage.bytes() != std::size_t(remaining)) {
         throw mbgl::util::SpriteImageException("Sprite image pixel count mismatch");
     }
 
-    jni::GetArrayRegion(*env, *jpixels, 0, size, reinterpret_cast<jbyte*>(premultipliedImage.data.get()));
+    std::memcpy(premultipliedImage.data.get(), address + position, premultipliedImage.bytes());
+    return premultipliedImage;
+}
+
+void nativeAddAnnotationIcon(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr,
+        jni::jstring* symbol, jint width, jint height, jfloat scale, jni::jobject* jpixels) {
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    const std::string symbolName = std_string_from_jstring(env, symbol);
+
+    mbgl::PremultipliedImage premultipliedImage = premultiplied_image_from_buffer(env, jpixels, width, height);
 
     auto iconImage = std::make_shared<mbgl::SpriteImage>(
         std::move(premultipliedImage),
@@ -994,6 +1083,38 @@ jni::jobject* nativePixelForLatLng(JNIEnv *env, jni::jobject* obj, jlong nativeM
     return &jni::NewObject(*env, *pointFClass, *pointFConstructorId, static_cast<jfloat>(pixel.x), static_cast<jfloat>(pixel.y));
 }
 
+void nativePixelsForLatLngs(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jdouble>* jcoordinates,
+        jni::jarray<jfloat>* jpixels, jint count) {
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    NullCheck(*env, jcoordinates);
+    NullCheck(*env, jpixels);
+
+    // Both arrays are accessed in place, no JNI calls are made while they are held
+    auto* coordinates = static_cast<jdouble*>(env->GetPrimitiveArrayCritical(jni::Unwrap(jcoordinates), nullptr));
+    auto* pixels = static_cast<jfloat*>(env->GetPrimitiveArrayCritical(jni::Unwrap(jpixels), nullptr));
+
+    std::exception_ptr error;
+    try {
+        for (jint i = 0; i < count; i++) {
+            mbgl::ScreenCoordinate pixel = nativeMapView->getMap().pixelForLatLng(
+                mbgl::LatLng(coordinates[2 * i], coordinates[2 * i + 1]));
+            pixels[2 * i] = static_cast<jfloat>(pixel.x);
+            pixels[2 * i + 1] = static_cast<jfloat>(pixel.y);
+        }
+    } catch (...) {
+        error = std::current_exception();
+    }
+
+    env->ReleasePrimitiveArrayCritical(jni::Unwrap(jpixels), pixels, 0);
+    env->ReleasePrimitiveArrayCritical(jni::Unwrap(jcoordinates), coordinates, JNI_ABORT);
+
+    if (error) {
+        std::rethrow_exception(error);
+    }
+}
+
 jni::jobject* nativeLatLngForPixel(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jfloat x, jfloat y) {
     assert(nativeMapViewPtr != 0);
     NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
@@ -1239,21 +1360,12 @@ void nativeRemoveSource(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr,
     }
 }
 
-void nativeAddImage(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jstring* name, jni::jint width, jni::jint height, jni::jfloat pixelRatio, jni::jarray<jbyte>* data) {
+void nativeAddImage(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jstring* name, jni::jint width, jni::jint height, jni::jfloat pixelRatio, jni::jobject* data) {
     assert(nativeMapViewPtr != 0);
     NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
 
-    // Create Pre-multiplied image from byte[]
-    NullCheck(*env, data);
-    std::size_t size = jni::GetArrayLength(*env, *data);
-    mbgl::PremultipliedImage premultipliedImage(
-        { static_cast<uint32_t>(width), static_cast<uint32_t>(height) });
-
-    if (premultipliedImage.bytes() != uint32_t(size)) {
-        throw mbgl::util::SpriteImageException("Sprite image pixel count mismatch");
-    }
-
-    jni::GetArrayRegion(*env, *data, 0, size, reinterpret_cast<jbyte*>(premultipliedImage.data.get()));
+    // Create Pre-multiplied image from the direct ByteBuffer
+    mbgl::PremultipliedImage premultipliedImage = premultiplied_image_from_buffer(env, data, width, height);
 
     //Wrap in a SpriteImage with the correct pixel ratio
     auto spriteImage = std::make_unique<mbgl::SpriteImage>(std::move(premultipliedImage), float(pixelRatio));
@@ -1261,6 +1373,59 @@ void nativeAddImage(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni:
     nativeMapView->getMap().addImage(std_string_from_jstring(env, name), std::move(spriteImage));
 }
 
+void nativeAddImages(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jni::jobject>* jnames,
+        jni::jarray<jint>* jdimensions, jni::jarray<jfloat>* jpixelRatios, jni::jobject* jpixels) {
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    NullCheck(*env, jnames);
+    NullCheck(*env, jdimensions);
+    NullCheck(*env, jpixelRatios);
+    NullCheck(*env, jpixels);
+
+    std::size_t len = jni::GetArrayLength(*env, *jnames);
+    if (2 * len != jni::GetArrayLength(*env, *jdimensions) || len != jni::GetArrayLength(*env, *jpixelRatios)) {
+        throw std::runtime_error("Image metadata array length mismatch");
+    }
+
+    std::vector<jint> dimensions(2 * len);
+    std::vector<jfloat> pixelRatios(len);
+    jni::GetArrayRegion(*env, *jdimensions, 0, 2 * len, dimensions.data());
+    jni::GetArrayRegion(*env, *jpixelRatios, 0, len, pixelRatios.data());
+
+    auto* address = reinterpret_cast<const uint8_t*>(env->GetDirectBufferAddress(jni::Unwrap(jpixels)));
+    if (address == nullptr) {
+        throw mbgl::util::SpriteImageException("Sprite image pixels should be passed as a direct buffer");
+    }
+    jint position = jni::CallMethod<jint>(*env, jpixels, *bufferPositionId);
+    std::size_t remaining = jni::CallMethod<jint>(*env, jpixels, *bufferRemainingId);
+
+    // Images are packed back to back in the order of the names
+    std::map<std::string, std::unique_ptr<const mbgl::SpriteImage>> images;
+    std::size_t offset = 0;
+    for (std::size_t i = 0; i < len; i++) {
+        mbgl::PremultipliedImage premultipliedImage(
+            { static_cast<uint32_t>(dimensions[2 * i]), static_cast<uint32_t>(dimensions[2 * i + 1]) });
+
+        if (offset + premultipliedImage.bytes() > remaining) {
+            throw mbgl::util::SpriteImageException("Sprite image pixel count mismatch");
+        }
+        std::memcpy(premultipliedImage.data.get(), address + position + offset, premultipliedImage.bytes());
+        offset += premultipliedImage.bytes();
+
+        jni::jstring* jname = reinterpret_cast<jni::jstring*>(jni::GetObjectArrayElement(*env, *jnames, i));
+        images[std_string_from_jstring(env, jname)] =
+            std::make_unique<mbgl::SpriteImage>(std::move(premultipliedImage), float(pixelRatios[i]));
+        jni::DeleteLocalRef(*env, jname);
+    }
+
+    if (offset != remaining) {
+        throw mbgl::util::SpriteImageException("Sprite image pixel count mismatch");
+    }
+
+    nativeMapView->getMap().addImages(std::move(images));
+}
+
 void nativeRemoveImage(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jstring* name) {
     assert(nativeMapViewPtr != 0);
     NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
@@ -1799,18 +1964,24 @@ void registerNatives(JavaVM *vm) {
     polylineAlphaId = &jni::GetFieldID(env, *polylineClass, "alpha", "F");
     polylineColorId = &jni::GetFieldID(env, *polylineClass, "color", "I");
     polylineWidthId = &jni::GetFieldID(env, *polylineClass, "width", "F");
-    polylinePointsId = &jni::GetFieldID(env, *polylineClass, "points", "Ljava/util/List;");
+    polylineCoordinatesId = &jni::GetFieldID(env, *polylineClass, "coordinates", "[D");
+    polylinePointCountId = &jni::GetFieldID(env, *polylineClass, "pointCount", "I");
 
     polygonClass = &jni::FindClass(env, "com/mapbox/mapboxsdk/annotations/Polygon");
     polygonClass = jni::NewGlobalRef(env, polygonClass).release();
     polygonAlphaId = &jni::GetFieldID(env, *polygonClass, "alpha", "F");
     polygonFillColorId = &jni::GetFieldID(env, *polygonClass, "fillColor", "I");
     polygonStrokeColorId = &jni::GetFieldID(env, *polygonClass, "strokeColor", "I");
-    polygonPointsId = &jni::GetFieldID(env, *polygonClass, "points", "Ljava/util/List;");
+    polygonCoordinatesId = &jni::GetFieldID(env, *polygonClass, "coordinates", "[D");
+    polygonPointCountId = &jni::GetFieldID(env, *polygonClass, "pointCount", "I");
 
     jni::jclass* listClass = &jni::FindClass(env, "java/util/List");
     listToArrayId = &jni::GetMethodID(env, *listClass, "toArray", "()[Ljava/lang/Object;");
 
+    jni::jclass* bufferClass = &jni::FindClass(env, "java/nio/Buffer");
+    bufferPositionId = &jni::GetMethodID(env, *bufferClass, "position", "()I");
+    bufferRemainingId = &jni::GetMethodID(env, *bufferClass, "remaining", "()I");
+
     arrayListClass = &jni::FindClass(env, "java/util/ArrayList");
     arrayListClass = jni::NewGlobalRef(env, arrayListClass).release();
     arrayListConstructorId = &jni::GetMethodID(env, *arrayListClass, "<init>", "()V");
@@ -1893,15 +2064,17 @@ void registerNatives(JavaVM *vm) {
         MAKE_NATIVE_METHOD(nativeSetBearingXY, "(JDDD)V"),
         MAKE_NATIVE_METHOD(nativeGetBearing, "(J)D"),
         MAKE_NATIVE_METHOD(nativeResetNorth, "(J)V"),
-        MAKE_NATIVE_METHOD(nativeAddMarkers, "(J[Lcom/mapbox/mapboxsdk/annotations/Marker;)[J"),
+        MAKE_NATIVE_METHOD(nativeAddMarkers, "(J[Lcom/mapbox/mapboxsdk/annotations/Marker;[Ljava/lang/String;)[J"),
         MAKE_NATIVE_METHOD(nativeAddPolylines, "(J[Lcom/mapbox/mapboxsdk/annotations/Polyline;)[J"),
         MAKE_NATIVE_METHOD(nativeAddPolygons, "(J[Lcom/mapbox/mapboxsdk/annotations/Polygon;)[J"),
         MAKE_NATIVE_METHOD(nativeUpdateMarker, "(JJDDLjava/lang/String;)V"),
+        MAKE_NATIVE_METHOD(nativeUpdateMarkers, "(J[J[D[I[Ljava/lang/String;)V"),
         MAKE_NATIVE_METHOD(nativeUpdatePolygon, "(JJLcom/mapbox/mapboxsdk/annotations/Polygon;)V"),
         MAKE_NATIVE_METHOD(nativeUpdatePolyline, "(JJLcom/mapbox/mapboxsdk/annotations/Polyline;)V"),
+        MAKE_NATIVE_METHOD(nativeAppendPolylinePoints, "(JJLcom/mapbox/mapboxsdk/annotations/Polyline;I)V"),
         MAKE_NATIVE_METHOD(nativeRemoveAnnotations, "(J[J)V"),
         MAKE_NATIVE_METHOD(nativeQueryPointAnnotations, "(JLandroid/graphics/RectF;)[J"),
-        MAKE_NATIVE_METHOD(nativeAddAnnotationIcon, "(JLjava/lang/String;IIF[B)V"),
+        MAKE_NATIVE_METHOD(nativeAddAnnotationIcon, "(JLjava/lang/String;IIFLjava/nio/ByteBuffer;)V"),
         MAKE_NATIVE_METHOD(nativeSetVisibleCoordinateBounds, "(J[Lcom/mapbox/mapboxsdk/geometry/LatLng;Landroid/graphics/RectF;DJ)V"),
         MAKE_NATIVE_METHOD(nativeOnLowMemory, "(J)V"),
         MAKE_NATIVE_METHOD(nativeSetDebug, "(JZ)V"),
@@ -1913,6 +2086,7 @@ void registerNatives(JavaVM *vm) {
         MAKE_NATIVE_METHOD(nativeProjectedMetersForLatLng, "(JDD)Lcom/mapbox/mapboxsdk/geometry/ProjectedMeters;"),
         MAKE_NATIVE_METHOD(nativeLatLngForProjectedMeters, "(JDD)Lcom/mapbox/mapboxsdk/geometry/LatLng;"),
         MAKE_NATIVE_METHOD(nativePixelForLatLng, "(JDD)Landroid/graphics/PointF;"),
+        MAKE_NATIVE_METHOD(nativePixelsForLatLngs, "(J[D[FI)V"),
         MAKE_NATIVE_METHOD(nativeLatLngForPixel, "(JFF)Lcom/mapbox/mapboxsdk/geometry/LatLng;"),
         MAKE_NATIVE_METHOD(nativeGetTopOffsetPixelsForAnnotationSymbol, "(JLjava/lang/String;)D"),
         MAKE_NATIVE_METHOD(nativeJumpTo, "(JDDDDD)V"),
@@ -1930,7 +2104,8 @@ void registerNatives(JavaVM *vm) {
         MAKE_NATIVE_METHOD(nativeAddSource, "(JJ)V"),
         MAKE_NATIVE_METHOD(nativeRemoveSourceById, "(JLjava/lang/String;)V"),
         MAKE_NATIVE_METHOD(nativeRemoveSource, "(JJ)V"),
-        MAKE_NATIVE_METHOD(nativeAddImage, "(JLjava/lang/String;IIF[B)V"),
+        MAKE_NATIVE_METHOD(nativeAddImage, "(JLjava/lang/String;IIFLjava/nio/ByteBuffer;)V"),
+        MAKE_NATIVE_METHOD(nativeAddImages, "(J[Ljava/lang/String;[I[FLjava/nio/ByteBuffer;)V"),
         MAKE_NATIVE_METHOD(nativeRemoveImage, "(JLjava/lang/String;)V"),
         MAKE_NATIVE_METHOD(nativeSetContentPadding, "(JDDDD)V"),
         MAKE_NATIVE_METHOD(nativeScheduleTakeSnapshot, "(J)V"),
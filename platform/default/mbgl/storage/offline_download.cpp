@@ -283,8 +283,12 @@ void OfflineDownload::ensureResource(const Resource& resource,
             return;
         }
 
+        // Downloads for offline use yield to the resources needed by the maps on screen.
+        Resource onlineResource = resource;
+        onlineResource.priority = Resource::Priority::Low;
+
         auto fileRequestsIt = requests.insert(requests.begin(), nullptr);
-        *fileRequestsIt = onlineFileSource.request(resource, [=](Response onlineResponse) {
+        *fileRequestsIt = onlineFileSource.request(onlineResource, [=](Response onlineResponse) {
             if (onlineResponse.error) {
                 observer->responseError(*onlineResponse.error);
                 return;
@@ -93,7 +93,15 @@ public:
     }
 
     void queueRequest(OnlineFileRequest* request) {
-        auto it = pendingRequestsList.insert(pendingRequestsList.end(), request);
+        // Regular requests are queued ahead of low priority ones, in order of arrival.
+        auto position = pendingRequestsList.end();
+        if (request->resource.priority == Resource::Priority::Regular) {
+            position = std::find_if(pendingRequestsList.begin(), pendingRequestsList.end(),
+                [](const OnlineFileRequest* pending) {
+                    return pending->resource.priority == Resource::Priority::Low;
+                });
+        }
+        auto it = pendingRequestsList.insert(position, request);
         pendingRequestsMap.emplace(request, std::move(it));
         assert(pendingRequestsMap.size() == pendingRequestsList.size());
     }
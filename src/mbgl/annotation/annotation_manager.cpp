@@ -52,6 +52,19 @@ Update AnnotationManager::updateAnnotation(const AnnotationID& id, const Annotat
     });
 }
 
+Update AnnotationManager::appendAnnotationPoints(const AnnotationID& id, const LineString<double>& points) {
+    auto it = shapeAnnotations.find(id);
+    if (it == shapeAnnotations.end()) {
+        assert(false); // Attempt to append to a non-existent shape annotation
+        return Update::Nothing;
+    }
+    if (points.empty() || !it->second->appendPoints(points)) {
+        return Update::Nothing;
+    }
+    // The layer and its paint properties are unchanged, only the tiles need the new geometry
+    return Update::AnnotationData;
+}
+
 void AnnotationManager::removeAnnotation(const AnnotationID& id) {
     if (symbolAnnotations.find(id) != symbolAnnotations.end()) {
         symbolTree.remove(symbolAnnotations.at(id));
@@ -30,6 +30,7 @@ public:
 
     AnnotationID addAnnotation(const Annotation&, const uint8_t maxZoom);
     Update updateAnnotation(const AnnotationID&, const Annotation&, const uint8_t maxZoom);
+    Update appendAnnotationPoints(const AnnotationID&, const LineString<double>&);
     void removeAnnotation(const AnnotationID&);
 
     void addIcon(const std::string& name, std::shared_ptr<const SpriteImage>);
@@ -32,4 +32,16 @@ const ShapeAnnotationGeometry& LineAnnotationImpl::geometry() const {
     return annotation.geometry;
 }
 
+bool LineAnnotationImpl::appendPoints(const LineString<double>& points) {
+    if (!annotation.geometry.is<LineString<double>>()) {
+        return false;
+    }
+    LineString<double>& line = annotation.geometry.get<LineString<double>>();
+    line.insert(line.end(), points.begin(), points.end());
+
+    // geojson-vt can't extend an existing index, the tiles are cut again from the grown line
+    shapeTiler.reset();
+    return true;
+}
+
 } // namespace mbgl
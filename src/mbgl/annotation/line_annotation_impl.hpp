@@ -11,9 +11,10 @@ public:
 
     void updateStyle(style::Style&) const final;
     const ShapeAnnotationGeometry& geometry() const final;
+    bool appendPoints(const LineString<double>&) final;
 
 private:
-    const LineAnnotation annotation;
+    LineAnnotation annotation;
 };
 
 } // namespace mbgl
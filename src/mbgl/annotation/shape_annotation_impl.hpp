@@ -25,6 +25,9 @@ public:
     virtual void updateStyle(style::Style&) const = 0;
     virtual const ShapeAnnotationGeometry& geometry() const = 0;
 
+    // Appends points to a line geometry in place, returns false when the geometry isn't a line
+    virtual bool appendPoints(const LineString<double>&) { return false; }
+
     void updateTileData(const CanonicalTileID&, AnnotationTileData&);
 
     const AnnotationID id;
@@ -790,6 +790,10 @@ void Map::updateAnnotation(AnnotationID id, const Annotation& annotation) {
     impl->onUpdate(impl->annotationManager->updateAnnotation(id, annotation, getMaxZoom()));
 }
 
+void Map::appendAnnotationPoints(AnnotationID id, const LineString<double>& points) {
+    impl->onUpdate(impl->annotationManager->appendAnnotationPoints(id, points));
+}
+
 void Map::removeAnnotation(AnnotationID annotation) {
     impl->annotationManager->removeAnnotation(annotation);
     impl->onUpdate(Update::AnnotationStyle | Update::AnnotationData);
@@ -917,6 +921,23 @@ void Map::addImage(const std::string& name, std::unique_ptr<const SpriteImage> i
     impl->onUpdate(Update::Repaint);
 }
 
+void Map::addImages(std::map<std::string, std::unique_ptr<const SpriteImage>> images) {
+    if (!impl->style || images.empty()) {
+        return;
+    }
+
+    SpriteAtlas::Sprites sprites;
+    for (auto& pair : images) {
+        sprites.emplace(pair.first, std::move(pair.second));
+    }
+
+    impl->styleMutated = true;
+    impl->style->spriteAtlas->setSprites(sprites);
+    impl->style->spriteAtlas->updateDirty();
+
+    impl->onUpdate(Update::Repaint);
+}
+
 void Map::removeImage(const std::string& name) {
     if (!impl->style) {
         return;
@@ -224,6 +224,23 @@ TEST(Annotations, UpdateLineAnnotationGeometry) {
     test.checkRendering("update_line_geometry");
 }
 
+TEST(Annotations, AppendLineAnnotationPoints) {
+    AnnotationTest test;
+
+    LineAnnotation annotation { LineString<double> {{ { 0, 0 }, { 45, 45 } }} };
+    annotation.color = Color::red();
+    annotation.width = { 5 };
+
+    test.map.setStyleJSON(util::read_file("test/fixtures/api/empty.json"));
+    AnnotationID line = test.map.addAnnotation(annotation);
+
+    test::render(test.map, test.view);
+
+    // the grown line renders like the same line added at once
+    test.map.appendAnnotationPoints(line, LineString<double> {{ { 30, 0 } }});
+    test.checkRendering("line_annotation");
+}
+
 TEST(Annotations, UpdateLineAnnotationStyle) {
     AnnotationTest test;
 
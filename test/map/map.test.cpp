@@ -383,6 +383,22 @@ TEST(Map, AddImage) {
     test::checkImage("test/fixtures/map/add_icon", test::render(map, test.view));
 }
 
+TEST(Map, AddImages) {
+    MapTest test;
+
+    Map map(test.backend, test.view.size, 1, test.fileSource, test.threadPool, MapMode::Still);
+    std::map<std::string, std::unique_ptr<const SpriteImage>> images;
+    images.emplace("test-icon", std::make_unique<SpriteImage>(
+        decodeImage(util::read_file("test/fixtures/sprites/default_marker.png")), 1.0));
+    images.emplace("unused-icon", std::make_unique<SpriteImage>(
+        decodeImage(util::read_file("test/fixtures/sprites/default_marker.png")), 1.0));
+
+    map.setStyleJSON(util::read_file("test/fixtures/api/icon_style.json"));
+    map.addImages(std::move(images));
+    EXPECT_NE(nullptr, map.getImage("unused-icon"));
+    test::checkImage("test/fixtures/map/add_icon", test::render(map, test.view));
+}
+
 TEST(Map, RemoveImage) {
     MapTest test;
 